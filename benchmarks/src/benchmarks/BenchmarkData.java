@@ -0,0 +1,85 @@
+package benchmarks;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import Model.Dates;
+import Model.IAlphaAPIInterface;
+import Model.StockSeries;
+
+/**
+ * Synthetic price data and an offline API for the benchmarks.
+ */
+final class BenchmarkData {
+  static final int FIRST_DAY = Dates.parse("1990-01-01");
+
+  private BenchmarkData() {
+  }
+
+  /**
+   * Builds a random-walk price history over consecutive weekdays starting on 1990-01-01.
+   * The same rows and seed always give the same series.
+   *
+   * @param rows int number of trading days.
+   * @param seed long seed of the random walk.
+   * @return StockSeries.
+   */
+  static StockSeries series(int rows, long seed) {
+    Random random = new Random(seed);
+    StockSeries.Builder builder = new StockSeries.Builder(rows);
+    double close = 100;
+    for (int i = 0; i < rows; i++) {
+      double open = close;
+      close = Math.max(1, open * (1 + random.nextGaussian() * 0.02));
+      double high = Math.max(open, close) * (1 + random.nextDouble() * 0.01);
+      double low = Math.min(open, close) * (1 - random.nextDouble() * 0.01);
+      builder.add(dayAt(i), open, high, low, close, 1_000_000 + random.nextInt(9_000_000));
+    }
+    return builder.build();
+  }
+
+  /**
+   * Returns the epoch day of a row of a synthetic series.
+   *
+   * @param row int row.
+   * @return int epoch day.
+   */
+  static int dayAt(int row) {
+    // 1990-01-01 was a Monday: five weekdays for every seven days.
+    return FIRST_DAY + row / 5 * 7 + row % 5;
+  }
+
+  /**
+   * Writes a series as newest-first CSV, the way Alpha Vantage returns it.
+   *
+   * @param series StockSeries to write.
+   * @return byte[] CSV text.
+   */
+  static byte[] csv(StockSeries series) {
+    StringBuilder text = new StringBuilder("timestamp,open,high,low,close,volume\n");
+    for (int i = series.size() - 1; i >= 0; i--) {
+      text.append(Dates.format(series.dayAt(i))).append(',')
+              .append(String.format("%.4f,%.4f,%.4f,%.4f,", series.openAt(i), series.highAt(i),
+                      series.lowAt(i), series.closeAt(i)))
+              .append(series.volumeAt(i)).append('\n');
+    }
+    return text.toString().getBytes(StandardCharsets.US_ASCII);
+  }
+
+  /**
+   * Returns an API that only serves symbols already in the library, so no benchmark
+   * touches the network.
+   *
+   * @return IAlphaAPIInterface.
+   */
+  static IAlphaAPIInterface offlineApi() {
+    return (symbol, library) -> {
+      StockSeries series = library.get(symbol);
+      if (series == null) {
+        throw new IOException("Benchmark data not loaded for " + symbol);
+      }
+      return series;
+    };
+  }
+}
@@ -0,0 +1,25 @@
+package benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks with the GC profiler, so every result comes with its allocation
+ * rate (gc.alloc.rate) and bytes allocated per operation (gc.alloc.rate.norm) next to the
+ * throughput and sampled latency.
+ * The Benchmarks module has to be built with annotation processing enabled, which
+ * generates the benchmark list JMH reads. Pass a regular expression to run only the
+ * matching benchmarks, for example: QueryBenchmark.viewXDay
+ */
+public class BenchmarkRunner {
+  public static void main(String[] args) throws RunnerException {
+    Options options = new OptionsBuilder()
+            .include(args.length > 0 ? args[0] : "benchmarks\\..*")
+            .addProfiler(GCProfiler.class)
+            .build();
+    new Runner(options).run();
+  }
+}
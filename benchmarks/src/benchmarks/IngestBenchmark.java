@@ -0,0 +1,93 @@
+package benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import Model.BundledSeries;
+import Model.SeriesCsvParser;
+import Model.SeriesFile;
+import Model.StockSeries;
+import View.StockView;
+import controller.StockController;
+
+/**
+ * Measures loading price histories: the bundled tickers from CSV and from their binary
+ * snapshots, and synthetic CSV and binary data of different sizes.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IngestBenchmark {
+
+  /**
+   * Which bundled ticker to load.
+   */
+  @State(Scope.Benchmark)
+  public static class Bundled {
+    @Param({"GOOG", "AAPL"})
+    public String symbol;
+  }
+
+  /**
+   * A synthetic history encoded as CSV and as a binary snapshot.
+   */
+  @State(Scope.Benchmark)
+  public static class Synthetic {
+    @Param({"2500", "100000"})
+    public int rows;
+
+    private byte[] csv;
+    private byte[] snapshot;
+
+    @Setup
+    public void setUp() {
+      StockSeries series = BenchmarkData.series(rows, 0);
+      csv = BenchmarkData.csv(series);
+      snapshot = SeriesFile.encode(series).array();
+    }
+  }
+
+  @Benchmark
+  public StockController addOriginalStocksToLibrary(Bundled bundled) throws IOException {
+    StockController controller = new StockController(new StockView(), new StringReader(""),
+            new StringBuilder(), null);
+    controller.addOriginalStocksToLibrary(bundled.symbol);
+    return controller;
+  }
+
+  @Benchmark
+  public StockSeries loadBundledCsv(Bundled bundled) throws IOException {
+    return BundledSeries.loadCsv(bundled.symbol);
+  }
+
+  @Benchmark
+  public StockSeries loadBundledSnapshot(Bundled bundled) throws IOException {
+    return BundledSeries.load(bundled.symbol);
+  }
+
+  @Benchmark
+  public StockSeries parseSyntheticCsv(Synthetic synthetic) throws IOException {
+    return SeriesCsvParser.parse(new ByteArrayInputStream(synthetic.csv));
+  }
+
+  @Benchmark
+  public StockSeries readSyntheticSnapshot(Synthetic synthetic) throws IOException {
+    return SeriesFile.read(new ByteArrayInputStream(synthetic.snapshot));
+  }
+}
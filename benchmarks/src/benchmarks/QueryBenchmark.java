@@ -0,0 +1,144 @@
+package benchmarks;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import Model.BundledSeries;
+import Model.Crossovers;
+import Model.Dates;
+import Model.IAlphaAPIInterface;
+import Model.Portfolio;
+import Model.SeriesCache;
+import Model.Stock;
+import Model.StockSeries;
+
+/**
+ * Measures the Stock and Portfolio queries against a bundled ticker and a large synthetic
+ * one. Every query reads from the library; nothing is downloaded.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class QueryBenchmark {
+  private static final int SYNTHETIC_ROWS = 100_000;
+  private static final int SYNTHETIC_HOLDINGS = 100;
+
+  /**
+   * A library holding the bundled tickers and the synthetic series.
+   */
+  @State(Scope.Benchmark)
+  public static class Library {
+    private SeriesCache library;
+    private IAlphaAPIInterface api;
+
+    @Setup
+    public void setUp() throws IOException {
+      library = new SeriesCache(Long.MAX_VALUE);
+      api = BenchmarkData.offlineApi();
+      for (String bundled : new String[]{"GOOG", "AAPL", "NVDA"}) {
+        library.put(bundled, BundledSeries.load(bundled));
+      }
+      library.put("SYNTHETIC", BenchmarkData.series(SYNTHETIC_ROWS, 0));
+      for (int i = 0; i < SYNTHETIC_HOLDINGS; i++) {
+        library.put("SYN" + i, BenchmarkData.series(SYNTHETIC_ROWS / 10, i + 1));
+      }
+    }
+  }
+
+  /**
+   * The ticker, window length and dates queried by the Stock benchmarks.
+   */
+  @State(Scope.Benchmark)
+  public static class Query {
+    @Param({"GOOG", "SYNTHETIC"})
+    public String symbol;
+
+    @Param({"50", "200"})
+    public int days;
+
+    private String startDate;
+    private String endDate;
+
+    @Setup
+    public void setUp(Library data) {
+      StockSeries series = data.library.get(symbol);
+      // Every day after the start is checked for a cross-over, so start a year from the end.
+      startDate = Dates.format(series.dayAt(Math.max(days, series.size() - 250)));
+      endDate = Dates.format(series.dayAt(series.size() - 1));
+    }
+  }
+
+  /**
+   * A portfolio of the three bundled tickers and one of 100 synthetic tickers.
+   */
+  @State(Scope.Benchmark)
+  public static class Portfolios {
+    private Portfolio bundled;
+    private String bundledDate;
+    private Portfolio synthetic;
+    private String syntheticDate;
+
+    @Setup
+    public void setUp(Library data) {
+      Map<String, Integer> holdings = new HashMap<>();
+      holdings.put("GOOG", 10);
+      holdings.put("AAPL", 20);
+      holdings.put("NVDA", 5);
+      bundled = Portfolio.createPortfolio("Bundled", holdings);
+      StockSeries goog = data.library.get("GOOG");
+      bundledDate = Dates.format(goog.dayAt(goog.size() - 1));
+
+      Map<String, Integer> syntheticHoldings = new HashMap<>();
+      for (int i = 0; i < SYNTHETIC_HOLDINGS; i++) {
+        syntheticHoldings.put("SYN" + i, i + 1);
+      }
+      synthetic = Portfolio.createPortfolio("Synthetic", syntheticHoldings);
+      syntheticDate = Dates.format(BenchmarkData.dayAt(SYNTHETIC_ROWS / 20));
+    }
+  }
+
+  @Benchmark
+  public double viewGainLoss(Library data, Query query) throws IOException {
+    return Stock.viewGainLoss(query.symbol, query.startDate, query.endDate, data.api, data.library);
+  }
+
+  @Benchmark
+  public double viewXDayMovingAverage(Library data, Query query) throws IOException {
+    return Stock.viewXDayMovingAverage(query.symbol, query.endDate, query.days, data.api,
+            data.library);
+  }
+
+  @Benchmark
+  public Crossovers findXDayCrossOvers(Library data, Query query) throws IOException {
+    return Stock.findXDayCrossOvers(query.symbol, query.startDate, query.days, data.api,
+            data.library);
+  }
+
+  @Benchmark
+  public double calculateBundledPortfolioValue(Library data, Portfolios portfolios) {
+    return portfolios.bundled.calculatePortfolioValue(portfolios.bundledDate, data.api,
+            data.library);
+  }
+
+  @Benchmark
+  public double calculateSyntheticPortfolioValue(Library data, Portfolios portfolios) {
+    return portfolios.synthetic.calculatePortfolioValue(portfolios.syntheticDate, data.api,
+            data.library);
+  }
+}
@@ -0,0 +1,81 @@
+package benchmarks;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import Model.Dates;
+import Model.ScreenCondition;
+import Model.ScreenMatch;
+import Model.Screener;
+import Model.SeriesCache;
+
+/**
+ * Measures screening a universe of 5,000 synthetic tickers with one to eight worker
+ * threads, to show how the screener scales with cores.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ScreenerBenchmark {
+  private static final int SYMBOLS = 5_000;
+  private static final int ROWS = 1_000;
+
+  @Param({"1", "2", "4", "8"})
+  public int threads;
+
+  private SeriesCache library;
+  private ForkJoinPool pool;
+  private ScreenCondition crossedAbove;
+  private ScreenCondition gain;
+  private ScreenCondition volumeSpike;
+
+  @Setup
+  public void setUp() {
+    library = new SeriesCache(Long.MAX_VALUE);
+    for (int i = 0; i < SYMBOLS; i++) {
+      library.put("SYN" + i, BenchmarkData.series(ROWS, i));
+    }
+    pool = new ForkJoinPool(threads);
+    String date = Dates.format(BenchmarkData.dayAt(ROWS - 1));
+    crossedAbove = ScreenCondition.crossedAbove(date, 50);
+    gain = ScreenCondition.gainAtLeast(Dates.format(BenchmarkData.dayAt(ROWS - 250)), date, 0);
+    volumeSpike = ScreenCondition.volumeSpike(date, 20, 1.5);
+  }
+
+  @TearDown
+  public void tearDown() {
+    pool.shutdown();
+  }
+
+  @Benchmark
+  public List<ScreenMatch> crossedAbove() {
+    return Screener.screen(library, crossedAbove, pool);
+  }
+
+  @Benchmark
+  public List<ScreenMatch> gainAtLeast() {
+    return Screener.screen(library, gain, pool);
+  }
+
+  @Benchmark
+  public List<ScreenMatch> volumeSpike() {
+    return Screener.screen(library, volumeSpike, pool);
+  }
+}
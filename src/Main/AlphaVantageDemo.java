@@ -1,26 +1,125 @@
 package Main;
 
+import java.io.BufferedWriter;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Locale;
 
+import controller.BatchRunner;
+import controller.QueryServer;
 import controller.StockController;
 import Model.AlphaAPI;
+import Model.SeriesDiskCache;
+import Model.PortfolioRegistry;
 import View.StockView;
 
+/**
+ * Starts the interactive menu. With --batch it runs a file of commands and exits instead,
+ * and with --serve it answers queries over HTTP until stopped:
+ * <pre>
+ *   --batch FILE [--format csv|json] [--threads N] [--output FILE]
+ *   --serve PORT [--threads N]
+ * </pre>
+ */
 public class AlphaVantageDemo {
   public static void main(String[] args) {
     StockView view = new StockView();
-    AlphaAPI api = new AlphaAPI();
-    StockController controller = new StockController(view, new InputStreamReader(System.in), System.out, api);
+    // Downloads are kept under ~/.stocks/cache unless -Dstocks.cache.dir names another directory.
+    AlphaAPI api = new AlphaAPI(SeriesDiskCache.defaultCache());
+    PortfolioRegistry portfolios;
     try {
-      controller.addOriginalStocksToLibrary("GOOG");
-      controller.addOriginalStocksToLibrary("AAPL");
-      controller.addOriginalStocksToLibrary("NVDA");
+      portfolios = PortfolioRegistry.openDefault();
+    } catch (IOException e) {
+      System.err.println("Could not open saved portfolios, starting without them: " + e.getMessage());
+      portfolios = new PortfolioRegistry();
+    }
+    StockController controller = new StockController(view, new InputStreamReader(System.in), System.out, api, portfolios);
+    int failures = 0;
+    try {
+      if (args.length > 0 && args[0].equals("--batch")) {
+        controller.registerBundledStocks();
+        failures = runBatch(controller, args);
+        return;
+      }
+      if (args.length > 0 && args[0].equals("--serve")) {
+        controller.registerBundledStocks();
+        controller.warmUpBundledStocks();
+        serve(controller, args);
+        return;
+      }
+      // Bundled stocks are parsed on first use, or in the background once the menu is up.
+      controller.registerBundledStocks();
+      controller.warmUpBundledStocks();
       controller.start();
     } catch (IOException e) {
       e.printStackTrace();
     } catch (Exception e) {
       throw new RuntimeException(e);
+    } finally {
+      api.close();
+      try {
+        portfolios.close();
+      } catch (IOException e) {
+        e.printStackTrace();
+      }
+      if (failures > 0) {
+        System.exit(1);
+      }
+    }
+  }
+
+  private static void serve(StockController controller, String[] args)
+          throws IOException, InterruptedException {
+    if (args.length < 2) {
+      throw new IllegalArgumentException("Usage: --serve PORT [--threads N]");
+    }
+    int threads = Runtime.getRuntime().availableProcessors() * 4;
+    if (args.length >= 4 && args[2].equals("--threads")) {
+      threads = Integer.parseInt(args[3]);
+    }
+    QueryServer server = controller.serve(Integer.parseInt(args[1]), threads);
+    Runtime.getRuntime().addShutdownHook(new Thread(server::stop));
+    System.err.println("Serving queries on port " + server.getPort());
+    server.awaitStop();
+  }
+
+  private static int runBatch(StockController controller, String[] args) throws IOException {
+    if (args.length < 2) {
+      throw new IllegalArgumentException("Usage: --batch FILE [--format csv|json] "
+              + "[--threads N] [--output FILE]");
+    }
+    BatchRunner.Format format = BatchRunner.Format.CSV;
+    int threads = Runtime.getRuntime().availableProcessors();
+    String output = null;
+    for (int i = 2; i + 1 < args.length; i += 2) {
+      switch (args[i]) {
+        case "--format":
+          format = BatchRunner.Format.valueOf(args[i + 1].toUpperCase(Locale.ROOT));
+          break;
+        case "--threads":
+          threads = Integer.parseInt(args[i + 1]);
+          break;
+        case "--output":
+          output = args[i + 1];
+          break;
+        default:
+          throw new IllegalArgumentException("Unknown option: " + args[i]);
+      }
+    }
+
+    try (Reader commands = Files.newBufferedReader(Paths.get(args[1]), StandardCharsets.UTF_8);
+         Writer results = output != null
+                 ? Files.newBufferedWriter(Paths.get(output), StandardCharsets.UTF_8)
+                 : new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8))) {
+      int failures = controller.runBatch(commands, results, format, threads);
+      results.flush();
+      return failures;
     }
   }
 }
\ No newline at end of file
@@ -0,0 +1,36 @@
+package Main;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import Model.SeriesCsvParser;
+import Model.SeriesFile;
+import Model.StockSeries;
+
+/**
+ * Converts every SYMBOL.csv in the resources directory into a SYMBOL.series snapshot next
+ * to it, so the application can load bundled stocks without parsing CSV.
+ * Run it again whenever a bundled CSV changes:
+ * java -cp out Main.BundleSnapshots resources
+ */
+public class BundleSnapshots {
+  public static void main(String[] args) throws IOException {
+    Path directory = Paths.get(args.length > 0 ? args[0] : "resources");
+    try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*.csv")) {
+      for (Path csv : files) {
+        String name = csv.getFileName().toString();
+        Path snapshot = csv.resolveSibling(name.substring(0, name.length() - 4) + ".series");
+        StockSeries series;
+        try (InputStream in = Files.newInputStream(csv)) {
+          series = SeriesCsvParser.parse(in);
+        }
+        SeriesFile.write(series, snapshot);
+        System.out.println("Wrote " + snapshot + " (" + series.size() + " rows)");
+      }
+    }
+  }
+}
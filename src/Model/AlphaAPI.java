@@ -1,74 +1,327 @@
 package Model;
 
-import java.io.BufferedReader;
+import java.io.Closeable;
 import java.io.IOException;
-import java.io.InputStreamReader;
+import java.io.InputStream;
 import java.net.HttpURLConnection;
 import java.net.URL;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
 
-public class AlphaAPI implements IAlphaAPIInterface {
+/**
+ * Fetches daily price histories from Alpha Vantage, through a memory cache and an optional
+ * disk cache. Batch downloads run on worker threads that are started on first use and kept
+ * for later batches; close the API to stop them.
+ */
+public class AlphaAPI implements IAlphaAPIInterface, Closeable {
   public final static String key = "W0M1JOKC82EZEQA8";
-  public final static String baseURL = "https://www.alphavantage.co/query?function=TIME_SERIES_DAILY&outputsize=full&symbol=";
+  public final static String endpointURL = "https://www.alphavantage.co/query";
+  public final static String baseURL = endpointURL + "?function=TIME_SERIES_DAILY&outputsize=full&symbol=";
+  public final static String compactURL = endpointURL + "?function=TIME_SERIES_DAILY&outputsize=compact&symbol=";
 
+  /**
+   * Default number of requests sent to Alpha Vantage per minute.
+   */
+  public final static int DEFAULT_REQUESTS_PER_MINUTE = 75;
 
-@Override
-  public List<Stock> fetchData(String symbol, Map<String, List<Stock>> library) throws IOException {
+  /**
+   * Default number of batch downloads that run at the same time.
+   */
+  public final static int DEFAULT_CONCURRENT_REQUESTS = 8;
+
+  // Builder sizes for the two kinds of download, so a full history does not grow its
+  // columns a dozen times while it streams in.
+  private static final int FULL_ROWS = 8192;
+  private static final int COMPACT_ROWS = 128;
+
+  private static final Metrics.Counter FROM_MEMORY = Metrics.global().counter("fetch.memory");
+  private static final Metrics.Counter FROM_DISK = Metrics.global().counter("fetch.disk");
+  private static final Metrics.Counter FROM_API = Metrics.global().counter("fetch.api");
+  private static final Metrics.Counter ERRORS = Metrics.global().counter("fetch.errors");
+  private static final Metrics.Counter DISK_WRITE_ERRORS =
+          Metrics.global().counter("fetch.disk.writeErrors");
+  private static final Metrics.Histogram HTTP = Metrics.global().histogram("fetch.http");
+  private static final Metrics.Histogram DISK_READ = Metrics.global().histogram("fetch.disk.read");
+
+  private final SeriesDiskCache diskCache;
+  private final String fullQuery;
+  private final String compactQuery;
+  private final RateLimiter rateLimiter;
+  private final int concurrentRequests;
+  private final AtomicLong malformedRows = new AtomicLong();
+  // Created on the first batch download; guarded by this.
+  private ExecutorService fetchPool;
+  private boolean closed;
 
-    if (library != null && library.containsKey(symbol)) {
-      System.out.println("Data collected from cache");
+  /**
+   * Creates an API without a disk cache, so every history is downloaded.
+   * Pass SeriesDiskCache.defaultCache() to keep downloads across restarts.
+   */
+  public AlphaAPI() {
+    this((SeriesDiskCache) null);
+  }
 
-      return library.get(symbol);
+  /**
+   * Creates an API that keeps downloaded data in the given disk cache.
+   *
+   * @param diskCache cache to check before downloading, or null to always download.
+   */
+  public AlphaAPI(SeriesDiskCache diskCache) {
+    this(endpointURL, diskCache, DEFAULT_REQUESTS_PER_MINUTE, DEFAULT_CONCURRENT_REQUESTS);
+  }
 
+  /**
+   * Creates an API against a specific endpoint with its own request budget.
+   *
+   * @param endpoint           URL of the query endpoint, without any parameters.
+   * @param diskCache          cache to check before downloading, or null to always download.
+   * @param requestsPerMinute  maximum number of requests sent per minute, 0 for no limit.
+   * @param concurrentRequests maximum number of batch downloads running at the same time.
+   */
+  public AlphaAPI(String endpoint, SeriesDiskCache diskCache, int requestsPerMinute,
+                  int concurrentRequests) {
+    if (concurrentRequests <= 0) {
+      throw new IllegalArgumentException("Number of concurrent requests must be positive");
+    }
+    this.diskCache = diskCache;
+    this.fullQuery = endpoint + baseURL.substring(endpointURL.length());
+    this.compactQuery = endpoint + compactURL.substring(endpointURL.length());
+    this.rateLimiter = new RateLimiter(requestsPerMinute);
+    this.concurrentRequests = concurrentRequests;
+  }
+
+@Override
+  public StockSeries fetchData(String symbol, SeriesCache library) throws IOException {
+
+    StockSeries cached = library == null ? null : library.get(symbol);
+    if (cached != null) {
+      FROM_MEMORY.increment();
+      return cached;
+
+    } else if (library == null) {
+      return load(symbol);
     } else {
+      return library.getOrLoad(symbol, this::load);
+    }
+  }
+
+  /**
+   * Fetches several symbols at once. Symbols that are not in the library are loaded on a
+   * pool of worker threads, so their downloads overlap, while the shared request budget
+   * keeps the overall rate within the configured requests per minute. Each symbol goes
+   * through the library, so a symbol another thread is already loading is not downloaded
+   * twice.
+   *
+   * @param symbols the stock symbols
+   * @param library the cache of stock data
+   * @return a map from each symbol to its result, in the order the symbols were given
+   */
+  @Override
+  public Map<String, FetchResult> fetchAll(Collection<String> symbols, SeriesCache library) {
+    Map<String, Future<StockSeries>> pending = new LinkedHashMap<>();
+    Map<String, FetchResult> results = new LinkedHashMap<>();
+    try {
+      for (String symbol : symbols) {
+        if (pending.containsKey(symbol)) {
+          continue;
+        }
+        StockSeries cached = library == null ? null : library.get(symbol);
+        pending.put(symbol, cached != null
+                ? CompletableFuture.completedFuture(cached)
+                : fetchPool().submit(() -> fetchData(symbol, library)));
+      }
+
+      for (Map.Entry<String, Future<StockSeries>> entry : pending.entrySet()) {
+        String symbol = entry.getKey();
+        results.put(symbol, await(symbol, entry.getValue()));
+      }
+    } finally {
+      // Only left undone if this thread was interrupted or a submit failed.
+      for (Future<StockSeries> future : pending.values()) {
+        future.cancel(true);
+      }
+    }
+
+    return results;
+  }
+
+  private synchronized ExecutorService fetchPool() {
+    if (closed) {
+      throw new IllegalStateException("AlphaAPI is closed");
+    }
+    if (fetchPool == null) {
+      fetchPool = Executors.newFixedThreadPool(concurrentRequests, new FetchThreadFactory());
+    }
+    return fetchPool;
+  }
+
+  /**
+   * Stops the batch download threads, interrupting any download still running. Single
+   * fetches keep working; batch fetches throw IllegalStateException.
+   */
+  @Override
+  public synchronized void close() {
+    closed = true;
+    if (fetchPool != null) {
+      fetchPool.shutdownNow();
+      fetchPool = null;
+    }
+  }
 
-      List<Stock> stocks = new ArrayList<>();
-      String urlString = baseURL + symbol + "&apikey=" + key + "&datatype=csv";
+  private static FetchResult await(String symbol, Future<StockSeries> future) {
+    try {
+      StockSeries series = future.get();
+      if (series.isEmpty()) {
+        return FetchResult.failure(symbol, "No data available for the symbol: " + symbol);
+      }
+      return FetchResult.success(symbol, series);
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause() == null ? e : e.getCause();
+      return FetchResult.failure(symbol, cause.getMessage() == null ? cause.toString() : cause.getMessage());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return FetchResult.failure(symbol, "Interrupted while fetching " + symbol);
+    }
+  }
+
+  private StockSeries load(String symbol) throws IOException {
+    StockSeries cached = null;
+    if (diskCache != null) {
+      long start = System.nanoTime();
+      cached = diskCache.load(symbol);
+      DISK_READ.recordSince(start);
+    }
+    if (cached != null) {
+      FROM_DISK.increment();
+      return cached;
+    }
+    StockSeries series = download(fullQuery, FULL_ROWS, symbol);
+    storeOnDisk(symbol, series);
+    return series;
+  }
+
+  /**
+   * Brings a cached ticker up to date by downloading only the last 100 trading days and
+   * appending the days that are newer than the cached ones. A ticker that is not cached
+   * yet, or whose cached data ends before the downloaded days start, gets its full
+   * history downloaded instead.
+   *
+   * @param symbol  the stock symbol
+   * @param library the cache of stock data
+   * @return the refreshed StockSeries
+   * @throws IOException if there is an issue fetching data
+   */
+  @Override
+  public StockSeries refreshData(String symbol, SeriesCache library) throws IOException {
+    StockSeries existing = library == null ? null : library.get(symbol);
+    if (existing == null && diskCache != null) {
+      existing = diskCache.load(symbol);
+    }
+    if (existing == null || existing.isEmpty()) {
+      if (library != null) {
+        library.remove(symbol);
+      }
+      return fetchData(symbol, library);
+    }
+
+    StockSeries recent = download(compactQuery, COMPACT_ROWS, symbol);
+    if (existing.appendNewer(recent) < 0) {
+      existing = download(fullQuery, FULL_ROWS, symbol);
+    }
+    storeOnDisk(symbol, existing);
+    if (library != null) {
+      library.put(symbol, existing);
+    }
+    return existing;
+  }
 
+  /**
+   * Returns the number of rows in downloaded data that could not be parsed and were skipped.
+   *
+   * @return long count of malformed rows.
+   */
+  public long getMalformedRowCount() {
+    return malformedRows.get();
+  }
+
+  private StockSeries download(String queryURL, int expectedRows, String symbol)
+          throws IOException {
+    try {
+      rateLimiter.acquire();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while waiting to fetch " + symbol);
+    }
+
+    StockSeries.Builder stocks = new StockSeries.Builder(expectedRows);
+    String urlString = queryURL + symbol + "&apikey=" + key + "&datatype=csv";
+
+    // Timed from after the rate limiter, so the histogram shows the API and not our own
+    // waiting.
+    long start = System.nanoTime();
+    try {
       URL url = new URL(urlString);
       HttpURLConnection connection = (HttpURLConnection) url.openConnection();
       connection.setRequestMethod("GET");
+      connection.setRequestProperty("Accept-Encoding", "gzip");
 
       int responseCode = connection.getResponseCode();
       if (responseCode == HttpURLConnection.HTTP_OK) {
-        BufferedReader reader = new BufferedReader(new InputStreamReader(connection.getInputStream()));
-        String line;
-        boolean isFirstLine = true;
-        System.out.println("Data collected from API");
-        while ((line = reader.readLine()) != null) {
-          if (isFirstLine) {
-            isFirstLine = false;
-            continue; // Skip the header line
-          }
-
-          String[] parts = line.split(",");
-          if (parts.length >= 6) {
-            String date = parts[0];
-            double open = Double.parseDouble(parts[1]);
-            double high = Double.parseDouble(parts[2]);
-            double low = Double.parseDouble(parts[3]);
-            double close = Double.parseDouble(parts[4]);
-            int volume = Integer.parseInt(parts[5]);
-            stocks.add(new Stock(date, open, high, low, close, volume));
-          } else {
-            System.out.println("Skipping line: " + line);
-          }
+        // Rows are parsed into the builder as the response arrives, so the body is never
+        // held in memory as a whole, compressed or not.
+        try (InputStream in = responseBody(connection)) {
+          malformedRows.addAndGet(SeriesCsvParser.parse(in, stocks));
         }
-
-        reader.close();
+        FROM_API.increment();
       } else {
         throw new IOException("HTTP request failed with response code: " + responseCode);
       }
+    } catch (IOException | RuntimeException e) {
+      ERRORS.increment();
+      throw e;
+    } finally {
+      HTTP.recordSince(start);
+    }
 
-      if (library != null && !library.containsKey(symbol)) {
-        library.put(symbol, stocks);
-      }
+    return stocks.build();
+  }
 
-      return stocks;
+  private static InputStream responseBody(HttpURLConnection connection) throws IOException {
+    InputStream in = connection.getInputStream();
+    if ("gzip".equalsIgnoreCase(connection.getContentEncoding())) {
+      return new GZIPInputStream(in, 1 << 16);
     }
+    return in;
   }
 
+  private void storeOnDisk(String symbol, StockSeries series) {
+    if (diskCache != null && !series.isEmpty()) {
+      try {
+        diskCache.store(symbol, series);
+      } catch (IOException e) {
+        DISK_WRITE_ERRORS.increment();
+      }
+    }
+  }
 
-}
\ No newline at end of file
+  private static final class FetchThreadFactory implements ThreadFactory {
+    private static final AtomicInteger COUNT = new AtomicInteger();
+
+    @Override
+    public Thread newThread(Runnable runnable) {
+      Thread thread = new Thread(runnable, "alpha-fetch-" + COUNT.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    }
+  }
+}
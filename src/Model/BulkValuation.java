@@ -0,0 +1,119 @@
+package Model;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The values of many portfolios on one date, in the order the portfolios were given.
+ * A portfolio holding a stock with no price on the date is not valued; it is reported
+ * in the failures instead, and the other portfolios are unaffected.
+ */
+public final class BulkValuation {
+  private final String date;
+  private final List<String> names;
+  private final double[] totals;
+  private final List<String> failures;
+  private final Set<String> missingSymbols;
+
+  BulkValuation(String date, List<String> names, double[] totals, List<String> failures,
+                Set<String> missingSymbols) {
+    this.date = date;
+    this.names = names;
+    this.totals = totals;
+    this.failures = Collections.unmodifiableList(failures);
+    this.missingSymbols = Collections.unmodifiableSet(missingSymbols);
+  }
+
+  /**
+   * Returns the date the portfolios were valued on.
+   *
+   * @return String date in yyyy-MM-dd format.
+   */
+  public String getDate() {
+    return date;
+  }
+
+  /**
+   * Returns the number of portfolios.
+   *
+   * @return int size.
+   */
+  public int size() {
+    return names.size();
+  }
+
+  /**
+   * Returns the name of a portfolio.
+   *
+   * @param index int position of the portfolio in the given list.
+   * @return String name.
+   */
+  public String getName(int index) {
+    return names.get(index);
+  }
+
+  /**
+   * Returns whether a portfolio could be valued.
+   *
+   * @param index int position of the portfolio in the given list.
+   * @return boolean.
+   */
+  public boolean isValued(int index) {
+    return !Double.isNaN(totals[index]);
+  }
+
+  /**
+   * Returns the value of a portfolio.
+   *
+   * @param index int position of the portfolio in the given list.
+   * @return double value, or NaN if the portfolio could not be valued.
+   */
+  public double getTotal(int index) {
+    return totals[index];
+  }
+
+  /**
+   * Returns the value of every portfolio that could be valued, by name.
+   *
+   * @return Map from portfolio name to value, in the order the portfolios were given.
+   */
+  public Map<String, Double> getTotals() {
+    Map<String, Double> valued = new LinkedHashMap<>();
+    for (int i = 0; i < totals.length; i++) {
+      if (isValued(i)) {
+        valued.put(names.get(i), totals[i]);
+      }
+    }
+    return valued;
+  }
+
+  /**
+   * Returns why each portfolio that could not be valued failed.
+   *
+   * @return List of messages, one per failed portfolio.
+   */
+  public List<String> getFailures() {
+    return failures;
+  }
+
+  /**
+   * Returns the stocks that had no price on the date.
+   *
+   * @return Set of tickers.
+   */
+  public Set<String> getMissingSymbols() {
+    return missingSymbols;
+  }
+
+  @Override
+  public String toString() {
+    return "Model.BulkValuation{" +
+            "date=" + date +
+            ", portfolios=" + names.size() +
+            ", failures=" + failures.size() +
+            '}';
+  }
+}
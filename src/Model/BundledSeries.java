@@ -0,0 +1,164 @@
+package Model;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.CodeSource;
+import java.util.Enumeration;
+import java.util.Locale;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * The price histories shipped with the application as SYMBOL.csv resources.
+ * The symbols are found by listing the directory or jar the application was loaded from,
+ * so adding a CSV under resources/ is enough to bundle another ticker.
+ * A CSV can be converted once into a SYMBOL.series snapshot in the SeriesFile format
+ * (see Main.BundleSnapshots). The snapshot is then read instead of parsing the CSV, which
+ * remains the fallback if the snapshot is missing or unreadable.
+ */
+public final class BundledSeries {
+  private static final String EXTENSION = ".csv";
+  private static final String SNAPSHOT_EXTENSION = ".series";
+
+  private BundledSeries() {
+  }
+
+  /**
+   * Lists the bundled symbols next to the application's classes.
+   *
+   * @return Set of tickers, in alphabetical order.
+   * @throws IOException if the application's location cannot be listed.
+   */
+  public static Set<String> discover() throws IOException {
+    CodeSource source = BundledSeries.class.getProtectionDomain().getCodeSource();
+    if (source == null || source.getLocation() == null) {
+      return new TreeSet<>();
+    }
+    return discover(source.getLocation());
+  }
+
+  /**
+   * Lists the SYMBOL.csv and SYMBOL.series files at the top level of a classpath directory
+   * or jar.
+   *
+   * @param location URL of the directory or jar.
+   * @return Set of tickers, in alphabetical order.
+   * @throws IOException if the location cannot be listed.
+   */
+  public static Set<String> discover(URL location) throws IOException {
+    Set<String> symbols = new TreeSet<>();
+    Path path;
+    try {
+      path = Paths.get(location.toURI());
+    } catch (URISyntaxException | IllegalArgumentException e) {
+      throw new IOException("Cannot list bundled data in " + location, e);
+    }
+
+    if (Files.isDirectory(path)) {
+      try (DirectoryStream<Path> files = Files.newDirectoryStream(path, "*.{csv,series}")) {
+        for (Path file : files) {
+          addSymbol(symbols, file.getFileName().toString());
+        }
+      }
+    } else if (Files.isRegularFile(path)) {
+      try (ZipFile jar = new ZipFile(path.toFile())) {
+        Enumeration<? extends ZipEntry> entries = jar.entries();
+        while (entries.hasMoreElements()) {
+          ZipEntry entry = entries.nextElement();
+          if (!entry.isDirectory() && entry.getName().indexOf('/') < 0) {
+            addSymbol(symbols, entry.getName());
+          }
+        }
+      }
+    }
+    return symbols;
+  }
+
+  private static void addSymbol(Set<String> symbols, String fileName) {
+    String symbol;
+    if (fileName.endsWith(EXTENSION)) {
+      symbol = fileName.substring(0, fileName.length() - EXTENSION.length());
+    } else if (fileName.endsWith(SNAPSHOT_EXTENSION)) {
+      symbol = fileName.substring(0, fileName.length() - SNAPSHOT_EXTENSION.length());
+    } else {
+      return;
+    }
+    if (symbol.isEmpty()) {
+      return;
+    }
+    for (int i = 0; i < symbol.length(); i++) {
+      if (!Character.isLetterOrDigit(symbol.charAt(i))) {
+        return;
+      }
+    }
+    symbols.add(symbol.toUpperCase(Locale.ROOT));
+  }
+
+  /**
+   * Loads a bundled symbol, from its snapshot if there is one and otherwise from its CSV.
+   * A snapshot in a classpath directory is memory-mapped; one inside a jar is read in one go.
+   *
+   * @param symbol String ticker.
+   * @return StockSeries.
+   * @throws IOException if neither resource can be read.
+   */
+  public static StockSeries load(String symbol) throws IOException {
+    ClassLoader loader = BundledSeries.class.getClassLoader();
+    URL snapshot = loader.getResource(symbol + SNAPSHOT_EXTENSION);
+    if (snapshot != null) {
+      try {
+        if ("file".equals(snapshot.getProtocol())) {
+          return SeriesFile.read(Paths.get(snapshot.toURI()));
+        }
+        try (InputStream in = snapshot.openStream()) {
+          return SeriesFile.read(in);
+        }
+      } catch (IOException | URISyntaxException e) {
+        // Fall back to the CSV.
+      }
+    }
+    return loadCsv(symbol);
+  }
+
+  /**
+   * Parses a bundled symbol's CSV resource, ignoring any snapshot.
+   *
+   * @param symbol String ticker.
+   * @return StockSeries.
+   * @throws IOException if the resource is missing or cannot be read.
+   */
+  public static StockSeries loadCsv(String symbol) throws IOException {
+    try (InputStream in = BundledSeries.class.getClassLoader()
+            .getResourceAsStream(symbol + EXTENSION)) {
+      if (in == null) {
+        throw new IOException("Resource not found: " + symbol + EXTENSION);
+      }
+      return SeriesCsvParser.parse(in);
+    }
+  }
+
+  /**
+   * Registers every bundled symbol with a cache, pinned so it is never evicted.
+   * Nothing is parsed until a symbol is first used or the cache is warmed up.
+   *
+   * @param library SeriesCache to register the symbols with.
+   * @return Set of the registered tickers.
+   * @throws IOException if the application's location cannot be listed.
+   */
+  public static Set<String> registerAll(SeriesCache library) throws IOException {
+    Set<String> symbols = discover();
+    for (String symbol : symbols) {
+      library.pin(symbol);
+      library.register(symbol, BundledSeries::load);
+    }
+    return symbols;
+  }
+}
@@ -0,0 +1,98 @@
+package Model;
+
+/**
+ * A snapshot of a SeriesCache's counters and memory use.
+ */
+public final class CacheStats {
+  private final long hits;
+  private final long misses;
+  private final long evictions;
+  private final int entries;
+  private final long bytes;
+  private final long maxBytes;
+
+  CacheStats(long hits, long misses, long evictions, int entries, long bytes, long maxBytes) {
+    this.hits = hits;
+    this.misses = misses;
+    this.evictions = evictions;
+    this.entries = entries;
+    this.bytes = bytes;
+    this.maxBytes = maxBytes;
+  }
+
+  /**
+   * Returns the number of lookups answered from memory.
+   *
+   * @return long hits.
+   */
+  public long getHits() {
+    return hits;
+  }
+
+  /**
+   * Returns the number of lookups that had to load the series.
+   *
+   * @return long misses.
+   */
+  public long getMisses() {
+    return misses;
+  }
+
+  /**
+   * Returns the number of series dropped to stay within the memory budget.
+   *
+   * @return long evictions.
+   */
+  public long getEvictions() {
+    return evictions;
+  }
+
+  /**
+   * Returns the number of cached symbols.
+   *
+   * @return int entries.
+   */
+  public int getEntries() {
+    return entries;
+  }
+
+  /**
+   * Returns the estimated memory held by the cached series.
+   *
+   * @return long bytes.
+   */
+  public long getBytes() {
+    return bytes;
+  }
+
+  /**
+   * Returns the memory budget of the cache.
+   *
+   * @return long bytes, or Long.MAX_VALUE if the cache is unbounded.
+   */
+  public long getMaxBytes() {
+    return maxBytes;
+  }
+
+  /**
+   * Returns the fraction of lookups answered from memory.
+   *
+   * @return double hit rate between 0 and 1, or 0 if there were no lookups.
+   */
+  public double hitRate() {
+    long lookups = hits + misses;
+    return lookups == 0 ? 0 : (double) hits / lookups;
+  }
+
+  @Override
+  public String toString() {
+    return "Model.CacheStats{" +
+            "hits=" + hits +
+            ", misses=" + misses +
+            ", evictions=" + evictions +
+            ", entries=" + entries +
+            ", bytes=" + bytes +
+            ", maxBytes=" + maxBytes +
+            '}';
+  }
+}
@@ -0,0 +1,16 @@
+package Model;
+
+/**
+ * How the cost of shares sold is matched against the shares bought.
+ */
+public enum CostMethod {
+  /**
+   * Shares are sold from the oldest purchase still held.
+   */
+  FIFO,
+
+  /**
+   * Every share held costs the average price paid for the shares held.
+   */
+  AVERAGE_COST
+}
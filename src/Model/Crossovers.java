@@ -0,0 +1,125 @@
+package Model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The days on which a stock's closing price crossed its moving average, oldest first.
+ * Each crossover is kept as one int, its epoch day shifted left by one with the lowest bit
+ * set when the price crossed upwards, so a long history of crossovers costs four bytes each.
+ */
+public final class Crossovers {
+
+  /**
+   * Receives crossovers as they are found.
+   */
+  @FunctionalInterface
+  public interface Listener {
+    /**
+     * Called once per crossover, in date order.
+     *
+     * @param day     int epoch day of the crossover.
+     * @param bullish boolean true if the price crossed above its average, false if below.
+     */
+    void crossover(int day, boolean bullish);
+  }
+
+  private int[] events;
+  private int size;
+
+  Crossovers() {
+    this.events = new int[16];
+  }
+
+  void add(int day, boolean bullish) {
+    if (size == events.length) {
+      events = Arrays.copyOf(events, size * 2);
+    }
+    events[size++] = day << 1 | (bullish ? 1 : 0);
+  }
+
+  /**
+   * Returns the number of crossovers.
+   *
+   * @return int size.
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Returns whether there are no crossovers.
+   *
+   * @return boolean.
+   */
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  /**
+   * Returns the date of a crossover as days since 1970-01-01.
+   *
+   * @param index int index, 0 being the oldest crossover.
+   * @return int epoch day.
+   */
+  public int dayAt(int index) {
+    checkIndex(index);
+    return events[index] >> 1;
+  }
+
+  /**
+   * Returns whether a crossover was upwards.
+   *
+   * @param index int index.
+   * @return boolean true if the price crossed above its average, false if below.
+   */
+  public boolean isBullish(int index) {
+    checkIndex(index);
+    return (events[index] & 1) != 0;
+  }
+
+  /**
+   * Passes every crossover to a listener, oldest first.
+   *
+   * @param listener Listener to receive them.
+   */
+  public void forEach(Listener listener) {
+    for (int i = 0; i < size; i++) {
+      listener.crossover(events[i] >> 1, (events[i] & 1) != 0);
+    }
+  }
+
+  /**
+   * Formats every crossover as format does.
+   *
+   * @return List of String descriptions, oldest first.
+   */
+  public List<String> toStrings() {
+    List<String> descriptions = new ArrayList<>(size);
+    forEach((day, bullish) -> descriptions.add(format(day, bullish)));
+    return descriptions;
+  }
+
+  /**
+   * Describes a crossover, such as "2024-01-02 (Bullish Crossover)".
+   *
+   * @param day     int epoch day.
+   * @param bullish boolean whether the price crossed upwards.
+   * @return String description.
+   */
+  public static String format(int day, boolean bullish) {
+    return Dates.format(day) + (bullish ? " (Bullish Crossover)" : " (Bearish Crossover)");
+  }
+
+  private void checkIndex(int index) {
+    if (index < 0 || index >= size) {
+      throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + size);
+    }
+  }
+
+  @Override
+  public String toString() {
+    return "Model.Crossovers{size=" + size + '}';
+  }
+}
@@ -0,0 +1,101 @@
+package Model;
+
+import java.time.LocalDate;
+
+/**
+ * Helpers for converting between yyyy-MM-dd date strings and the epoch-day ints
+ * that a StockSeries stores its dates as.
+ */
+public final class Dates {
+
+  private Dates() {
+  }
+
+  /**
+   * Parses a yyyy-MM-dd date into the number of days since 1970-01-01.
+   *
+   * @param date String date in yyyy-MM-dd format.
+   * @return int epoch day.
+   * @throws RuntimeException if the date cannot be parsed.
+   */
+  public static int parse(String date) {
+    if (date == null) {
+      throw new RuntimeException("Date parsing error: null date");
+    }
+    int firstDash = date.indexOf('-');
+    int secondDash = date.indexOf('-', firstDash + 1);
+    if (firstDash <= 0 || secondDash < 0) {
+      throw new RuntimeException("Date parsing error: Unparseable date: \"" + date + "\"");
+    }
+    try {
+      int year = Integer.parseInt(date, 0, firstDash, 10);
+      int month = Integer.parseInt(date, firstDash + 1, secondDash, 10);
+      int day = Integer.parseInt(date, secondDash + 1, date.length(), 10);
+      if (isValid(year, month, day)) {
+        return epochDay(year, month, day);
+      }
+    } catch (NumberFormatException e) {
+      // Reported below.
+    }
+    throw new RuntimeException("Date parsing error: Unparseable date: \"" + date + "\"");
+  }
+
+  /**
+   * Returns whether a year, month and day form a real calendar date.
+   *
+   * @param year  int year.
+   * @param month int month, 1 to 12.
+   * @param day   int day of the month.
+   * @return boolean.
+   */
+  static boolean isValid(int year, int month, int day) {
+    if (year < 1 || year > 9999 || month < 1 || month > 12 || day < 1) {
+      return false;
+    }
+    return day <= daysInMonth(year, month);
+  }
+
+  /**
+   * Converts a valid calendar date to the number of days since 1970-01-01 without
+   * creating a LocalDate.
+   *
+   * @param year  int year.
+   * @param month int month, 1 to 12.
+   * @param day   int day of the month.
+   * @return int epoch day.
+   */
+  static int epochDay(int year, int month, int day) {
+    // Count from March so the leap day falls at the end of the year.
+    int y = month <= 2 ? year - 1 : year;
+    int era = y / 400;
+    int yearOfEra = y - era * 400;
+    int dayOfYear = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+    int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+    return era * 146097 + dayOfEra - 719468;
+  }
+
+  private static int daysInMonth(int year, int month) {
+    switch (month) {
+      case 2:
+        boolean leap = (year % 4 == 0 && year % 100 != 0) || year % 400 == 0;
+        return leap ? 29 : 28;
+      case 4:
+      case 6:
+      case 9:
+      case 11:
+        return 30;
+      default:
+        return 31;
+    }
+  }
+
+  /**
+   * Formats an epoch day as a yyyy-MM-dd string.
+   *
+   * @param epochDay int days since 1970-01-01.
+   * @return String date.
+   */
+  public static String format(int epochDay) {
+    return LocalDate.ofEpochDay(epochDay).toString();
+  }
+}
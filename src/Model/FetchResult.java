@@ -0,0 +1,87 @@
+package Model;
+
+/**
+ * The outcome of fetching one symbol as part of a batch: either its data or the reason
+ * it could not be fetched.
+ */
+public final class FetchResult {
+  private final String symbol;
+  private final StockSeries series;
+  private final String error;
+
+  private FetchResult(String symbol, StockSeries series, String error) {
+    this.symbol = symbol;
+    this.series = series;
+    this.error = error;
+  }
+
+  /**
+   * Creates a successful result.
+   *
+   * @param symbol String ticker.
+   * @param series StockSeries fetched for the ticker.
+   * @return FetchResult.
+   */
+  public static FetchResult success(String symbol, StockSeries series) {
+    return new FetchResult(symbol, series, null);
+  }
+
+  /**
+   * Creates a failed result.
+   *
+   * @param symbol String ticker.
+   * @param error  String reason the ticker could not be fetched.
+   * @return FetchResult.
+   */
+  public static FetchResult failure(String symbol, String error) {
+    return new FetchResult(symbol, null, error);
+  }
+
+  /**
+   * Returns the ticker.
+   *
+   * @return String symbol.
+   */
+  public String getSymbol() {
+    return symbol;
+  }
+
+  /**
+   * Returns the fetched data.
+   *
+   * @return StockSeries, or null if the fetch failed.
+   */
+  public StockSeries getSeries() {
+    return series;
+  }
+
+  /**
+   * Returns why the fetch failed.
+   *
+   * @return String error, or null if the fetch succeeded.
+   */
+  public String getError() {
+    return error;
+  }
+
+  /**
+   * Returns whether the fetch succeeded.
+   *
+   * @return boolean.
+   */
+  public boolean isSuccess() {
+    return error == null;
+  }
+
+  /**
+   * Returns the result as a String.
+   *
+   * @return String.
+   */
+  @Override
+  public String toString() {
+    return isSuccess()
+            ? "Model.FetchResult{symbol='" + symbol + "', rows=" + series.size() + '}'
+            : "Model.FetchResult{symbol='" + symbol + "', error='" + error + "'}";
+  }
+}
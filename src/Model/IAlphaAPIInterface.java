@@ -1,7 +1,8 @@
 package Model;
 
 import java.io.IOException;
-import java.util.List;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 /**
@@ -13,9 +14,49 @@ public interface IAlphaAPIInterface {
    * Fetches stock data for a given symbol.
    *
    * @param symbol the stock symbol
-   * @param library a map containing cached stock data
-   * @return a list of Stock objects representing the stock data
+   * @param library the cache of stock data
+   * @return a StockSeries holding the stock data
    * @throws IOException if there is an issue fetching data
    */
-  public List<Stock> fetchData(String symbol, Map<String, List<Stock>> library) throws IOException;
+  public StockSeries fetchData(String symbol, SeriesCache library) throws IOException;
+
+  /**
+   * Fetches stock data for several symbols, reporting success or failure per symbol
+   * instead of stopping at the first symbol that cannot be fetched. A symbol with no data
+   * counts as a failure. This default implementation fetches the symbols one at a time.
+   *
+   * @param symbols the stock symbols
+   * @param library the cache of stock data
+   * @return a map from each symbol to its result, in the order the symbols were given
+   */
+  public default Map<String, FetchResult> fetchAll(Collection<String> symbols, SeriesCache library) {
+    Map<String, FetchResult> results = new LinkedHashMap<>();
+    for (String symbol : symbols) {
+      if (results.containsKey(symbol)) {
+        continue;
+      }
+      try {
+        StockSeries series = fetchData(symbol, library);
+        results.put(symbol, series.isEmpty()
+                ? FetchResult.failure(symbol, "No data available for the symbol: " + symbol)
+                : FetchResult.success(symbol, series));
+      } catch (IOException | RuntimeException e) {
+        results.put(symbol, FetchResult.failure(symbol, e.getMessage()));
+      }
+    }
+    return results;
+  }
+
+  /**
+   * Brings the cached data for a symbol up to date with the latest trading days.
+   * Implementations that cannot fetch partial data return the cached data as is.
+   *
+   * @param symbol the stock symbol
+   * @param library the cache of stock data
+   * @return the up to date StockSeries for the symbol
+   * @throws IOException if there is an issue fetching data
+   */
+  public default StockSeries refreshData(String symbol, SeriesCache library) throws IOException {
+    return fetchData(symbol, library);
+  }
 }
@@ -1,7 +1,7 @@
 package Model;
 
+import java.io.IOException;
 import java.util.Map;
-import java.util.List;
 
 /**
  * Interface representing a Portfolio model.
@@ -12,6 +12,8 @@ public interface IPortfolio {
   /**
    * Adds a specified quantity of a stock to the portfolio.
    * If the stock already exists in the portfolio, the quantity is increased.
+   * The shares have no date or price, so they count towards the portfolio's value but are
+   * not part of any position and cannot be sold; record them with buy to trade them.
    *
    * @param stockSymbol the symbol of the stock to be added
    * @param quantity the quantity of the stock to be added
@@ -23,10 +25,67 @@ public interface IPortfolio {
    *
    * @param date the date for which the portfolio value is to be calculated, in yyyy-MM-dd format
    * @param api the AlphaAPI instance used to fetch stock data
-   * @param library a map containing stock data for various symbols
+   * @param library the cache containing stock data for various symbols
    * @return the total value of the portfolio on the specified date
    */
-  public double calculatePortfolioValue(String date, IAlphaAPIInterface api, Map<String, List<Stock>> library);
+  public double calculatePortfolioValue(String date, IAlphaAPIInterface api, SeriesCache library);
+
+  /**
+   * Calculates the value of the portfolio on every day in a date range on which all of its
+   * stocks have a closing price.
+   *
+   * @param from the first date of the range, in yyyy-MM-dd format
+   * @param to the last date of the range, in yyyy-MM-dd format
+   * @param api the AlphaAPI instance used to fetch stock data
+   * @param library the cache containing stock data for various symbols
+   * @return the daily values of the portfolio, oldest first
+   * @throws IOException if there is an issue fetching data
+   */
+  public ValueSeries calculatePortfolioValues(String from, String to, IAlphaAPIInterface api,
+                                              SeriesCache library) throws IOException;
+
+  /**
+   * Records a dated purchase of a stock, adding the shares to the portfolio.
+   * Trades in a stock must be recorded in date order.
+   *
+   * @param stockSymbol the symbol of the stock bought
+   * @param date the date of the purchase, in yyyy-MM-dd format
+   * @param quantity the number of shares bought
+   * @param price the price paid per share
+   */
+  public void buy(String stockSymbol, String date, int quantity, double price);
+
+  /**
+   * Records a dated sale of a stock, removing the shares from the portfolio.
+   * Trades in a stock must be recorded in date order.
+   *
+   * @param stockSymbol the symbol of the stock sold
+   * @param date the date of the sale, in yyyy-MM-dd format
+   * @param quantity the number of shares sold, no more than are held through recorded
+   *                 purchases
+   * @param price the price received per share
+   */
+  public void sell(String stockSymbol, String date, int quantity, double price);
+
+  /**
+   * Gets the shares of a stock held through recorded trades at the end of a date, with their
+   * cost basis and the gain realized by sales up to then.
+   *
+   * @param stockSymbol the symbol of the stock
+   * @param date the date, in yyyy-MM-dd format
+   * @param method how sales are matched against purchases
+   * @return the position, with no shares if the stock had not been traded by then
+   */
+  public Position getPosition(String stockSymbol, String date, CostMethod method);
+
+  /**
+   * Gets the position in every stock traded by the end of a date.
+   *
+   * @param date the date, in yyyy-MM-dd format
+   * @param method how sales are matched against purchases
+   * @return a map where the keys are stock symbols and the values are positions
+   */
+  public Map<String, Position> getPositions(String date, CostMethod method);
 
   /**
    * Gets the name of the portfolio.
@@ -59,11 +59,11 @@ public interface IStock {
    * @param startDateStr the start date in yyyy-MM-dd format
    * @param endDateStr the end date in yyyy-MM-dd format
    * @param api the AlphaAPI instance used to fetch stock data
-   * @param library a map containing stock data for various symbols
+   * @param library the cache containing stock data for various symbols
    * @return the gain or loss percentage over the specified period
    * @throws IOException if there is an issue fetching data
    */
-  static double viewGainLoss(String symbol, String startDateStr, String endDateStr, IAlphaAPIInterface api, Map<String, List<Stock>> library) throws IOException {
+  static double viewGainLoss(String symbol, String startDateStr, String endDateStr, IAlphaAPIInterface api, SeriesCache library) throws IOException {
     return Stock.viewGainLoss(symbol, startDateStr, endDateStr, api, library);
   }
 
@@ -74,11 +74,11 @@ public interface IStock {
    * @param dateStr the date in dd-MM-yyyy format
    * @param days the number of days for the moving average
    * @param api the AlphaAPI instance used to fetch stock data
-   * @param library a map containing stock data for various symbols
+   * @param library the cache containing stock data for various symbols
    * @return the X-day moving average
    * @throws Exception if there is an issue fetching data or calculating the average
    */
-  static double viewXDayMovingAverage(String symbol, String dateStr, int days, IAlphaAPIInterface api, Map<String, List<Stock>> library) throws Exception {
+  static double viewXDayMovingAverage(String symbol, String dateStr, int days, IAlphaAPIInterface api, SeriesCache library) throws Exception {
     return Stock.viewXDayMovingAverage(symbol, dateStr, days, api, library);
   }
 
@@ -89,11 +89,11 @@ public interface IStock {
    * @param dateStr the start date in yyyy-MM-dd format
    * @param days the number of days for the moving average
    * @param api the AlphaAPI instance used to fetch stock data
-   * @param library a map containing stock data for various symbols
+   * @param library the cache containing stock data for various symbols
    * @return a list of dates when crossovers occur
    * @throws Exception if there is an issue fetching data or calculating the crossovers
    */
-  static List<String> viewXDayCrossOver(String symbol, String dateStr, int days, IAlphaAPIInterface api, Map<String, List<Stock>> library) throws Exception {
+  static List<String> viewXDayCrossOver(String symbol, String dateStr, int days, IAlphaAPIInterface api, SeriesCache library) throws Exception {
     return Stock.viewXDayCrossOver(symbol, dateStr, days, api, library);
   }
 }
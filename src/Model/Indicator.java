@@ -0,0 +1,382 @@
+package Model;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A technical indicator with its parameters, such as EMA(12) or MACD(12,26,9).
+ * Indicators are values: two with the same kind and parameters are equal, which is what
+ * lets the IndicatorEngine remember results per symbol and indicator.
+ * Each indicator has one or more outputs per day. A day before an indicator has seen
+ * enough history to be defined has NaN outputs.
+ */
+public final class Indicator {
+
+  private enum Kind {
+    SMA("value"),
+    EMA("value"),
+    RSI("value"),
+    BOLLINGER("middle", "upper", "lower"),
+    MACD("macd", "signal", "histogram"),
+    ATR("value");
+
+    private final List<String> outputs;
+
+    Kind(String... outputs) {
+      this.outputs = Collections.unmodifiableList(Arrays.asList(outputs));
+    }
+  }
+
+  private final Kind kind;
+  private final int[] periods;
+  private final double width;
+
+  private Indicator(Kind kind, double width, int... periods) {
+    for (int period : periods) {
+      if (period <= 0) {
+        throw new IllegalArgumentException("Indicator periods must be positive");
+      }
+    }
+    this.kind = kind;
+    this.periods = periods;
+    this.width = width;
+  }
+
+  /**
+   * Simple moving average of the close.
+   *
+   * @param days int number of days averaged.
+   * @return Indicator.
+   */
+  public static Indicator sma(int days) {
+    return new Indicator(Kind.SMA, 0, days);
+  }
+
+  /**
+   * Exponential moving average of the close, weighting each day by 2 / (days + 1) and
+   * starting from the simple average of the first days.
+   *
+   * @param days int number of days.
+   * @return Indicator.
+   */
+  public static Indicator ema(int days) {
+    return new Indicator(Kind.EMA, 0, days);
+  }
+
+  /**
+   * Wilder's relative strength index of the close, from 0 to 100.
+   *
+   * @param days int number of daily changes smoothed, usually 14.
+   * @return Indicator.
+   */
+  public static Indicator rsi(int days) {
+    return new Indicator(Kind.RSI, 0, days);
+  }
+
+  /**
+   * Bollinger bands: the simple moving average of the close, and the bands a number of
+   * standard deviations of the same closes above and below it.
+   *
+   * @param days  int number of days, usually 20.
+   * @param width double number of standard deviations, usually 2.
+   * @return Indicator with middle, upper and lower outputs.
+   */
+  public static Indicator bollinger(int days, double width) {
+    if (!(width >= 0) || Double.isInfinite(width)) {
+      throw new IllegalArgumentException("Band width must be a non-negative number");
+    }
+    return new Indicator(Kind.BOLLINGER, width, days);
+  }
+
+  /**
+   * Moving average convergence divergence: the fast EMA minus the slow EMA of the close,
+   * its EMA as the signal line, and the difference between the two as the histogram.
+   *
+   * @param fast   int days in the fast average, usually 12.
+   * @param slow   int days in the slow average, usually 26.
+   * @param signal int days in the signal average, usually 9.
+   * @return Indicator with macd, signal and histogram outputs.
+   */
+  public static Indicator macd(int fast, int slow, int signal) {
+    if (fast >= slow) {
+      throw new IllegalArgumentException("The fast average must be shorter than the slow one");
+    }
+    return new Indicator(Kind.MACD, 0, fast, slow, signal);
+  }
+
+  /**
+   * Wilder's average true range. A day's true range is its high minus its low, widened to
+   * reach the previous close if that was outside them.
+   *
+   * @param days int number of days smoothed, usually 14.
+   * @return Indicator.
+   */
+  public static Indicator atr(int days) {
+    return new Indicator(Kind.ATR, 0, days);
+  }
+
+  /**
+   * Returns the names of the indicator's outputs, in the order IndicatorSeries numbers them.
+   *
+   * @return List of String names.
+   */
+  public List<String> getOutputs() {
+    return kind.outputs;
+  }
+
+  /**
+   * Creates the running state that computes this indicator one day at a time.
+   *
+   * @return Calculator positioned before the first day.
+   */
+  Calculator newCalculator() {
+    switch (kind) {
+      case SMA:
+        return new Sma(periods[0]);
+      case EMA:
+        return new EmaCalculator(periods[0]);
+      case RSI:
+        return new Rsi(periods[0]);
+      case BOLLINGER:
+        return new Bollinger(periods[0], width);
+      case MACD:
+        return new Macd(periods[0], periods[1], periods[2]);
+      case ATR:
+        return new Atr(periods[0]);
+      default:
+        throw new AssertionError(kind);
+    }
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (!(o instanceof Indicator)) {
+      return false;
+    }
+    Indicator other = (Indicator) o;
+    return kind == other.kind && Arrays.equals(periods, other.periods)
+            && Double.compare(width, other.width) == 0;
+  }
+
+  @Override
+  public int hashCode() {
+    return (kind.hashCode() * 31 + Arrays.hashCode(periods)) * 31 + Double.hashCode(width);
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder text = new StringBuilder(kind.name()).append('(');
+    for (int i = 0; i < periods.length; i++) {
+      text.append(i > 0 ? "," : "").append(periods[i]);
+    }
+    if (kind == Kind.BOLLINGER) {
+      text.append(',').append(width);
+    }
+    return text.append(')').toString();
+  }
+
+  /**
+   * Computes an indicator one day at a time, oldest first.
+   */
+  abstract static class Calculator {
+    /**
+     * Takes the next day and writes the indicator's outputs for it.
+     *
+     * @param high    double the day's high.
+     * @param low     double the day's low.
+     * @param close   double the day's close.
+     * @param outputs double array to write one value per output to.
+     */
+    abstract void next(double high, double low, double close, double[] outputs);
+  }
+
+  private static final class Sma extends Calculator {
+    private final RollingWindow window;
+
+    private Sma(int days) {
+      this.window = new RollingWindow(days);
+    }
+
+    @Override
+    void next(double high, double low, double close, double[] outputs) {
+      window.push(close);
+      outputs[0] = window.isFull() ? window.mean() : Double.NaN;
+    }
+  }
+
+  /**
+   * An EMA seeded with the simple average of its first values.
+   */
+  private static final class Ema {
+    private final int days;
+    private final double weight;
+    private int count;
+    private double value;
+
+    private Ema(int days) {
+      this.days = days;
+      this.weight = 2.0 / (days + 1);
+    }
+
+    private double next(double x) {
+      if (count < days) {
+        value += x;
+        if (++count < days) {
+          return Double.NaN;
+        }
+        value /= days;
+        return value;
+      }
+      value += weight * (x - value);
+      return value;
+    }
+  }
+
+  private static final class EmaCalculator extends Calculator {
+    private final Ema ema;
+
+    private EmaCalculator(int days) {
+      this.ema = new Ema(days);
+    }
+
+    @Override
+    void next(double high, double low, double close, double[] outputs) {
+      outputs[0] = ema.next(close);
+    }
+  }
+
+  private static final class Rsi extends Calculator {
+    private final int days;
+    private int changes = -1;
+    private double previous;
+    private double gain;
+    private double loss;
+
+    private Rsi(int days) {
+      this.days = days;
+    }
+
+    @Override
+    void next(double high, double low, double close, double[] outputs) {
+      double change = close - previous;
+      previous = close;
+      if (++changes == 0) {
+        outputs[0] = Double.NaN;
+        return;
+      }
+      double up = Math.max(change, 0);
+      double down = Math.max(-change, 0);
+      if (changes <= days) {
+        // The first average is a plain one over the first days changes.
+        gain += up / days;
+        loss += down / days;
+        if (changes < days) {
+          outputs[0] = Double.NaN;
+          return;
+        }
+      } else {
+        gain = (gain * (days - 1) + up) / days;
+        loss = (loss * (days - 1) + down) / days;
+      }
+      if (loss == 0) {
+        outputs[0] = gain == 0 ? 50 : 100;
+      } else {
+        outputs[0] = 100 - 100 / (1 + gain / loss);
+      }
+    }
+  }
+
+  private static final class Bollinger extends Calculator {
+    private final double[] window;
+    private final double width;
+    private int count;
+    private int next;
+
+    private Bollinger(int days, double width) {
+      this.window = new double[days];
+      this.width = width;
+    }
+
+    @Override
+    void next(double high, double low, double close, double[] outputs) {
+      window[next] = close;
+      next = next + 1 == window.length ? 0 : next + 1;
+      if (count < window.length && ++count < window.length) {
+        Arrays.fill(outputs, Double.NaN);
+        return;
+      }
+      // The window is short, so the deviation is taken directly from it rather than from
+      // running sums of squares, which lose precision at high prices.
+      double sum = 0;
+      for (double value : window) {
+        sum += value;
+      }
+      double mean = sum / window.length;
+      double squares = 0;
+      for (double value : window) {
+        squares += (value - mean) * (value - mean);
+      }
+      double band = width * Math.sqrt(squares / window.length);
+      outputs[0] = mean;
+      outputs[1] = mean + band;
+      outputs[2] = mean - band;
+    }
+  }
+
+  private static final class Macd extends Calculator {
+    private final Ema fast;
+    private final Ema slow;
+    private final Ema signal;
+
+    private Macd(int fast, int slow, int signal) {
+      this.fast = new Ema(fast);
+      this.slow = new Ema(slow);
+      this.signal = new Ema(signal);
+    }
+
+    @Override
+    void next(double high, double low, double close, double[] outputs) {
+      double macd = fast.next(close) - slow.next(close);
+      if (Double.isNaN(macd)) {
+        Arrays.fill(outputs, Double.NaN);
+        return;
+      }
+      double line = signal.next(macd);
+      outputs[0] = macd;
+      outputs[1] = line;
+      outputs[2] = macd - line;
+    }
+  }
+
+  private static final class Atr extends Calculator {
+    private final int days;
+    private int count;
+    private double previousClose = Double.NaN;
+    private double average;
+
+    private Atr(int days) {
+      this.days = days;
+    }
+
+    @Override
+    void next(double high, double low, double close, double[] outputs) {
+      double range = high - low;
+      if (!Double.isNaN(previousClose)) {
+        range = Math.max(range, Math.max(Math.abs(high - previousClose),
+                Math.abs(low - previousClose)));
+      }
+      previousClose = close;
+      if (count < days) {
+        average += range / days;
+        outputs[0] = ++count < days ? Double.NaN : average;
+        return;
+      }
+      average = (average * (days - 1) + range) / days;
+      outputs[0] = average;
+    }
+  }
+}
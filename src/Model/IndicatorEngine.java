@@ -0,0 +1,181 @@
+package Model;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Computes technical indicators over a stock's history.
+ * Any set of indicators is computed in one pass over the history: each day's high, low and
+ * close are read once and handed to every indicator that still needs that day.
+ * Results are remembered with the StockSeries they were computed from, per indicator and
+ * parameters, so asking again costs nothing, and once days are appended to the series only
+ * the new days are computed. Because the results live with the series, they are dropped
+ * along with it when the cache evicts or replaces it.
+ */
+public final class IndicatorEngine {
+  private static final Metrics.Counter ROWS = Metrics.global().counter("indicator.rows");
+  private static final Metrics.Histogram COMPUTE = Metrics.global().histogram("indicator.compute");
+
+  private IndicatorEngine() {
+  }
+
+  /**
+   * Computes indicators for a stock.
+   *
+   * @param symbol     String ticker.
+   * @param indicators Collection of indicators to compute.
+   * @param api        api to get data with.
+   * @param library    library to get data from.
+   * @return Map from each indicator to its values, in the order they were given.
+   * @throws IOException if the stock's data cannot be fetched.
+   */
+  public static Map<Indicator, IndicatorSeries> compute(String symbol,
+                                                        Collection<Indicator> indicators,
+                                                        IAlphaAPIInterface api,
+                                                        SeriesCache library) throws IOException {
+    StockSeries stocks = api.fetchData(symbol, library);
+    if (stocks == null || stocks.isEmpty()) {
+      throw new RuntimeException("No data available for the symbol: " + symbol);
+    }
+    Map<Indicator, IndicatorSeries> results = compute(stocks, indicators);
+    if (library != null) {
+      // The computed columns count towards the series' size, and so towards the budget.
+      library.remeasure(symbol, stocks);
+    }
+    return results;
+  }
+
+  /**
+   * Computes indicators over a series, reusing and extending what was computed over it
+   * before.
+   *
+   * @param stocks     StockSeries to compute over.
+   * @param indicators Collection of indicators to compute.
+   * @return Map from each indicator to its values, in the order they were given.
+   */
+  public static Map<Indicator, IndicatorSeries> compute(StockSeries stocks,
+                                                        Collection<Indicator> indicators) {
+    long start = System.nanoTime();
+    Memo memo = stocks.indicators();
+    try {
+      synchronized (memo) {
+        int rows = stocks.size();
+        Map<Indicator, Computed> wanted = new LinkedHashMap<>();
+        for (Indicator indicator : indicators) {
+          wanted.put(indicator, memo.computed.computeIfAbsent(indicator, Computed::new));
+        }
+
+        Computed[] behind = new Computed[wanted.size()];
+        int count = 0;
+        int from = rows;
+        for (Computed computed : wanted.values()) {
+          if (computed.rows < rows) {
+            behind[count++] = computed;
+            from = Math.min(from, computed.rows);
+          }
+        }
+        if (count > 0) {
+          extend(stocks, Arrays.copyOf(behind, count), from, rows);
+        }
+
+        Map<Indicator, IndicatorSeries> results = new LinkedHashMap<>();
+        for (Map.Entry<Indicator, Computed> entry : wanted.entrySet()) {
+          results.put(entry.getKey(), entry.getValue().view(stocks));
+        }
+        return results;
+      }
+    } finally {
+      COMPUTE.recordSince(start);
+    }
+  }
+
+  private static void extend(StockSeries stocks, Computed[] behind, int from, int rows) {
+    long computedRows = 0;
+    for (Computed computed : behind) {
+      computed.reserve(rows);
+      computedRows += rows - computed.rows;
+    }
+    for (int row = from; row < rows; row++) {
+      double high = stocks.highAt(row);
+      double low = stocks.lowAt(row);
+      double close = stocks.closeAt(row);
+      for (Computed computed : behind) {
+        // An indicator added later than the others joins the pass once it reaches the
+        // rows they had already covered.
+        if (computed.rows == row) {
+          computed.next(high, low, close);
+        }
+      }
+    }
+    ROWS.add(computedRows);
+  }
+
+  /**
+   * The indicators computed over one series. Guarded by its own lock.
+   */
+  static final class Memo {
+    private final Map<Indicator, Computed> computed = new HashMap<>();
+
+    /**
+     * Estimates the heap memory held by the computed columns, at their allocated capacity.
+     */
+    synchronized long sizeInBytes() {
+      // The map and its table, then per indicator its entry, state and column arrays.
+      long bytes = 64 + 16L * computed.size();
+      for (Computed indicator : computed.values()) {
+        long column = 16 + (long) indicator.columns[0].length * Double.BYTES;
+        bytes += 128 + indicator.outputs.length * Double.BYTES
+                + indicator.columns.length * column;
+      }
+      return bytes;
+    }
+  }
+
+  /**
+   * One indicator's values so far and the state that continues them.
+   */
+  private static final class Computed {
+    private final Indicator indicator;
+    private final Indicator.Calculator calculator;
+    private final double[] outputs;
+    private double[][] columns;
+    private int rows;
+
+    private Computed(Indicator indicator) {
+      this.indicator = indicator;
+      this.calculator = indicator.newCalculator();
+      this.outputs = new double[indicator.getOutputs().size()];
+      this.columns = new double[outputs.length][0];
+    }
+
+    private void reserve(int rows) {
+      if (columns[0].length >= rows) {
+        return;
+      }
+      // Views handed out earlier keep the old columns, so they are copied rather than
+      // grown in place. Rows past a view's size may still be written to the arrays it holds.
+      int capacity = Math.max(rows, columns[0].length * 2);
+      double[][] grown = new double[columns.length][];
+      for (int i = 0; i < columns.length; i++) {
+        grown[i] = Arrays.copyOf(columns[i], capacity);
+      }
+      columns = grown;
+    }
+
+    private void next(double high, double low, double close) {
+      calculator.next(high, low, close, outputs);
+      for (int i = 0; i < outputs.length; i++) {
+        columns[i][rows] = outputs[i];
+      }
+      rows++;
+    }
+
+    private IndicatorSeries view(StockSeries stocks) {
+      return new IndicatorSeries(indicator, stocks, columns, rows);
+    }
+  }
+}
@@ -0,0 +1,108 @@
+package Model;
+
+/**
+ * The values of one indicator for every day of a stock's history, oldest first, as they
+ * were when the indicator was computed. Days appended to the stock afterwards are not
+ * included; computing the indicator again extends it to them.
+ */
+public final class IndicatorSeries {
+  private final Indicator indicator;
+  private final StockSeries stocks;
+  private final double[][] columns;
+  private final int size;
+
+  IndicatorSeries(Indicator indicator, StockSeries stocks, double[][] columns, int size) {
+    this.indicator = indicator;
+    this.stocks = stocks;
+    this.columns = columns;
+    this.size = size;
+  }
+
+  /**
+   * Returns the indicator these are the values of.
+   *
+   * @return Indicator.
+   */
+  public Indicator getIndicator() {
+    return indicator;
+  }
+
+  /**
+   * Returns the number of days.
+   *
+   * @return int size.
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Returns whether there are no days.
+   *
+   * @return boolean.
+   */
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  /**
+   * Returns the date of a row as days since 1970-01-01.
+   *
+   * @param row int row, 0 being the oldest day.
+   * @return int epoch day.
+   */
+  public int dayAt(int row) {
+    checkRow(row);
+    return stocks.dayAt(row);
+  }
+
+  /**
+   * Finds the row of a date.
+   *
+   * @param day int epoch day.
+   * @return int row, or -1 if there is no value for that day.
+   */
+  public int indexOf(int day) {
+    int row = stocks.indexOf(day);
+    return row < size ? row : -1;
+  }
+
+  /**
+   * Returns the indicator's first output on a row.
+   *
+   * @param row int row.
+   * @return double value, or NaN if the indicator is not defined yet on that day.
+   */
+  public double valueAt(int row) {
+    return valueAt(0, row);
+  }
+
+  /**
+   * Returns one of the indicator's outputs on a row.
+   *
+   * @param output int index into Indicator.getOutputs.
+   * @param row    int row.
+   * @return double value, or NaN if the indicator is not defined yet on that day.
+   */
+  public double valueAt(int output, int row) {
+    checkRow(row);
+    if (output < 0 || output >= columns.length) {
+      throw new IndexOutOfBoundsException(indicator + " has no output " + output);
+    }
+    return columns[output][row];
+  }
+
+  private void checkRow(int row) {
+    if (row < 0 || row >= size) {
+      throw new IndexOutOfBoundsException("Row " + row + " out of bounds for length " + size);
+    }
+  }
+
+  @Override
+  public String toString() {
+    return "Model.IndicatorSeries{" +
+            "indicator=" + indicator +
+            ", size=" + size +
+            '}';
+  }
+}
@@ -0,0 +1,197 @@
+package Model;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Named counters and latency histograms, cheap enough to update on every query.
+ * Counters are LongAdders, so threads counting at the same time do not contend.
+ * Histograms keep counts in log-linear buckets: each power of two is split into 16
+ * buckets, so any recorded value is known to within 1/16 of itself while the whole range
+ * of a long fits in under a thousand buckets.
+ * Callers look a metric up once and keep it; snapshot reads every metric at once.
+ */
+public final class Metrics {
+  private static final Metrics GLOBAL = new Metrics();
+
+  private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+  private final Map<String, Histogram> histograms = new ConcurrentHashMap<>();
+
+  /**
+   * Returns the registry the application's own metrics are kept in.
+   *
+   * @return Metrics.
+   */
+  public static Metrics global() {
+    return GLOBAL;
+  }
+
+  /**
+   * Returns the counter with a name, creating it if needed.
+   *
+   * @param name String name.
+   * @return Counter.
+   */
+  public Counter counter(String name) {
+    return counters.computeIfAbsent(name, key -> new Counter());
+  }
+
+  /**
+   * Returns the histogram with a name, creating it if needed.
+   *
+   * @param name String name.
+   * @return Histogram.
+   */
+  public Histogram histogram(String name) {
+    return histograms.computeIfAbsent(name, key -> new Histogram());
+  }
+
+  /**
+   * Reads every metric.
+   *
+   * @return MetricsSnapshot, with metrics in name order.
+   */
+  public MetricsSnapshot snapshot() {
+    Map<String, Long> counterValues = new TreeMap<>();
+    for (Map.Entry<String, Counter> entry : counters.entrySet()) {
+      counterValues.put(entry.getKey(), entry.getValue().get());
+    }
+    Map<String, MetricsSnapshot.HistogramSnapshot> histogramValues = new TreeMap<>();
+    for (Map.Entry<String, Histogram> entry : histograms.entrySet()) {
+      histogramValues.put(entry.getKey(), entry.getValue().snapshot());
+    }
+    return new MetricsSnapshot(counterValues, histogramValues);
+  }
+
+  /**
+   * Sets every metric back to zero.
+   */
+  public void reset() {
+    for (Counter counter : counters.values()) {
+      counter.reset();
+    }
+    for (Histogram histogram : histograms.values()) {
+      histogram.reset();
+    }
+  }
+
+  /**
+   * A count that only goes up.
+   */
+  public static final class Counter {
+    private final LongAdder value = new LongAdder();
+
+    private Counter() {
+    }
+
+    /**
+     * Adds one.
+     */
+    public void increment() {
+      value.increment();
+    }
+
+    /**
+     * Adds an amount.
+     *
+     * @param amount long amount.
+     */
+    public void add(long amount) {
+      value.add(amount);
+    }
+
+    /**
+     * Returns the count.
+     *
+     * @return long count.
+     */
+    public long get() {
+      return value.sum();
+    }
+
+    private void reset() {
+      value.reset();
+    }
+  }
+
+  /**
+   * A distribution of durations in nanoseconds.
+   */
+  public static final class Histogram {
+    static final int SUB_BUCKET_BITS = 4;
+    static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    static final int BUCKETS = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    private Histogram() {
+    }
+
+    /**
+     * Records a duration.
+     *
+     * @param nanos long duration in nanoseconds; negative values count as 0.
+     */
+    public void record(long nanos) {
+      long value = Math.max(0, nanos);
+      buckets.incrementAndGet(bucketOf(value));
+      sum.add(value);
+      if (value > max.get()) {
+        max.accumulateAndGet(value, Math::max);
+      }
+    }
+
+    /**
+     * Records the time since a System.nanoTime reading.
+     *
+     * @param startNanos long System.nanoTime when the timed work began.
+     */
+    public void recordSince(long startNanos) {
+      record(System.nanoTime() - startNanos);
+    }
+
+    static int bucketOf(long value) {
+      if (value < SUB_BUCKETS) {
+        return (int) value;
+      }
+      int exponent = 63 - Long.numberOfLeadingZeros(value);
+      int sub = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+      return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + sub;
+    }
+
+    /**
+     * Returns the largest value that falls in a bucket.
+     */
+    static long highestValueIn(int bucket) {
+      if (bucket < SUB_BUCKETS) {
+        return bucket;
+      }
+      int exponent = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+      long sub = bucket % SUB_BUCKETS;
+      long next = (SUB_BUCKETS + sub + 1) << (exponent - SUB_BUCKET_BITS);
+      return next < 0 ? Long.MAX_VALUE : next - 1;
+    }
+
+    MetricsSnapshot.HistogramSnapshot snapshot() {
+      long[] counts = new long[BUCKETS];
+      for (int i = 0; i < BUCKETS; i++) {
+        counts[i] = buckets.get(i);
+      }
+      return new MetricsSnapshot.HistogramSnapshot(counts, sum.sum(), max.get());
+    }
+
+    private void reset() {
+      for (int i = 0; i < BUCKETS; i++) {
+        buckets.set(i, 0);
+      }
+      sum.reset();
+      max.set(0);
+    }
+  }
+}
@@ -0,0 +1,163 @@
+package Model;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * The values of every metric in a Metrics registry at one moment.
+ */
+public final class MetricsSnapshot {
+  private final Map<String, Long> counters;
+  private final Map<String, HistogramSnapshot> histograms;
+
+  MetricsSnapshot(Map<String, Long> counters, Map<String, HistogramSnapshot> histograms) {
+    this.counters = Collections.unmodifiableMap(counters);
+    this.histograms = Collections.unmodifiableMap(histograms);
+  }
+
+  /**
+   * Returns every counter.
+   *
+   * @return Map of name to count, in name order.
+   */
+  public Map<String, Long> getCounters() {
+    return counters;
+  }
+
+  /**
+   * Returns a counter.
+   *
+   * @param name String name.
+   * @return long count, or 0 if there is no such counter.
+   */
+  public long getCounter(String name) {
+    return counters.getOrDefault(name, 0L);
+  }
+
+  /**
+   * Returns every histogram.
+   *
+   * @return Map of name to HistogramSnapshot, in name order.
+   */
+  public Map<String, HistogramSnapshot> getHistograms() {
+    return histograms;
+  }
+
+  /**
+   * Returns a histogram.
+   *
+   * @param name String name.
+   * @return HistogramSnapshot, or null if there is no such histogram.
+   */
+  public HistogramSnapshot getHistogram(String name) {
+    return histograms.get(name);
+  }
+
+  /**
+   * Writes one line per metric: counters as their count, histograms as their count, mean,
+   * 50th, 90th and 99th percentiles and maximum in milliseconds.
+   *
+   * @param out Appendable to write to.
+   * @throws IOException if out cannot be written to.
+   */
+  public void dump(Appendable out) throws IOException {
+    for (Map.Entry<String, Long> entry : counters.entrySet()) {
+      out.append(entry.getKey()).append(' ').append(Long.toString(entry.getValue()))
+              .append(System.lineSeparator());
+    }
+    for (Map.Entry<String, HistogramSnapshot> entry : histograms.entrySet()) {
+      out.append(entry.getKey()).append(' ').append(entry.getValue().toString())
+              .append(System.lineSeparator());
+    }
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder text = new StringBuilder();
+    try {
+      dump(text);
+    } catch (IOException e) {
+      throw new AssertionError(e);
+    }
+    return text.toString();
+  }
+
+  /**
+   * The distribution a histogram had recorded at the snapshot.
+   */
+  public static final class HistogramSnapshot {
+    private final long[] counts;
+    private final long count;
+    private final long sum;
+    private final long max;
+
+    HistogramSnapshot(long[] counts, long sum, long max) {
+      this.counts = counts;
+      long total = 0;
+      for (long c : counts) {
+        total += c;
+      }
+      this.count = total;
+      this.sum = sum;
+      this.max = max;
+    }
+
+    /**
+     * Returns the number of values recorded.
+     *
+     * @return long count.
+     */
+    public long getCount() {
+      return count;
+    }
+
+    /**
+     * Returns the mean value.
+     *
+     * @return double mean in nanoseconds, or 0 if nothing was recorded.
+     */
+    public double getMean() {
+      return count == 0 ? 0 : (double) sum / count;
+    }
+
+    /**
+     * Returns the largest value recorded.
+     *
+     * @return long maximum in nanoseconds.
+     */
+    public long getMax() {
+      return max;
+    }
+
+    /**
+     * Returns a value no more than 1/16 above the one at a percentile.
+     *
+     * @param percentile double percentile, from 0 to 100.
+     * @return long value in nanoseconds, or 0 if nothing was recorded.
+     */
+    public long getPercentile(double percentile) {
+      if (count == 0) {
+        return 0;
+      }
+      long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+      long seen = 0;
+      for (int i = 0; i < counts.length; i++) {
+        seen += counts[i];
+        if (seen >= rank) {
+          return Math.min(max, Metrics.Histogram.highestValueIn(i));
+        }
+      }
+      return max;
+    }
+
+    @Override
+    public String toString() {
+      return String.format(Locale.ROOT,
+              "count=%d mean=%.3fms p50=%.3fms p90=%.3fms p99=%.3fms max=%.3fms", count,
+              getMean() / 1e6, getPercentile(50) / 1e6, getPercentile(90) / 1e6,
+              getPercentile(99) / 1e6, max / 1e6);
+    }
+  }
+}
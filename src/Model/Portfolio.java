@@ -1,8 +1,14 @@
 package Model;
 
-import java.util.Map;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.HashMap;
+import java.util.Set;
+import java.util.stream.IntStream;
 
 import Model.Stock;
 
@@ -12,8 +18,15 @@ import Model.Stock;
  */
 
 public class Portfolio implements IPortfolio {
+  private static final Metrics.Histogram VALUE = Metrics.global().histogram("portfolio.value");
+  private static final Metrics.Histogram VALUES = Metrics.global().histogram("portfolio.values");
+  private static final Metrics.Histogram BULK = Metrics.global().histogram("portfolio.bulk");
+  private static final Metrics.Counter VALUE_ERRORS =
+          Metrics.global().counter("portfolio.value.errors");
+
   private final String name;
   private final Map<String, Integer> stocks;
+  private final TradeLedger trades = new TradeLedger();
 
   public Portfolio(String name) {
     this.name = name;
@@ -22,6 +35,7 @@ public class Portfolio implements IPortfolio {
 
   /**
    * Constructor for portfolio with a list of stocks.
+   * The stocks are held as if added with addStock, so they cannot be sold.
    * @param name of portfolio.
    * @param stocks Map of stock symbol and its associated quantity.
    */
@@ -33,6 +47,8 @@ public class Portfolio implements IPortfolio {
 
   /**
    * Adds a stock to an existing portfolio with the given quantity.
+   * The shares have no date or price, so they are not part of any position and cannot be
+   * sold; use buy for shares that will be traded.
    * @param stockSymbol Stock ticker.
    * @param quantity Quantity of shares.
    */
@@ -47,6 +63,72 @@ public class Portfolio implements IPortfolio {
     stocks.put(stockSymbol, stocks.getOrDefault(stockSymbol, 0) + quantity);
   }
 
+  /**
+   * Records a dated purchase and adds the shares to the portfolio.
+   * @param stockSymbol Stock ticker.
+   * @param date Date of the purchase in yyyy-MM-dd format.
+   * @param quantity Quantity of shares.
+   * @param price Price paid per share.
+   */
+  @Override
+  public void buy(String stockSymbol, String date, int quantity, double price) {
+    trades.buy(stockSymbol, date, quantity, price);
+    stocks.put(stockSymbol, stocks.getOrDefault(stockSymbol, 0) + quantity);
+  }
+
+  /**
+   * Records a dated sale and removes the shares from the portfolio.
+   * Only shares bought through buy can be sold.
+   * @param stockSymbol Stock ticker.
+   * @param date Date of the sale in yyyy-MM-dd format.
+   * @param quantity Quantity of shares.
+   * @param price Price received per share.
+   */
+  @Override
+  public void sell(String stockSymbol, String date, int quantity, double price) {
+    long traded = trades.sharesHeld(stockSymbol);
+    int untraded = (int) (stocks.getOrDefault(stockSymbol, 0) - traded);
+    if (quantity > traded && untraded > 0) {
+      throw new IllegalArgumentException("Cannot sell " + quantity + " shares of " + stockSymbol
+              + "; only " + traded + " were bought with buy. The other " + untraded
+              + " were added without a date and price and cannot be sold.");
+    }
+    trades.sell(stockSymbol, date, quantity, price);
+    int left = stocks.getOrDefault(stockSymbol, 0) - quantity;
+    if (left > 0) {
+      stocks.put(stockSymbol, left);
+    } else {
+      stocks.remove(stockSymbol);
+    }
+  }
+
+  /**
+   * Returns the position in a stock held through recorded trades at the end of a date.
+   * @param stockSymbol Stock ticker.
+   * @param date Date in yyyy-MM-dd format.
+   * @param method How sales are matched against purchases.
+   * @return Position.
+   */
+  @Override
+  public Position getPosition(String stockSymbol, String date, CostMethod method) {
+    return trades.positionAsOf(stockSymbol, date, method);
+  }
+
+  /**
+   * Returns the position in every stock traded by the end of a date.
+   * @param date Date in yyyy-MM-dd format.
+   * @param method How sales are matched against purchases.
+   * @return Map of stock symbol to Position.
+   */
+  @Override
+  public Map<String, Position> getPositions(String date, CostMethod method) {
+    return trades.positionsAsOf(date, method);
+  }
+
+  TradeLedger getTrades() {
+    return trades;
+  }
+
   /**
    * Calculates the value of the portfolio on a certain date based on the value
    * of each stock ticker on that date.
@@ -57,24 +139,22 @@ public class Portfolio implements IPortfolio {
    */
 
 @Override
-  public double calculatePortfolioValue(String date, IAlphaAPIInterface api, Map<String, List<Stock>> library) {
+  public double calculatePortfolioValue(String date, IAlphaAPIInterface api, SeriesCache library) {
+    long start = System.nanoTime();
     double totalValue = 0.0;
     try {
+      int day = Dates.parse(date);
       for (Map.Entry<String, Integer> entry : stocks.entrySet()) {
         String symbol = entry.getKey();
         int quantity = entry.getValue();
-        List<Stock> stockData = library.get(symbol);
-        if (stockData == null) {
+        // Fetched rather than read from the library, which may have evicted the symbol.
+        StockSeries stockData = api.fetchData(symbol, library);
+        if (stockData == null || stockData.isEmpty()) {
           throw new RuntimeException("No data available for the symbol: " + symbol);
         }
 
-        double closingPrice = 0.0;
-        for (Stock stock : stockData) {
-          if (stock.getDate().equals(date)) {
-            closingPrice = stock.getClosingPrice();
-            break;
-          }
-        }
+        int row = stockData.indexOf(day);
+        double closingPrice = row < 0 ? 0.0 : stockData.closeAt(row);
 
         if (closingPrice == 0.0) {
           throw new RuntimeException("No data available for the symbol: " + symbol + " on date: " + date);
@@ -83,13 +163,220 @@ public class Portfolio implements IPortfolio {
         totalValue += closingPrice * quantity;
       }
     } catch (Exception e) {
-      e.printStackTrace();
-      throw new RuntimeException("Error calculating portfolio value: " + e.getMessage());
+      VALUE_ERRORS.increment();
+      throw new RuntimeException("Error calculating portfolio value: " + e.getMessage(), e);
+    } finally {
+      VALUE.recordSince(start);
     }
 
     return totalValue;
   }
 
+  /**
+   * Calculates the value of the portfolio on every day from one date to another on which
+   * every stock in it has a closing price. Each stock's history is walked once, in step
+   * with the others, so the cost grows with the number of stocks times the number of days
+   * in the range rather than with the length of each history.
+   * @param from first date of the range.
+   * @param to last date of the range.
+   * @param api to get data with.
+   * @param library to get data from.
+   * @return ValueSeries of daily values.
+   * @throws IOException if the data for a stock cannot be fetched.
+   */
+  @Override
+  public ValueSeries calculatePortfolioValues(String from, String to, IAlphaAPIInterface api,
+                                              SeriesCache library) throws IOException {
+    long start = System.nanoTime();
+    try {
+      return values(from, to, api, library);
+    } finally {
+      VALUES.recordSince(start);
+    }
+  }
+
+  private ValueSeries values(String from, String to, IAlphaAPIInterface api,
+                             SeriesCache library) throws IOException {
+    int firstDay = Dates.parse(from);
+    int lastDay = Dates.parse(to);
+    if (firstDay > lastDay) {
+      throw new RuntimeException("Start date must not be after end date.");
+    }
+
+    int holdings = stocks.size();
+    StockSeries[] series = new StockSeries[holdings];
+    double[] quantities = new double[holdings];
+    int[] rows = new int[holdings];
+    int[] ends = new int[holdings];
+    int h = 0;
+    for (Map.Entry<String, Integer> entry : stocks.entrySet()) {
+      StockSeries stockData = api.fetchData(entry.getKey(), library);
+      if (stockData == null || stockData.isEmpty()) {
+        throw new RuntimeException("No data available for the symbol: " + entry.getKey());
+      }
+      series[h] = stockData;
+      quantities[h] = entry.getValue();
+      rows[h] = stockData.ceilingIndex(firstDay);
+      ends[h] = stockData.ceilingIndex(lastDay + 1);
+      h++;
+    }
+
+    int capacity = holdings == 0 ? 0 : lastDay - firstDay + 1;
+    for (int i = 0; i < holdings; i++) {
+      capacity = Math.min(capacity, ends[i] - rows[i]);
+    }
+    int[] days = new int[Math.max(capacity, 0)];
+    double[] values = new double[days.length];
+    int size = 0;
+
+    while (holdings > 0) {
+      // The next day every stock might share is the latest of their current days.
+      int day = Integer.MIN_VALUE;
+      boolean done = false;
+      for (int i = 0; i < holdings; i++) {
+        if (rows[i] >= ends[i]) {
+          done = true;
+          break;
+        }
+        day = Math.max(day, series[i].dayAt(rows[i]));
+      }
+      if (done) {
+        break;
+      }
+
+      boolean shared = true;
+      for (int i = 0; i < holdings; i++) {
+        while (rows[i] < ends[i] && series[i].dayAt(rows[i]) < day) {
+          rows[i]++;
+        }
+        if (rows[i] >= ends[i] || series[i].dayAt(rows[i]) != day) {
+          shared = false;
+        }
+      }
+      if (!shared) {
+        continue;
+      }
+
+      double value = 0.0;
+      for (int i = 0; i < holdings; i++) {
+        value += series[i].closeAt(rows[i]) * quantities[i];
+        rows[i]++;
+      }
+      days[size] = day;
+      values[size] = value;
+      size++;
+    }
+
+    return new ValueSeries(days, values, size);
+  }
+
+  /**
+   * Values many portfolios on one date. The price of every distinct stock is looked up
+   * once, with the stocks fetched as one batch, and the portfolios are then valued in
+   * parallel against those prices. A stock without a price only fails the portfolios that
+   * hold it.
+   * @param portfolios portfolios to value.
+   * @param date date to get values.
+   * @param api to get data with.
+   * @param library to get data from.
+   * @return BulkValuation with each portfolio's value and the failures.
+   */
+  public static BulkValuation valuePortfolios(List<? extends IPortfolio> portfolios,
+                                              String date, IAlphaAPIInterface api,
+                                              SeriesCache library) {
+    long start = System.nanoTime();
+    try {
+      return valueAll(portfolios, date, api, library);
+    } finally {
+      BULK.recordSince(start);
+    }
+  }
+
+  private static BulkValuation valueAll(List<? extends IPortfolio> portfolios, String date,
+                                        IAlphaAPIInterface api, SeriesCache library) {
+    int day = Dates.parse(date);
+
+    // Give every distinct stock a slot in the price vector.
+    Map<String, Integer> slots = new LinkedHashMap<>();
+    int[][] holdings = new int[portfolios.size()][];
+    double[][] quantities = new double[portfolios.size()][];
+    for (int p = 0; p < portfolios.size(); p++) {
+      Map<String, Integer> stocks = portfolios.get(p).getStocks();
+      holdings[p] = new int[stocks.size()];
+      quantities[p] = new double[stocks.size()];
+      int h = 0;
+      for (Map.Entry<String, Integer> entry : stocks.entrySet()) {
+        Integer slot = slots.get(entry.getKey());
+        if (slot == null) {
+          slot = slots.size();
+          slots.put(entry.getKey(), slot);
+        }
+        holdings[p][h] = slot;
+        quantities[p][h] = entry.getValue();
+        h++;
+      }
+    }
+
+    String[] symbols = slots.keySet().toArray(new String[0]);
+    double[] prices = new double[symbols.length];
+    String[] problems = new String[symbols.length];
+    Map<String, FetchResult> fetched = api.fetchAll(slots.keySet(), library);
+    for (int i = 0; i < symbols.length; i++) {
+      FetchResult result = fetched.get(symbols[i]);
+      prices[i] = Double.NaN;
+      if (result == null || !result.isSuccess()) {
+        problems[i] = result == null ? "No data available for the symbol: " + symbols[i]
+                : result.getError();
+        continue;
+      }
+      int row = result.getSeries().indexOf(day);
+      if (row < 0) {
+        problems[i] = "No data available for the symbol: " + symbols[i] + " on date: " + date;
+      } else {
+        prices[i] = result.getSeries().closeAt(row);
+      }
+    }
+
+    // A portfolio fails when it holds shares of a stock with no price; its total becomes NaN.
+    // Holdings with no shares are skipped so that a missing price for them cannot fail it.
+    double[] totals = new double[portfolios.size()];
+    int[] failedSlots = new int[portfolios.size()];
+    IntStream.range(0, totals.length).parallel().forEach(p -> {
+      double total = 0.0;
+      int failedSlot = -1;
+      for (int h = 0; h < holdings[p].length; h++) {
+        int slot = holdings[p][h];
+        if (quantities[p][h] == 0) {
+          continue;
+        }
+        if (problems[slot] != null) {
+          failedSlot = slot;
+          break;
+        }
+        total += prices[slot] * quantities[p][h];
+      }
+      failedSlots[p] = failedSlot;
+      totals[p] = failedSlot < 0 ? total : Double.NaN;
+    });
+
+    Set<String> missing = new LinkedHashSet<>();
+    for (int i = 0; i < symbols.length; i++) {
+      if (problems[i] != null) {
+        missing.add(symbols[i]);
+      }
+    }
+    List<String> names = new ArrayList<>(portfolios.size());
+    List<String> failures = new ArrayList<>();
+    for (int p = 0; p < totals.length; p++) {
+      names.add(portfolios.get(p).getName());
+      if (failedSlots[p] >= 0) {
+        failures.add("Error calculating portfolio value for " + portfolios.get(p).getName()
+                + ": " + problems[failedSlots[p]]);
+      }
+    }
+    return new BulkValuation(date, names, totals, failures, missing);
+  }
+
   /**
    * Return name of the portfolio.
    * @return String name of portfolio.
@@ -0,0 +1,586 @@
+package Model;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * An append-only log of changes to portfolios.
+ * Every entry gets the next sequence number and is written as a length, a CRC32 and the
+ * entry itself, so a record torn by a crash is detected and dropped on the next open.
+ * Appending only buffers the entry; sync makes it durable. Threads that sync while another
+ * thread is writing wait for it and then write everything buffered in the meantime with a
+ * single force, so concurrent writers share the cost of each disk flush.
+ */
+public class PortfolioJournal implements Closeable {
+  static final int MAGIC = 0x53544B4A; // "STKJ"
+  static final short VERSION = 1;
+  static final int HEADER_BYTES = 8;
+  private static final int MAX_RECORD_BYTES = 1 << 24;
+
+  private final Path file;
+  private final FileChannel channel;
+
+  private final ReentrantLock lock = new ReentrantLock();
+  private final Condition flushed = lock.newCondition();
+  private ByteArrayOutputStream pending = new ByteArrayOutputStream();
+  private long lastSequence;
+  private long durableSequence;
+  private long entriesSinceReset;
+  private boolean flushing;
+  private IOException failure;
+
+  private PortfolioJournal(Path file, FileChannel channel, long lastSequence, long entries) {
+    this.file = file;
+    this.channel = channel;
+    this.lastSequence = lastSequence;
+    this.durableSequence = lastSequence;
+    this.entriesSinceReset = entries;
+  }
+
+  /**
+   * Opens a journal, creating it if it does not exist, and replays the entries after a
+   * sequence number. A torn or corrupt record at the end of the file, and everything after
+   * it, is cut off.
+   *
+   * @param file          Path of the journal.
+   * @param afterSequence long sequence number already covered by a snapshot.
+   * @param replay        Consumer given each later entry, in order.
+   * @return PortfolioJournal positioned to append after the last good record.
+   * @throws IOException if the file cannot be read or is not a journal.
+   */
+  public static PortfolioJournal open(Path file, long afterSequence, Consumer<Entry> replay)
+          throws IOException {
+    Path parent = file.toAbsolutePath().getParent();
+    Files.createDirectories(parent);
+    FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+            StandardOpenOption.READ, StandardOpenOption.WRITE);
+    try {
+      if (channel.size() == 0) {
+        writeHeader(channel);
+        return new PortfolioJournal(file, channel, afterSequence, 0);
+      }
+
+      DataInputStream in = new DataInputStream(new BufferedInputStream(
+              Channels.newInputStream(channel.position(0)), 1 << 16));
+      if (channel.size() < HEADER_BYTES || in.readInt() != MAGIC) {
+        throw new IOException("Not a portfolio journal: " + file);
+      }
+      short version = in.readShort();
+      if (version != VERSION) {
+        throw new IOException("Unsupported portfolio journal version: " + version);
+      }
+      in.readShort();
+
+      long end = HEADER_BYTES;
+      long last = afterSequence;
+      long entries = 0;
+      CRC32 crc = new CRC32();
+      while (true) {
+        byte[] record;
+        try {
+          int length = in.readInt();
+          int checksum = in.readInt();
+          if (length <= 0 || length > MAX_RECORD_BYTES || end + 8 + length > channel.size()) {
+            break;
+          }
+          record = new byte[length];
+          in.readFully(record);
+          crc.reset();
+          crc.update(record, 0, length);
+          if ((int) crc.getValue() != checksum) {
+            break;
+          }
+        } catch (EOFException e) {
+          break;
+        }
+        Entry entry = Entry.decode(record);
+        end += 8 + record.length;
+        entries++;
+        if (entry.getSequence() > last) {
+          last = entry.getSequence();
+          replay.accept(entry);
+        }
+      }
+      channel.truncate(end);
+      channel.position(end);
+      return new PortfolioJournal(file, channel, last, entries);
+    } catch (IOException | RuntimeException e) {
+      channel.close();
+      throw e;
+    }
+  }
+
+  private static void writeHeader(FileChannel channel) throws IOException {
+    ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+    header.putInt(MAGIC).putShort(VERSION).putShort((short) 0).flip();
+    channel.truncate(0);
+    channel.position(0);
+    while (header.hasRemaining()) {
+      channel.write(header);
+    }
+    channel.force(true);
+  }
+
+  /**
+   * Buffers an entry under the next sequence number. It is not durable until sync returns
+   * for that number.
+   *
+   * @param entry Entry to append; its own sequence number is ignored.
+   * @return long sequence number given to the entry.
+   * @throws IOException if an earlier write failed and the journal can no longer be used.
+   */
+  public long append(Entry entry) throws IOException {
+    lock.lock();
+    try {
+      checkUsable();
+      long sequence = lastSequence + 1;
+      byte[] record = entry.encode(sequence);
+      CRC32 crc = new CRC32();
+      crc.update(record, 0, record.length);
+      DataOutputStream out = new DataOutputStream(pending);
+      out.writeInt(record.length);
+      out.writeInt((int) crc.getValue());
+      out.write(record);
+      lastSequence = sequence;
+      entriesSinceReset++;
+      return sequence;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Waits until every entry up to a sequence number is on disk, writing the buffered
+   * entries if no other thread is already doing so.
+   *
+   * @param sequence long sequence number returned by append.
+   * @throws IOException if the entries cannot be written.
+   */
+  public void sync(long sequence) throws IOException {
+    lock.lock();
+    try {
+      while (durableSequence < sequence) {
+        checkUsable();
+        if (flushing) {
+          flushed.awaitUninterruptibly();
+          continue;
+        }
+        flushing = true;
+        ByteBuffer batch = ByteBuffer.wrap(pending.toByteArray());
+        pending = new ByteArrayOutputStream(Math.max(32, batch.capacity()));
+        long upTo = lastSequence;
+        lock.unlock();
+        IOException error = null;
+        try {
+          while (batch.hasRemaining()) {
+            channel.write(batch);
+          }
+          channel.force(false);
+        } catch (IOException e) {
+          error = e;
+        } finally {
+          lock.lock();
+          flushing = false;
+          if (error == null) {
+            durableSequence = upTo;
+          } else {
+            failure = error;
+          }
+          flushed.signalAll();
+        }
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Writes every buffered entry to disk.
+   *
+   * @throws IOException if the entries cannot be written.
+   */
+  public void syncAll() throws IOException {
+    sync(getLastSequence());
+  }
+
+  /**
+   * Empties the journal once a snapshot covers all of it. Sequence numbers carry on from
+   * where they were. Callers must make sure nothing is appended while this runs.
+   *
+   * @throws IOException if the journal cannot be truncated.
+   */
+  public void reset() throws IOException {
+    syncAll();
+    lock.lock();
+    try {
+      checkUsable();
+      writeHeader(channel);
+      channel.position(HEADER_BYTES);
+      entriesSinceReset = 0;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private void checkUsable() throws IOException {
+    if (failure != null) {
+      throw new IOException("Portfolio journal is unusable after a failed write: "
+              + failure.getMessage(), failure);
+    }
+  }
+
+  /**
+   * Returns the sequence number of the last entry appended.
+   *
+   * @return long sequence.
+   */
+  public long getLastSequence() {
+    lock.lock();
+    try {
+      return lastSequence;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Returns how many entries the journal holds since it was created or last reset.
+   *
+   * @return long entries.
+   */
+  public long getEntryCount() {
+    lock.lock();
+    try {
+      return entriesSinceReset;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Returns the journal file.
+   *
+   * @return Path.
+   */
+  public Path getFile() {
+    return file;
+  }
+
+  /**
+   * Writes any buffered entries and closes the file.
+   *
+   * @throws IOException if the entries cannot be written or the file cannot be closed.
+   */
+  @Override
+  public void close() throws IOException {
+    try {
+      syncAll();
+    } finally {
+      channel.close();
+    }
+  }
+
+  /**
+   * One change to a portfolio: creating it with its initial holdings and trades, adding
+   * shares of a stock to it, recording a dated buy or sell, or removing it.
+   */
+  public static final class Entry {
+    /**
+     * The kind of change.
+     */
+    public enum Type { CREATE, ADD, REMOVE, BUY, SELL }
+
+    private final long sequence;
+    private final Type type;
+    private final String portfolio;
+    private final Map<String, Integer> holdings;
+    private final String symbol;
+    private final int quantity;
+    private final String date;
+    private final double price;
+    // A created portfolio's trades as TradeLedger writes them, empty if it has none.
+    private final byte[] trades;
+
+    private Entry(long sequence, Type type, String portfolio, Map<String, Integer> holdings,
+                  String symbol, int quantity) {
+      this(sequence, type, portfolio, holdings, symbol, quantity, null, 0);
+    }
+
+    private Entry(long sequence, Type type, String portfolio, Map<String, Integer> holdings,
+                  String symbol, int quantity, String date, double price) {
+      this(sequence, type, portfolio, holdings, symbol, quantity, date, price, new byte[0]);
+    }
+
+    private Entry(long sequence, Type type, String portfolio, Map<String, Integer> holdings,
+                  String symbol, int quantity, String date, double price, byte[] trades) {
+      this.sequence = sequence;
+      this.type = type;
+      this.portfolio = portfolio;
+      this.holdings = holdings;
+      this.symbol = symbol;
+      this.quantity = quantity;
+      this.date = date;
+      this.price = price;
+      this.trades = trades;
+    }
+
+    /**
+     * An entry creating a portfolio.
+     *
+     * @param portfolio String portfolio name.
+     * @param holdings  Map of ticker to quantity the portfolio starts with.
+     * @return Entry.
+     */
+    public static Entry create(String portfolio, Map<String, Integer> holdings) {
+      return new Entry(0, Type.CREATE, portfolio,
+              Collections.unmodifiableMap(new LinkedHashMap<>(holdings)), null, 0);
+    }
+
+    /**
+     * An entry creating a portfolio as it is now, with its holdings and its trades.
+     *
+     * @param portfolio Portfolio created.
+     * @return Entry.
+     */
+    public static Entry create(Portfolio portfolio) {
+      ByteArrayOutputStream trades = new ByteArrayOutputStream();
+      if (!portfolio.getTrades().isEmpty()) {
+        try {
+          portfolio.getTrades().write(new DataOutputStream(trades));
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+      }
+      return new Entry(0, Type.CREATE, portfolio.getName(),
+              Collections.unmodifiableMap(new LinkedHashMap<>(portfolio.getStocks())), null, 0,
+              null, 0, trades.toByteArray());
+    }
+
+    /**
+     * An entry adding shares to a portfolio.
+     *
+     * @param portfolio String portfolio name.
+     * @param symbol    String ticker.
+     * @param quantity  int shares added.
+     * @return Entry.
+     */
+    public static Entry add(String portfolio, String symbol, int quantity) {
+      return new Entry(0, Type.ADD, portfolio, Collections.emptyMap(), symbol, quantity);
+    }
+
+    /**
+     * An entry recording a dated purchase.
+     *
+     * @param portfolio String portfolio name.
+     * @param symbol    String ticker.
+     * @param date      String date in yyyy-MM-dd format.
+     * @param quantity  int shares bought.
+     * @param price     double price per share.
+     * @return Entry.
+     */
+    public static Entry buy(String portfolio, String symbol, String date, int quantity,
+                            double price) {
+      return new Entry(0, Type.BUY, portfolio, Collections.emptyMap(), symbol, quantity, date,
+              price);
+    }
+
+    /**
+     * An entry recording a dated sale.
+     *
+     * @param portfolio String portfolio name.
+     * @param symbol    String ticker.
+     * @param date      String date in yyyy-MM-dd format.
+     * @param quantity  int shares sold.
+     * @param price     double price per share.
+     * @return Entry.
+     */
+    public static Entry sell(String portfolio, String symbol, String date, int quantity,
+                             double price) {
+      return new Entry(0, Type.SELL, portfolio, Collections.emptyMap(), symbol, quantity, date,
+              price);
+    }
+
+    /**
+     * An entry removing a portfolio.
+     *
+     * @param portfolio String portfolio name.
+     * @return Entry.
+     */
+    public static Entry remove(String portfolio) {
+      return new Entry(0, Type.REMOVE, portfolio, Collections.emptyMap(), null, 0);
+    }
+
+    /**
+     * Returns the entry's sequence number, or 0 if it has not been appended.
+     *
+     * @return long sequence.
+     */
+    public long getSequence() {
+      return sequence;
+    }
+
+    /**
+     * Returns the kind of change.
+     *
+     * @return Type.
+     */
+    public Type getType() {
+      return type;
+    }
+
+    /**
+     * Returns the name of the portfolio changed.
+     *
+     * @return String name.
+     */
+    public String getPortfolio() {
+      return portfolio;
+    }
+
+    /**
+     * Returns the holdings a created portfolio starts with.
+     *
+     * @return Map of ticker to quantity, empty for other entries.
+     */
+    public Map<String, Integer> getHoldings() {
+      return holdings;
+    }
+
+    /**
+     * Records the trades a created portfolio starts with.
+     *
+     * @param ledger TradeLedger of the portfolio being recreated.
+     * @throws IOException if the trades are corrupt.
+     */
+    void readTrades(TradeLedger ledger) throws IOException {
+      if (trades.length > 0) {
+        ledger.read(new DataInputStream(new ByteArrayInputStream(trades)));
+      }
+    }
+
+    /**
+     * Returns the ticker shares were added, bought or sold of.
+     *
+     * @return String ticker, or null for other entries.
+     */
+    public String getSymbol() {
+      return symbol;
+    }
+
+    /**
+     * Returns the number of shares added, bought or sold.
+     *
+     * @return int quantity, or 0 for other entries.
+     */
+    public int getQuantity() {
+      return quantity;
+    }
+
+    /**
+     * Returns the date of a buy or sell.
+     *
+     * @return String date in yyyy-MM-dd format, or null for other entries.
+     */
+    public String getDate() {
+      return date;
+    }
+
+    /**
+     * Returns the price per share of a buy or sell.
+     *
+     * @return double price, or 0 for other entries.
+     */
+    public double getPrice() {
+      return price;
+    }
+
+    byte[] encode(long sequence) throws IOException {
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+      DataOutputStream out = new DataOutputStream(bytes);
+      out.writeLong(sequence);
+      out.writeByte(type.ordinal());
+      out.writeUTF(portfolio);
+      switch (type) {
+        case CREATE:
+          out.writeInt(holdings.size());
+          for (Map.Entry<String, Integer> holding : holdings.entrySet()) {
+            out.writeUTF(holding.getKey());
+            out.writeInt(holding.getValue());
+          }
+          out.write(trades);
+          break;
+        case ADD:
+          out.writeUTF(symbol);
+          out.writeInt(quantity);
+          break;
+        case BUY:
+        case SELL:
+          out.writeUTF(symbol);
+          out.writeInt(quantity);
+          out.writeInt(Dates.parse(date));
+          out.writeDouble(price);
+          break;
+        default:
+          break;
+      }
+      return bytes.toByteArray();
+    }
+
+    static Entry decode(byte[] record) throws IOException {
+      DataInputStream in = new DataInputStream(new ByteArrayInputStream(record));
+      long sequence = in.readLong();
+      int ordinal = in.readUnsignedByte();
+      if (ordinal >= Type.values().length) {
+        throw new IOException("Unknown journal entry type: " + ordinal);
+      }
+      Type type = Type.values()[ordinal];
+      String portfolio = in.readUTF();
+      switch (type) {
+        case CREATE:
+          int count = in.readInt();
+          Map<String, Integer> holdings = new LinkedHashMap<>();
+          for (int i = 0; i < count; i++) {
+            holdings.put(in.readUTF(), in.readInt());
+          }
+          // Entries written before trades were journaled end after the holdings.
+          byte[] trades = new byte[in.available()];
+          in.readFully(trades);
+          return new Entry(sequence, type, portfolio, Collections.unmodifiableMap(holdings),
+                  null, 0, null, 0, trades);
+        case ADD:
+          String symbol = in.readUTF();
+          return new Entry(sequence, type, portfolio, Collections.emptyMap(), symbol,
+                  in.readInt());
+        case BUY:
+        case SELL:
+          String traded = in.readUTF();
+          int quantity = in.readInt();
+          String date = Dates.format(in.readInt());
+          return new Entry(sequence, type, portfolio, Collections.emptyMap(), traded, quantity,
+                  date, in.readDouble());
+        default:
+          return new Entry(sequence, type, portfolio, Collections.emptyMap(), null, 0);
+      }
+    }
+  }
+}
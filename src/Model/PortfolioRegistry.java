@@ -0,0 +1,729 @@
+package Model;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The user's portfolios, looked up by name. Names are unique.
+ * A registry can be kept in memory only, or backed by a file so the portfolios survive a
+ * restart. The file holds every portfolio's record followed by an index of names and
+ * record positions, so opening it only reads the index; a portfolio is read the first
+ * time it is asked for.
+ * A file-backed registry can also keep a PortfolioJournal. Each change is then written to
+ * the journal before the call returns, and the file becomes a snapshot: saving it records
+ * the last journal entry it covers and empties the journal. Opening loads the snapshot
+ * index and replays only the entries after it. The registry saves itself once the journal
+ * holds a set number of entries, so the replay on restart stays short.
+ */
+public class PortfolioRegistry implements Closeable {
+  /**
+   * System property that overrides the default portfolio file.
+   */
+  public static final String FILE_PROPERTY = "stocks.portfolios.file";
+
+  static final int MAGIC = 0x53544B50; // "STKP"
+  static final short VERSION = 2;
+  private static final short VERSION_WITHOUT_SEQUENCE = 1;
+  private static final int HEADER_BYTES = 16;
+  private static final int HEADER_BYTES_WITHOUT_SEQUENCE = 8;
+  /**
+   * Default number of journal entries after which the registry saves a snapshot.
+   */
+  public static final long DEFAULT_CHECKPOINT_ENTRIES = 100_000;
+  private static final int TRAILER_BYTES = Long.BYTES + Integer.BYTES;
+
+  private final Path file;
+  private final ConcurrentHashMap<String, Slot> slots = new ConcurrentHashMap<>();
+  // Guards the channel, which save replaces. Taken after the registry or a slot lock.
+  private final Object channelLock = new Object();
+  private FileChannel channel;
+  private PortfolioJournal journal;
+  private long snapshotSequence;
+  private volatile long checkpointEntries = DEFAULT_CHECKPOINT_ENTRIES;
+
+  /**
+   * Creates an empty registry kept in memory only.
+   */
+  public PortfolioRegistry() {
+    this.file = null;
+  }
+
+  private PortfolioRegistry(Path file) {
+    this.file = file;
+  }
+
+  /**
+   * Opens a registry backed by a file, reading only its index. The file is created on the
+   * first save if it does not exist.
+   *
+   * @param file Path of the portfolio file.
+   * @return PortfolioRegistry.
+   * @throws IOException if the file exists but cannot be read or is not a portfolio file.
+   */
+  public static PortfolioRegistry open(Path file) throws IOException {
+    PortfolioRegistry registry = new PortfolioRegistry(file);
+    if (Files.exists(file)) {
+      registry.readIndex();
+    }
+    return registry;
+  }
+
+  /**
+   * Opens a registry backed by a snapshot file and a journal of the changes since, replaying
+   * the journal. Either file is created when first written if it does not exist.
+   *
+   * @param file        Path of the snapshot file.
+   * @param journalFile Path of the journal.
+   * @return PortfolioRegistry.
+   * @throws IOException if either file exists but cannot be read.
+   */
+  public static PortfolioRegistry open(Path file, Path journalFile) throws IOException {
+    PortfolioRegistry registry = open(file);
+    try {
+      registry.journal = PortfolioJournal.open(journalFile, registry.snapshotSequence,
+              registry::replay);
+    } catch (IOException | RuntimeException e) {
+      registry.close();
+      throw e;
+    }
+    return registry;
+  }
+
+  /**
+   * Opens the registry in the file named by the stocks.portfolios.file system property,
+   * or in .stocks/portfolios.dat under the user's home directory, with its journal next to
+   * it in a file of the same name ending in .journal.
+   *
+   * @return PortfolioRegistry.
+   * @throws IOException if the files exist but cannot be read.
+   */
+  public static PortfolioRegistry openDefault() throws IOException {
+    String configured = System.getProperty(FILE_PROPERTY);
+    Path file = configured != null && !configured.isEmpty()
+            ? Paths.get(configured)
+            : Paths.get(System.getProperty("user.home"), ".stocks", "portfolios.dat");
+    return open(file, file.resolveSibling(file.getFileName() + ".journal"));
+  }
+
+  /**
+   * Sets how many journal entries make the registry save a snapshot.
+   *
+   * @param entries long number of entries, at least 1.
+   */
+  public void setCheckpointEntries(long entries) {
+    if (entries < 1) {
+      throw new IllegalArgumentException("Checkpoint interval must be at least 1");
+    }
+    this.checkpointEntries = entries;
+  }
+
+  private void replay(PortfolioJournal.Entry entry) {
+    switch (entry.getType()) {
+      case CREATE:
+        slots.put(entry.getPortfolio(), new Slot(created(entry)));
+        break;
+      case ADD:
+        Portfolio portfolio = portfolio(entry.getPortfolio());
+        if (portfolio != null) {
+          portfolio.addStock(entry.getSymbol(), entry.getQuantity());
+        }
+        break;
+      case BUY:
+      case SELL:
+        Portfolio trader = portfolio(entry.getPortfolio());
+        if (trader != null && entry.getType() == PortfolioJournal.Entry.Type.BUY) {
+          trader.buy(entry.getSymbol(), entry.getDate(), entry.getQuantity(), entry.getPrice());
+        } else if (trader != null) {
+          trader.sell(entry.getSymbol(), entry.getDate(), entry.getQuantity(), entry.getPrice());
+        }
+        break;
+      case REMOVE:
+        slots.remove(entry.getPortfolio());
+        break;
+      default:
+        break;
+    }
+  }
+
+  /**
+   * Returns whether a portfolio with the given name exists.
+   *
+   * @param name String portfolio name.
+   * @return boolean.
+   */
+  public boolean contains(String name) {
+    return slots.containsKey(name);
+  }
+
+  /**
+   * Returns a read-only view of a portfolio by name, reading it from the file if it has
+   * not been read yet. Its holdings are changed through addStock, buy and sell on the
+   * registry, so every change is journaled; the view's own addStock, buy and sell throw
+   * UnsupportedOperationException.
+   *
+   * @param name String portfolio name.
+   * @return IPortfolio, or null if there is no portfolio with that name.
+   * @throws RuntimeException if the portfolio cannot be read from the file.
+   */
+  public IPortfolio get(String name) {
+    Portfolio portfolio = portfolio(name);
+    return portfolio == null ? null : new ReadOnlyPortfolio(portfolio);
+  }
+
+  private Portfolio portfolio(String name) {
+    Slot slot = slots.get(name);
+    if (slot == null) {
+      return null;
+    }
+    return slot.portfolio(this);
+  }
+
+  /**
+   * Adds a copy of a portfolio, with its holdings and trades. Later changes to the given
+   * portfolio are not seen by the registry.
+   *
+   * @param portfolio Portfolio to add.
+   * @throws IllegalArgumentException if a portfolio with the same name exists.
+   * @throws UncheckedIOException     if the change cannot be journaled.
+   */
+  public void add(Portfolio portfolio) {
+    PortfolioJournal.Entry entry = PortfolioJournal.Entry.create(portfolio);
+    Portfolio copy = created(entry);
+    long sequence;
+    synchronized (this) {
+      if (slots.containsKey(copy.getName())) {
+        throw new IllegalArgumentException("A portfolio named " + copy.getName()
+                + " already exists.");
+      }
+      slots.put(copy.getName(), new Slot(copy));
+      sequence = log(entry);
+    }
+    commit(sequence);
+  }
+
+  /**
+   * Builds the portfolio a CREATE entry describes, so a portfolio added now and one
+   * replayed from the journal later start out the same.
+   */
+  private static Portfolio created(PortfolioJournal.Entry entry) {
+    Portfolio portfolio = Portfolio.createPortfolio(entry.getPortfolio(), entry.getHoldings());
+    try {
+      entry.readTrades(portfolio.getTrades());
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return portfolio;
+  }
+
+  /**
+   * Adds shares of a stock to a portfolio.
+   *
+   * @param name     String portfolio name.
+   * @param symbol   String ticker.
+   * @param quantity int shares to add.
+   * @throws IllegalArgumentException if there is no such portfolio or the quantity is not
+   *                                  positive.
+   * @throws UncheckedIOException     if the change cannot be journaled.
+   */
+  public void addStock(String name, String symbol, int quantity) {
+    long sequence;
+    synchronized (this) {
+      existing(name).addStock(symbol, quantity);
+      sequence = log(PortfolioJournal.Entry.add(name, symbol, quantity));
+    }
+    commit(sequence);
+  }
+
+  /**
+   * Records a dated purchase in a portfolio.
+   *
+   * @param name     String portfolio name.
+   * @param symbol   String ticker.
+   * @param date     String date in yyyy-MM-dd format.
+   * @param quantity int shares bought.
+   * @param price    double price paid per share.
+   * @throws IllegalArgumentException if there is no such portfolio or the trade is invalid.
+   * @throws UncheckedIOException     if the change cannot be journaled.
+   */
+  public void buy(String name, String symbol, String date, int quantity, double price) {
+    long sequence;
+    synchronized (this) {
+      existing(name).buy(symbol, date, quantity, price);
+      sequence = log(PortfolioJournal.Entry.buy(name, symbol, date, quantity, price));
+    }
+    commit(sequence);
+  }
+
+  /**
+   * Records a dated sale in a portfolio.
+   *
+   * @param name     String portfolio name.
+   * @param symbol   String ticker.
+   * @param date     String date in yyyy-MM-dd format.
+   * @param quantity int shares sold.
+   * @param price    double price received per share.
+   * @throws IllegalArgumentException if there is no such portfolio or the trade is invalid.
+   * @throws UncheckedIOException     if the change cannot be journaled.
+   */
+  public void sell(String name, String symbol, String date, int quantity, double price) {
+    long sequence;
+    synchronized (this) {
+      existing(name).sell(symbol, date, quantity, price);
+      sequence = log(PortfolioJournal.Entry.sell(name, symbol, date, quantity, price));
+    }
+    commit(sequence);
+  }
+
+  private Portfolio existing(String name) {
+    Portfolio portfolio = portfolio(name);
+    if (portfolio == null) {
+      throw new IllegalArgumentException("No portfolio named " + name + ".");
+    }
+    return portfolio;
+  }
+
+  /**
+   * Removes a portfolio.
+   *
+   * @param name String portfolio name.
+   * @return boolean whether a portfolio was removed.
+   * @throws UncheckedIOException if the change cannot be journaled.
+   */
+  public boolean remove(String name) {
+    long sequence;
+    synchronized (this) {
+      if (slots.remove(name) == null) {
+        return false;
+      }
+      sequence = log(PortfolioJournal.Entry.remove(name));
+    }
+    commit(sequence);
+    return true;
+  }
+
+  /**
+   * Buffers a change in the journal. Called with the registry locked, so entries are
+   * journaled in the order they are applied.
+   */
+  private long log(PortfolioJournal.Entry entry) {
+    if (journal == null) {
+      return 0;
+    }
+    try {
+      return journal.append(entry);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Waits for a change to reach the disk, without holding the registry lock so that
+   * concurrent changes are flushed together. Saves a snapshot once the journal is long.
+   */
+  private void commit(long sequence) {
+    if (journal == null) {
+      return;
+    }
+    try {
+      journal.sync(sequence);
+      if (journal.getEntryCount() >= checkpointEntries) {
+        synchronized (this) {
+          if (journal.getEntryCount() >= checkpointEntries) {
+            save();
+          }
+        }
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Returns the number of portfolios.
+   *
+   * @return int size.
+   */
+  public int size() {
+    return slots.size();
+  }
+
+  /**
+   * Returns a snapshot of the portfolio names.
+   *
+   * @return Set of names.
+   */
+  public Set<String> names() {
+    return Collections.unmodifiableSet(new HashSet<>(slots.keySet()));
+  }
+
+  /**
+   * Returns the file backing the registry.
+   *
+   * @return Path, or null if the registry is kept in memory only.
+   */
+  public Path getFile() {
+    return file;
+  }
+
+  /**
+   * Writes every portfolio to the file, replacing it atomically, then empties the journal.
+   * The new file and its directory entry are forced to disk before the journal is emptied,
+   * so a crash at any point leaves either the old file with its journal or the new file.
+   * Portfolios that were never read are copied from the old file without being decoded.
+   * Does nothing for a registry kept in memory only.
+   *
+   * @throws IOException if the file cannot be written.
+   */
+  public synchronized void save() throws IOException {
+    if (file == null) {
+      return;
+    }
+    long sequence = 0;
+    if (journal != null) {
+      journal.syncAll();
+      sequence = journal.getLastSequence();
+    }
+    Path parent = file.toAbsolutePath().getParent();
+    Files.createDirectories(parent);
+    Path temp = Files.createTempFile(parent, file.getFileName().toString(), ".tmp");
+    List<String> names = new ArrayList<>();
+    List<Slot> saved = new ArrayList<>();
+    List<long[]> positions = new ArrayList<>();
+    try (FileChannel target = FileChannel.open(temp, StandardOpenOption.WRITE);
+         CountingOutputStream counter = new CountingOutputStream(
+                 new BufferedOutputStream(Channels.newOutputStream(target), 1 << 16));
+         DataOutputStream out = new DataOutputStream(counter)) {
+      out.writeInt(MAGIC);
+      out.writeShort(VERSION);
+      out.writeShort(0);
+      out.writeLong(sequence);
+      for (Map.Entry<String, Slot> entry : slots.entrySet()) {
+        Slot slot = entry.getValue();
+        byte[] record = slot.loaded != null ? encode(slot.loaded) : readRecord(slot);
+        long offset = counter.count;
+        out.write(record);
+        names.add(entry.getKey());
+        saved.add(slot);
+        positions.add(new long[] {offset, record.length});
+      }
+      long indexOffset = counter.count;
+      out.writeInt(names.size());
+      for (int i = 0; i < names.size(); i++) {
+        out.writeUTF(names.get(i));
+        out.writeLong(positions.get(i)[0]);
+        out.writeInt((int) positions.get(i)[1]);
+      }
+      out.writeLong(indexOffset);
+      out.writeInt(MAGIC);
+      out.flush();
+      // The snapshot has to be on disk before the rename can make it the registry file.
+      target.force(true);
+    } catch (IOException e) {
+      Files.deleteIfExists(temp);
+      throw e;
+    }
+
+    // Readers wait while the file is swapped, so none reads the new file at an old offset.
+    synchronized (channelLock) {
+      closeChannel();
+      Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+      for (int i = 0; i < saved.size(); i++) {
+        saved.get(i).offset = positions.get(i)[0];
+        saved.get(i).length = (int) positions.get(i)[1];
+      }
+    }
+    // The rename has to be on disk too before the journal that could replay the changes is
+    // emptied.
+    syncDirectory(parent);
+    snapshotSequence = sequence;
+    if (journal != null) {
+      journal.reset();
+    }
+  }
+
+  private static void syncDirectory(Path directory) throws IOException {
+    FileChannel channel;
+    try {
+      channel = FileChannel.open(directory, StandardOpenOption.READ);
+    } catch (IOException e) {
+      // Some platforms, Windows among them, cannot open a directory; their renames are
+      // durable once they return.
+      return;
+    }
+    try (FileChannel opened = channel) {
+      opened.force(true);
+    }
+  }
+
+  /**
+   * Closes the files backing the registry. Journaled changes are kept; without a journal,
+   * changes since the last save are lost.
+   *
+   * @throws IOException if the files cannot be closed.
+   */
+  @Override
+  public synchronized void close() throws IOException {
+    try {
+      if (journal != null) {
+        journal.close();
+      }
+    } finally {
+      closeChannel();
+    }
+  }
+
+  private void closeChannel() throws IOException {
+    synchronized (channelLock) {
+      if (channel != null) {
+        channel.close();
+        channel = null;
+      }
+    }
+  }
+
+  private FileChannel channel() throws IOException {
+    synchronized (channelLock) {
+      if (channel == null) {
+        channel = FileChannel.open(file, StandardOpenOption.READ);
+      }
+      return channel;
+    }
+  }
+
+  private void readIndex() throws IOException {
+    FileChannel in = channel();
+    long size = in.size();
+    if (size < HEADER_BYTES_WITHOUT_SEQUENCE + Integer.BYTES + TRAILER_BYTES) {
+      throw new IOException("Not a portfolio file: " + file);
+    }
+    ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+    header.limit(HEADER_BYTES_WITHOUT_SEQUENCE);
+    readFully(in, header, 0);
+    if (header.getInt(0) != MAGIC) {
+      throw new IOException("Not a portfolio file: " + file);
+    }
+    int headerBytes;
+    short version = header.getShort(4);
+    if (version == VERSION) {
+      headerBytes = HEADER_BYTES;
+      header.limit(HEADER_BYTES);
+      readFully(in, header, 0);
+      snapshotSequence = header.getLong(HEADER_BYTES_WITHOUT_SEQUENCE);
+    } else if (version == VERSION_WITHOUT_SEQUENCE) {
+      headerBytes = HEADER_BYTES_WITHOUT_SEQUENCE;
+    } else {
+      throw new IOException("Unsupported portfolio file version: " + version);
+    }
+    ByteBuffer trailer = ByteBuffer.allocate(TRAILER_BYTES);
+    readFully(in, trailer, size - TRAILER_BYTES);
+    long indexOffset = trailer.getLong(0);
+    if (trailer.getInt(Long.BYTES) != MAGIC || indexOffset < headerBytes
+            || indexOffset > size - TRAILER_BYTES) {
+      throw new IOException("Truncated portfolio file: " + file);
+    }
+
+    DataInputStream index = new DataInputStream(new BufferedInputStream(
+            Channels.newInputStream(in.position(indexOffset)), 1 << 16));
+    int count = index.readInt();
+    for (int i = 0; i < count; i++) {
+      String name = index.readUTF();
+      long offset = index.readLong();
+      int length = index.readInt();
+      if (offset < headerBytes || length < 0 || offset + length > indexOffset) {
+        throw new IOException("Corrupt portfolio index in " + file);
+      }
+      slots.put(name, new Slot(null, offset, length));
+    }
+  }
+
+  private byte[] readRecord(Slot slot) throws IOException {
+    synchronized (channelLock) {
+      ByteBuffer record = ByteBuffer.allocate(slot.length);
+      readFully(channel(), record, slot.offset);
+      return record.array();
+    }
+  }
+
+  private static void readFully(FileChannel in, ByteBuffer buffer, long position)
+          throws IOException {
+    while (buffer.hasRemaining()) {
+      int read = in.read(buffer, position + buffer.position());
+      if (read < 0) {
+        throw new IOException("Unexpected end of portfolio file");
+      }
+    }
+  }
+
+  static byte[] encode(Portfolio portfolio) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (DataOutputStream out = new DataOutputStream(bytes)) {
+      Map<String, Integer> stocks = portfolio.getStocks();
+      out.writeUTF(portfolio.getName());
+      out.writeInt(stocks.size());
+      for (Map.Entry<String, Integer> entry : stocks.entrySet()) {
+        out.writeUTF(entry.getKey());
+        out.writeInt(entry.getValue());
+      }
+      portfolio.getTrades().write(out);
+    }
+    return bytes.toByteArray();
+  }
+
+  static Portfolio decode(byte[] record) throws IOException {
+    DataInputStream in = new DataInputStream(new ByteArrayInputStream(record));
+    String name = in.readUTF();
+    int count = in.readInt();
+    Map<String, Integer> stocks = new LinkedHashMap<>();
+    for (int i = 0; i < count; i++) {
+      stocks.put(in.readUTF(), in.readInt());
+    }
+    Portfolio portfolio = Portfolio.createPortfolio(name, stocks);
+    // Records saved before trades were kept end after the holdings.
+    if (in.available() > 0) {
+      portfolio.getTrades().read(in);
+    }
+    return portfolio;
+  }
+
+  /**
+   * A portfolio in the registry: either already in memory, or only known by where its
+   * record is in the file. A stored portfolio is decoded once, on first use.
+   */
+  private static final class Slot {
+    private volatile Portfolio loaded;
+    // Where the record is in the file; guarded by the registry's channelLock.
+    private long offset;
+    private int length;
+
+    private Slot(Portfolio portfolio) {
+      this(portfolio, -1, 0);
+    }
+
+    private Slot(Portfolio loaded, long offset, int length) {
+      this.loaded = loaded;
+      this.offset = offset;
+      this.length = length;
+    }
+
+    private Portfolio portfolio(PortfolioRegistry registry) {
+      Portfolio portfolio = loaded;
+      if (portfolio != null) {
+        return portfolio;
+      }
+      synchronized (this) {
+        if (loaded == null) {
+          try {
+            loaded = decode(registry.readRecord(this));
+          } catch (IOException e) {
+            throw new RuntimeException("Could not read portfolio: " + e.getMessage());
+          }
+        }
+        return loaded;
+      }
+    }
+  }
+
+  /**
+   * A portfolio in the registry as callers outside it see it: everything can be read, and
+   * nothing can be changed without going through the registry.
+   */
+  private static final class ReadOnlyPortfolio implements IPortfolio {
+    private final Portfolio portfolio;
+
+    private ReadOnlyPortfolio(Portfolio portfolio) {
+      this.portfolio = portfolio;
+    }
+
+    @Override
+    public void addStock(String stockSymbol, int quantity) {
+      throw new UnsupportedOperationException("Add stocks through the portfolio registry.");
+    }
+
+    @Override
+    public double calculatePortfolioValue(String date, IAlphaAPIInterface api,
+                                          SeriesCache library) {
+      return portfolio.calculatePortfolioValue(date, api, library);
+    }
+
+    @Override
+    public ValueSeries calculatePortfolioValues(String from, String to, IAlphaAPIInterface api,
+                                                SeriesCache library) throws IOException {
+      return portfolio.calculatePortfolioValues(from, to, api, library);
+    }
+
+    @Override
+    public void buy(String stockSymbol, String date, int quantity, double price) {
+      throw new UnsupportedOperationException("Record trades through the portfolio registry.");
+    }
+
+    @Override
+    public void sell(String stockSymbol, String date, int quantity, double price) {
+      throw new UnsupportedOperationException("Record trades through the portfolio registry.");
+    }
+
+    @Override
+    public Position getPosition(String stockSymbol, String date, CostMethod method) {
+      return portfolio.getPosition(stockSymbol, date, method);
+    }
+
+    @Override
+    public Map<String, Position> getPositions(String date, CostMethod method) {
+      return portfolio.getPositions(date, method);
+    }
+
+    @Override
+    public String getName() {
+      return portfolio.getName();
+    }
+
+    @Override
+    public Map<String, Integer> getStocks() {
+      return Collections.unmodifiableMap(portfolio.getStocks());
+    }
+  }
+
+  private static final class CountingOutputStream extends FilterOutputStream {
+    private long count;
+
+    private CountingOutputStream(OutputStream out) {
+      super(out);
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+      out.write(b);
+      count++;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+      out.write(b, off, len);
+      count += len;
+    }
+  }
+}
@@ -0,0 +1,91 @@
+package Model;
+
+/**
+ * The shares of one stock a portfolio held on a date, what they cost, and the gain or loss
+ * realized by the sales up to that date.
+ */
+public final class Position {
+  private final String symbol;
+  private final String date;
+  private final long shares;
+  private final double costBasis;
+  private final double realizedGain;
+
+  Position(String symbol, String date, long shares, double costBasis, double realizedGain) {
+    this.symbol = symbol;
+    this.date = date;
+    this.shares = shares;
+    this.costBasis = costBasis;
+    this.realizedGain = realizedGain;
+  }
+
+  /**
+   * Returns the stock's ticker.
+   *
+   * @return String ticker.
+   */
+  public String getSymbol() {
+    return symbol;
+  }
+
+  /**
+   * Returns the date the position is as of.
+   *
+   * @return String date in yyyy-MM-dd format.
+   */
+  public String getDate() {
+    return date;
+  }
+
+  /**
+   * Returns the number of shares held.
+   *
+   * @return long shares.
+   */
+  public long getShares() {
+    return shares;
+  }
+
+  /**
+   * Returns what the shares held cost.
+   *
+   * @return double cost basis.
+   */
+  public double getCostBasis() {
+    return costBasis;
+  }
+
+  /**
+   * Returns the cost of each share held.
+   *
+   * @return double average cost, or 0 if no shares are held.
+   */
+  public double getAverageCost() {
+    return shares == 0 ? 0 : costBasis / shares;
+  }
+
+  /**
+   * Returns the gain, or loss if negative, realized by sales up to the date.
+   *
+   * @return double realized gain.
+   */
+  public double getRealizedGain() {
+    return realizedGain;
+  }
+
+  /**
+   * Returns the gain, or loss if negative, the shares held would realize if sold at a price.
+   *
+   * @param price double price per share.
+   * @return double unrealized gain.
+   */
+  public double getUnrealizedGain(double price) {
+    return shares * price - costBasis;
+  }
+
+  @Override
+  public String toString() {
+    return symbol + " on " + date + ": " + shares + " shares, cost " + costBasis
+            + ", realized " + realizedGain;
+  }
+}
@@ -0,0 +1,47 @@
+package Model;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Spaces out requests so that no more than a fixed number start in any minute.
+ * Callers that arrive too early wait for their turn; each caller is given the next free
+ * slot, so concurrent callers are spread evenly over the minute rather than bursting.
+ */
+public final class RateLimiter {
+  private final long intervalNanos;
+  private long nextFree;
+
+  /**
+   * Creates a limiter.
+   *
+   * @param permitsPerMinute int number of requests allowed per minute, or 0 or less for
+   *                         no limit.
+   */
+  public RateLimiter(int permitsPerMinute) {
+    this.intervalNanos = permitsPerMinute <= 0 ? 0 : TimeUnit.MINUTES.toNanos(1) / permitsPerMinute;
+    this.nextFree = System.nanoTime();
+  }
+
+  /**
+   * Waits until the caller may make its request.
+   *
+   * @throws InterruptedException if the thread is interrupted while waiting.
+   */
+  public void acquire() throws InterruptedException {
+    if (intervalNanos == 0) {
+      return;
+    }
+    long wait;
+    synchronized (this) {
+      long now = System.nanoTime();
+      if (nextFree - now < 0) {
+        nextFree = now;
+      }
+      wait = nextFree - now;
+      nextFree += intervalNanos;
+    }
+    if (wait > 0) {
+      TimeUnit.NANOSECONDS.sleep(wait);
+    }
+  }
+}
@@ -0,0 +1,106 @@
+package Model;
+
+/**
+ * A fixed-size window over a stream of values that keeps a running sum, so the mean of
+ * the last N values is available after every push in constant time.
+ * Adding and removing values from a running double sum slowly accumulates rounding error,
+ * so the sum is recomputed from the window contents every so often.
+ */
+public final class RollingWindow {
+  private static final int MIN_REBASE_INTERVAL = 1024;
+
+  private final double[] values;
+  private final int rebaseInterval;
+  private int count;
+  private int next;
+  private int sinceRebase;
+  private double sum;
+
+  /**
+   * Creates an empty window.
+   *
+   * @param size int number of values the window holds.
+   * @throws IllegalArgumentException if size is not positive.
+   */
+  public RollingWindow(int size) {
+    if (size <= 0) {
+      throw new IllegalArgumentException("Window size must be positive");
+    }
+    this.values = new double[size];
+    this.rebaseInterval = Math.max(size, MIN_REBASE_INTERVAL);
+  }
+
+  /**
+   * Adds a value, dropping the oldest one once the window is full.
+   *
+   * @param value double value to add.
+   */
+  public void push(double value) {
+    if (count == values.length) {
+      sum -= values[next];
+    } else {
+      count++;
+    }
+    values[next] = value;
+    sum += value;
+    next = next + 1 == values.length ? 0 : next + 1;
+    if (++sinceRebase == rebaseInterval) {
+      rebase();
+    }
+  }
+
+  /**
+   * Returns whether the window holds as many values as its size.
+   *
+   * @return boolean.
+   */
+  public boolean isFull() {
+    return count == values.length;
+  }
+
+  /**
+   * Returns the number of values currently in the window.
+   *
+   * @return int count.
+   */
+  public int count() {
+    return count;
+  }
+
+  /**
+   * Returns the sum of the values in the window.
+   *
+   * @return double sum.
+   */
+  public double sum() {
+    return sum;
+  }
+
+  /**
+   * Returns the mean of the values in the window.
+   *
+   * @return double mean, or NaN if the window is empty.
+   */
+  public double mean() {
+    return count == 0 ? Double.NaN : sum / count;
+  }
+
+  /**
+   * Empties the window.
+   */
+  public void clear() {
+    count = 0;
+    next = 0;
+    sinceRebase = 0;
+    sum = 0;
+  }
+
+  private void rebase() {
+    double fresh = 0;
+    for (int i = 0; i < count; i++) {
+      fresh += values[i];
+    }
+    sum = fresh;
+    sinceRebase = 0;
+  }
+}
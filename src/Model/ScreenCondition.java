@@ -0,0 +1,129 @@
+package Model;
+
+/**
+ * A condition the Screener tests every stock in the library against. A stock that meets
+ * it gets a score, and matches are ranked from the highest score down.
+ * Conditions are called from many threads at once, so they must not keep state between
+ * calls.
+ */
+@FunctionalInterface
+public interface ScreenCondition {
+
+  /**
+   * Scores a stock's history.
+   *
+   * @param stocks StockSeries of the stock.
+   * @return double score if the stock meets the condition, NaN if it does not.
+   */
+  double score(StockSeries stocks);
+
+  /**
+   * Stocks whose close crossed above their moving average on a date, as the crossover
+   * query counts crossovers. Scored by how far the close ended above the average, in
+   * percent.
+   *
+   * @param date String date in yyyy-MM-dd format.
+   * @param days int days in the moving average.
+   * @return ScreenCondition.
+   */
+  static ScreenCondition crossedAbove(String date, int days) {
+    return crossed(date, days, 1);
+  }
+
+  /**
+   * Stocks whose close crossed below their moving average on a date. Scored by how far
+   * the close ended below the average, in percent.
+   *
+   * @param date String date in yyyy-MM-dd format.
+   * @param days int days in the moving average.
+   * @return ScreenCondition.
+   */
+  static ScreenCondition crossedBelow(String date, int days) {
+    return crossed(date, days, -1);
+  }
+
+  private static ScreenCondition crossed(String date, int days, int direction) {
+    if (days <= 0) {
+      throw new IllegalArgumentException("Number of days cannot be negative or 0.");
+    }
+    int day = Dates.parse(date);
+    return stocks -> {
+      int row = stocks.indexOf(day);
+      if (row < days) {
+        return Double.NaN;
+      }
+      double close = stocks.closeAt(row);
+      double average = stocks.movingAverage(row, days);
+      if (Stock.side(close, average) != direction) {
+        return Double.NaN;
+      }
+      // A close exactly on its average does not end the side the price was on before it.
+      int before = 0;
+      for (int i = row - 1; i >= days - 1 && before == 0; i--) {
+        before = Stock.side(stocks.closeAt(i), stocks.movingAverage(i, days));
+      }
+      if (before != -direction) {
+        return Double.NaN;
+      }
+      return direction * (close - average) / average * 100;
+    };
+  }
+
+  /**
+   * Stocks whose close gained at least a percentage from one date to another. Scored by
+   * the gain in percent.
+   *
+   * @param from    String start date in yyyy-MM-dd format.
+   * @param to      String end date in yyyy-MM-dd format.
+   * @param percent double smallest gain that matches, negative to allow losses.
+   * @return ScreenCondition.
+   */
+  static ScreenCondition gainAtLeast(String from, String to, double percent) {
+    int first = Dates.parse(from);
+    int last = Dates.parse(to);
+    if (first > last) {
+      throw new RuntimeException("Start date must not be after end date.");
+    }
+    return stocks -> {
+      int startRow = stocks.indexOf(first);
+      int endRow = stocks.indexOf(last);
+      if (startRow < 0 || endRow < 0) {
+        return Double.NaN;
+      }
+      double start = stocks.closeAt(startRow);
+      double gain = (stocks.closeAt(endRow) - start) / start * 100;
+      return gain >= percent ? gain : Double.NaN;
+    };
+  }
+
+  /**
+   * Stocks that traded at least a multiple of their average volume over the days before a
+   * date. Scored by the multiple.
+   *
+   * @param date     String date in yyyy-MM-dd format.
+   * @param days     int number of earlier days averaged.
+   * @param multiple double smallest multiple that matches.
+   * @return ScreenCondition.
+   */
+  static ScreenCondition volumeSpike(String date, int days, double multiple) {
+    if (days <= 0) {
+      throw new IllegalArgumentException("Number of days cannot be negative or 0.");
+    }
+    int day = Dates.parse(date);
+    return stocks -> {
+      int row = stocks.indexOf(day);
+      if (row < days) {
+        return Double.NaN;
+      }
+      long total = 0;
+      for (int i = row - days; i < row; i++) {
+        total += stocks.volumeAt(i);
+      }
+      if (total == 0) {
+        return Double.NaN;
+      }
+      double ratio = stocks.volumeAt(row) / ((double) total / days);
+      return ratio >= multiple ? ratio : Double.NaN;
+    };
+  }
+}
@@ -0,0 +1,37 @@
+package Model;
+
+/**
+ * A stock that met a screen's condition, with the score it was ranked by.
+ */
+public final class ScreenMatch {
+  private final String symbol;
+  private final double score;
+
+  ScreenMatch(String symbol, double score) {
+    this.symbol = symbol;
+    this.score = score;
+  }
+
+  /**
+   * Returns the ticker.
+   *
+   * @return String symbol.
+   */
+  public String getSymbol() {
+    return symbol;
+  }
+
+  /**
+   * Returns the score the condition gave the stock.
+   *
+   * @return double score.
+   */
+  public double getScore() {
+    return score;
+  }
+
+  @Override
+  public String toString() {
+    return symbol + " " + score;
+  }
+}
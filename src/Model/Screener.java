@@ -0,0 +1,131 @@
+package Model;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Tests every stock in a library against a condition and ranks the ones that meet it.
+ * The symbols are split into ranges that are tested in parallel with fork/join. Each range
+ * collects its matches on its own, and nothing is shared between ranges until their lists
+ * are joined, so the work spreads across cores without contending. Cached series are
+ * read without marking them as used, and registered symbols that are not in memory are
+ * read from their sources without being added, so a screen neither reorders nor evicts
+ * the cache.
+ */
+public final class Screener {
+  private static final Metrics.Histogram SCREEN = Metrics.global().histogram("query.screen");
+
+  // Smallest range worth forking: testing a symbol costs well under a microsecond.
+  private static final int MIN_RANGE = 32;
+
+  private static final Comparator<ScreenMatch> RANKING =
+          Comparator.comparingDouble(ScreenMatch::getScore).reversed()
+                  .thenComparing(ScreenMatch::getSymbol);
+
+  private Screener() {
+  }
+
+  /**
+   * Screens a library on the common fork/join pool.
+   *
+   * @param library   SeriesCache whose cached and registered symbols are screened.
+   * @param condition ScreenCondition to test.
+   * @return List of matches, highest score first and by symbol among equal scores.
+   */
+  public static List<ScreenMatch> screen(SeriesCache library, ScreenCondition condition) {
+    return screen(library, condition, ForkJoinPool.commonPool());
+  }
+
+  /**
+   * Screens a library on a given fork/join pool.
+   *
+   * @param library   SeriesCache whose cached and registered symbols are screened.
+   * @param condition ScreenCondition to test.
+   * @param pool      ForkJoinPool to test on.
+   * @return List of matches, highest score first and by symbol among equal scores.
+   */
+  public static List<ScreenMatch> screen(SeriesCache library, ScreenCondition condition,
+                                         ForkJoinPool pool) {
+    long start = System.nanoTime();
+    try {
+      String[] symbols = library.allSymbols().toArray(new String[0]);
+      Arrays.sort(symbols);
+      // A few ranges per worker, so a worker that finishes early can steal.
+      int range = Math.max(MIN_RANGE, symbols.length / (pool.getParallelism() * 8));
+      List<ScreenMatch> matches = pool.invoke(
+              new Range(library, condition, symbols, 0, symbols.length, range));
+      matches.sort(RANKING);
+      return matches;
+    } finally {
+      SCREEN.recordSince(start);
+    }
+  }
+
+  private static final class Range extends RecursiveTask<List<ScreenMatch>> {
+    private static final long serialVersionUID = 1L;
+
+    private final SeriesCache library;
+    private final ScreenCondition condition;
+    private final String[] symbols;
+    private final int from;
+    private final int to;
+    private final int range;
+
+    private Range(SeriesCache library, ScreenCondition condition, String[] symbols, int from,
+                  int to, int range) {
+      this.library = library;
+      this.condition = condition;
+      this.symbols = symbols;
+      this.from = from;
+      this.to = to;
+      this.range = range;
+    }
+
+    @Override
+    protected List<ScreenMatch> compute() {
+      if (to - from <= range) {
+        return test();
+      }
+      int middle = (from + to) >>> 1;
+      Range left = new Range(library, condition, symbols, from, middle, range);
+      left.fork();
+      List<ScreenMatch> matches = new Range(library, condition, symbols, middle, to, range)
+              .compute();
+      List<ScreenMatch> leftMatches = left.join();
+      if (matches.isEmpty()) {
+        return leftMatches;
+      }
+      leftMatches.addAll(matches);
+      return leftMatches;
+    }
+
+    private List<ScreenMatch> test() {
+      List<ScreenMatch> matches = new ArrayList<>();
+      for (int i = from; i < to; i++) {
+        StockSeries stocks = series(symbols[i]);
+        if (stocks == null || stocks.isEmpty()) {
+          continue;
+        }
+        double score = condition.score(stocks);
+        if (!Double.isNaN(score)) {
+          matches.add(new ScreenMatch(symbols[i], score));
+        }
+      }
+      return matches;
+    }
+
+    private StockSeries series(String symbol) {
+      try {
+        return library.read(symbol);
+      } catch (IOException e) {
+        // A symbol whose data cannot be loaded cannot match; it is tried again next time.
+        return null;
+      }
+    }
+  }
+}
@@ -0,0 +1,538 @@
+package Model;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The library of price histories shared by the controller, the API and the models.
+ * It is safe to use from several threads: reads go straight to a concurrent map without
+ * locking, and a series is only added once it has been completely built. When several
+ * threads ask for the same missing symbol at once, only the first one loads it and the
+ * others wait for and share its result.
+ * The cache holds at most a configured number of bytes of series data. Once an insert
+ * goes over that budget, the least recently used symbols are dropped until it fits again,
+ * except for pinned symbols, which are never dropped. The symbols are sorted by last use
+ * only when the order from the previous sort runs out; symbols used since that sort are
+ * skipped, as they are newer than any symbol still in it, so an insert costs a sort only
+ * once per many evictions.
+ * A symbol can also be registered with a source instead of being added: its series is
+ * then only loaded the first time someone asks for it, or by a background warm-up.
+ */
+public class SeriesCache {
+
+  /**
+   * System property that sets the default memory budget, in megabytes.
+   */
+  public static final String MAX_MEGABYTES_PROPERTY = "stocks.cache.maxMegabytes";
+
+  private static final long DEFAULT_MAX_MEGABYTES = 256;
+
+  private static final Metrics.Counter HITS = Metrics.global().counter("cache.hits");
+  private static final Metrics.Counter MISSES = Metrics.global().counter("cache.misses");
+  private static final Metrics.Counter EVICTIONS = Metrics.global().counter("cache.evictions");
+  private static final Metrics.Histogram LOAD = Metrics.global().histogram("cache.load");
+
+  /**
+   * Loads the series for a symbol that is not in the cache yet.
+   */
+  @FunctionalInterface
+  public interface Loader {
+    /**
+     * Loads a symbol's price history.
+     *
+     * @param symbol String ticker.
+     * @return StockSeries for the ticker.
+     * @throws IOException if the data cannot be loaded.
+     */
+    StockSeries load(String symbol) throws IOException;
+  }
+
+  private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+  private final ConcurrentHashMap<String, CompletableFuture<StockSeries>> loading =
+          new ConcurrentHashMap<>();
+  private final ConcurrentHashMap<String, Loader> sources = new ConcurrentHashMap<>();
+  private final Set<String> pinned = ConcurrentHashMap.newKeySet();
+  private final long maxBytes;
+  private final AtomicLong bytes = new AtomicLong();
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder evictions = new LongAdder();
+  private final Object evictionLock = new Object();
+  // Symbols in least recently used order as of evictionOrderTime, consumed by evictions
+  // until empty and then sorted again; guarded by evictionLock.
+  private final ArrayDeque<String> evictionOrder = new ArrayDeque<>();
+  private long evictionOrderTime;
+
+  /**
+   * Creates a cache whose budget is read from the stocks.cache.maxMegabytes system
+   * property, 256 megabytes by default.
+   */
+  public SeriesCache() {
+    this(defaultMaxBytes());
+  }
+
+  /**
+   * Creates a cache with the given memory budget.
+   *
+   * @param maxBytes long number of bytes of series data to keep.
+   * @throws IllegalArgumentException if maxBytes is not positive.
+   */
+  public SeriesCache(long maxBytes) {
+    if (maxBytes <= 0) {
+      throw new IllegalArgumentException("Cache size must be positive");
+    }
+    this.maxBytes = maxBytes;
+  }
+
+  private static long defaultMaxBytes() {
+    long megabytes = DEFAULT_MAX_MEGABYTES;
+    String configured = System.getProperty(MAX_MEGABYTES_PROPERTY);
+    if (configured != null && !configured.isEmpty()) {
+      try {
+        megabytes = Long.parseLong(configured.trim());
+      } catch (NumberFormatException e) {
+        throw new IllegalArgumentException("Invalid " + MAX_MEGABYTES_PROPERTY + ": " + configured);
+      }
+    }
+    return megabytes >= Long.MAX_VALUE >> 20 ? Long.MAX_VALUE : megabytes << 20;
+  }
+
+  /**
+   * Returns the series for a symbol. A registered symbol is loaded from its source if it
+   * is not in memory.
+   *
+   * @param symbol String ticker.
+   * @return StockSeries, or null if the symbol is neither cached nor registered.
+   * @throws UncheckedIOException if the registered source cannot be loaded.
+   */
+  public StockSeries get(String symbol) {
+    StockSeries series = lookup(symbol);
+    if (series != null || !sources.containsKey(symbol)) {
+      return series;
+    }
+    try {
+      return getOrLoad(symbol, sources.get(symbol));
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Returns a cached series without counting a hit or marking it as recently used, for
+   * scans over the whole cache that should not reorder it. Every call to get writes the
+   * entry's last-use time, which many threads scanning at once would contend on.
+   *
+   * @param symbol String ticker.
+   * @return StockSeries, or null if the symbol is not in memory.
+   */
+  StockSeries peek(String symbol) {
+    Entry entry = entries.get(symbol);
+    return entry == null ? null : entry.series;
+  }
+
+  /**
+   * Returns a cached series as peek does, or reads a registered symbol from its source
+   * without adding it, so a scan over every symbol does not evict the working set.
+   *
+   * @param symbol String ticker.
+   * @return StockSeries, or null if the symbol is neither cached nor registered.
+   * @throws IOException if the registered source cannot be loaded.
+   */
+  StockSeries read(String symbol) throws IOException {
+    StockSeries series = peek(symbol);
+    if (series != null) {
+      return series;
+    }
+    Loader source = sources.get(symbol);
+    return source == null ? null : source.load(symbol);
+  }
+
+  private StockSeries lookup(String symbol) {
+    Entry entry = entries.get(symbol);
+    if (entry == null) {
+      return null;
+    }
+    hits.increment();
+    HITS.increment();
+    entry.touch();
+    return entry.series;
+  }
+
+  /**
+   * Returns whether a symbol is cached.
+   *
+   * @param symbol String ticker.
+   * @return boolean.
+   */
+  public boolean containsKey(String symbol) {
+    return entries.containsKey(symbol);
+  }
+
+  /**
+   * Adds or replaces the series for a symbol.
+   * Putting a series that was appended to since it was added updates its size.
+   *
+   * @param symbol String ticker.
+   * @param series StockSeries for the ticker.
+   */
+  public void put(String symbol, StockSeries series) {
+    Entry entry = new Entry(series);
+    Entry old = entries.put(symbol, entry);
+    bytes.addAndGet(entry.bytes - (old == null ? 0 : old.bytes));
+    evictIfNeeded();
+  }
+
+  /**
+   * Updates the size counted for a cached series that has grown in place, such as by the
+   * indicators computed over it, and evicts if that takes the cache over budget. Does
+   * nothing if the symbol now holds a different series or is not cached.
+   *
+   * @param symbol String ticker.
+   * @param series StockSeries that grew.
+   */
+  void remeasure(String symbol, StockSeries series) {
+    Entry old = entries.get(symbol);
+    if (old == null || old.series != series) {
+      return;
+    }
+    Entry entry = new Entry(series);
+    if (entry.bytes != old.bytes && entries.replace(symbol, old, entry)) {
+      bytes.addAndGet(entry.bytes - old.bytes);
+      evictIfNeeded();
+    }
+  }
+
+  /**
+   * Adds the series for a symbol unless one is already cached.
+   *
+   * @param symbol String ticker.
+   * @param series StockSeries for the ticker.
+   * @return StockSeries already cached, or null if the given one was added.
+   */
+  public StockSeries putIfAbsent(String symbol, StockSeries series) {
+    Entry entry = new Entry(series);
+    Entry old = entries.putIfAbsent(symbol, entry);
+    if (old != null) {
+      return old.series;
+    }
+    bytes.addAndGet(entry.bytes);
+    evictIfNeeded();
+    return null;
+  }
+
+  /**
+   * Removes a symbol from the cache.
+   *
+   * @param symbol String ticker.
+   * @return StockSeries that was removed, or null.
+   */
+  public StockSeries remove(String symbol) {
+    Entry old = entries.remove(symbol);
+    if (old == null) {
+      return null;
+    }
+    bytes.addAndGet(-old.bytes);
+    return old.series;
+  }
+
+  /**
+   * Registers where a symbol's series comes from without loading it. The source is used
+   * instead of any other loader whenever the symbol is not in memory.
+   *
+   * @param symbol String ticker.
+   * @param source Loader that reads the symbol's series.
+   */
+  public void register(String symbol, Loader source) {
+    sources.put(symbol, source);
+  }
+
+  /**
+   * Returns whether a symbol has a registered source.
+   *
+   * @param symbol String ticker.
+   * @return boolean.
+   */
+  public boolean isRegistered(String symbol) {
+    return sources.containsKey(symbol);
+  }
+
+  /**
+   * Loads every registered symbol that is not in memory yet, in parallel on the given
+   * executor. A symbol that fails to load is skipped and tried again when it is next used.
+   *
+   * @param executor Executor the loads run on.
+   * @return CompletableFuture completed once every load has finished.
+   */
+  public CompletableFuture<Void> warmUp(Executor executor) {
+    List<CompletableFuture<Void>> loads = new ArrayList<>();
+    for (Map.Entry<String, Loader> source : sources.entrySet()) {
+      if (entries.containsKey(source.getKey())) {
+        continue;
+      }
+      loads.add(CompletableFuture.runAsync(() -> {
+        try {
+          getOrLoad(source.getKey(), source.getValue());
+        } catch (IOException | RuntimeException e) {
+          // Loaded again on first use.
+        }
+      }, executor));
+    }
+    return CompletableFuture.allOf(loads.toArray(new CompletableFuture<?>[0]));
+  }
+
+  /**
+   * Keeps a symbol in the cache regardless of the memory budget.
+   * A symbol can be pinned before it is added.
+   *
+   * @param symbol String ticker.
+   */
+  public void pin(String symbol) {
+    pinned.add(symbol);
+  }
+
+  /**
+   * Lets a pinned symbol be evicted again.
+   *
+   * @param symbol String ticker.
+   */
+  public void unpin(String symbol) {
+    pinned.remove(symbol);
+    synchronized (evictionLock) {
+      // The queue left pinned symbols out; sort again so this one takes its place.
+      evictionOrder.clear();
+    }
+    evictIfNeeded();
+  }
+
+  /**
+   * Returns whether a symbol is pinned.
+   *
+   * @param symbol String ticker.
+   * @return boolean.
+   */
+  public boolean isPinned(String symbol) {
+    return pinned.contains(symbol);
+  }
+
+  /**
+   * Returns the number of cached symbols.
+   *
+   * @return int size.
+   */
+  public int size() {
+    return entries.size();
+  }
+
+  /**
+   * Returns a snapshot of the cached symbols.
+   *
+   * @return Set of tickers.
+   */
+  public Set<String> symbols() {
+    return Collections.unmodifiableSet(new HashSet<>(entries.keySet()));
+  }
+
+  /**
+   * Returns a snapshot of the symbols that are cached or registered.
+   *
+   * @return Set of tickers.
+   */
+  public Set<String> allSymbols() {
+    Set<String> symbols = new HashSet<>(entries.keySet());
+    symbols.addAll(sources.keySet());
+    return Collections.unmodifiableSet(symbols);
+  }
+
+  /**
+   * Returns the estimated memory held by the cached series.
+   *
+   * @return long bytes.
+   */
+  public long sizeInBytes() {
+    return bytes.get();
+  }
+
+  /**
+   * Returns the memory budget of the cache.
+   *
+   * @return long bytes.
+   */
+  public long getMaxBytes() {
+    return maxBytes;
+  }
+
+  /**
+   * Returns the cache's hit, miss and eviction counts and its current memory use.
+   *
+   * @return CacheStats snapshot.
+   */
+  public CacheStats stats() {
+    return new CacheStats(hits.sum(), misses.sum(), evictions.sum(), entries.size(),
+            bytes.get(), maxBytes);
+  }
+
+  /**
+   * Returns the series for a symbol, loading it if it is not cached.
+   * Concurrent calls for the same missing symbol share a single call to the loader.
+   * A registered symbol is always loaded from its own source.
+   *
+   * @param symbol String ticker.
+   * @param loader Loader used if the symbol is not cached.
+   * @return StockSeries for the ticker.
+   * @throws IOException if the loader fails.
+   */
+  public StockSeries getOrLoad(String symbol, Loader loader) throws IOException {
+    StockSeries series = lookup(symbol);
+    if (series != null) {
+      return series;
+    }
+
+    CompletableFuture<StockSeries> mine = new CompletableFuture<>();
+    CompletableFuture<StockSeries> inFlight = loading.putIfAbsent(symbol, mine);
+    if (inFlight != null) {
+      series = await(inFlight);
+      hits.increment();
+      HITS.increment();
+      return series;
+    }
+
+    try {
+      // Another thread may have finished loading between the first check and now.
+      series = lookup(symbol);
+      if (series == null) {
+        misses.increment();
+        MISSES.increment();
+        Loader source = sources.get(symbol);
+        long start = System.nanoTime();
+        try {
+          series = (source != null ? source : loader).load(symbol);
+        } finally {
+          LOAD.recordSince(start);
+        }
+        if (series == null) {
+          throw new IOException("No data loaded for the symbol: " + symbol);
+        }
+        StockSeries raced = putIfAbsent(symbol, series);
+        if (raced != null) {
+          series = raced;
+        }
+      }
+      mine.complete(series);
+      return series;
+    } catch (IOException | RuntimeException | Error e) {
+      mine.completeExceptionally(e);
+      throw e;
+    } finally {
+      loading.remove(symbol, mine);
+    }
+  }
+
+  private void evictIfNeeded() {
+    if (bytes.get() <= maxBytes) {
+      return;
+    }
+    synchronized (evictionLock) {
+      boolean sorted = false;
+      while (bytes.get() > maxBytes) {
+        String symbol = evictionOrder.poll();
+        if (symbol == null) {
+          // Sorting twice in one call only happens when every candidate was used while
+          // this thread evicted; the next insert tries again.
+          if (sorted || !sortEvictionOrder()) {
+            return;
+          }
+          sorted = true;
+          continue;
+        }
+        Entry entry = entries.get(symbol);
+        // An entry used or replaced since the sort is newer than every symbol still queued,
+        // and is ordered again by the next sort.
+        if (entry == null || entry.lastAccess > evictionOrderTime || pinned.contains(symbol)) {
+          continue;
+        }
+        if (entries.remove(symbol, entry)) {
+          bytes.addAndGet(-entry.bytes);
+          evictions.increment();
+          EVICTIONS.increment();
+        }
+      }
+    }
+  }
+
+  /**
+   * Queues every unpinned symbol, least recently used first. Called with evictionLock held,
+   * once the previous queue is used up, so one sort serves many evictions.
+   */
+  private boolean sortEvictionOrder() {
+    evictionOrderTime = System.nanoTime();
+    List<Map.Entry<String, Entry>> candidates = new ArrayList<>();
+    for (Map.Entry<String, Entry> candidate : entries.entrySet()) {
+      if (!pinned.contains(candidate.getKey())) {
+        candidates.add(candidate);
+      }
+    }
+    candidates.sort(Comparator.comparingLong(candidate -> candidate.getValue().lastAccess));
+    for (Map.Entry<String, Entry> candidate : candidates) {
+      evictionOrder.add(candidate.getKey());
+    }
+    return !candidates.isEmpty();
+  }
+
+  private static StockSeries await(CompletableFuture<StockSeries> future) throws IOException {
+    try {
+      return future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while waiting for data", e);
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof IOException) {
+        throw (IOException) cause;
+      }
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw new IOException(cause);
+    }
+  }
+
+  /**
+   * A cached series with its size at the time it was added and the System.nanoTime of its
+   * last use. Each entry keeps its own time rather than taking a tick from a shared
+   * counter, so concurrent hits on different symbols never touch the same memory. The time
+   * is written without synchronization, so the eviction order is only approximately least
+   * recently used when threads race.
+   */
+  private static final class Entry {
+    private final StockSeries series;
+    private final long bytes;
+    private volatile long lastAccess;
+
+    private Entry(StockSeries series) {
+      this.series = series;
+      this.bytes = series.sizeInBytes();
+      this.lastAccess = System.nanoTime();
+    }
+
+    private void touch() {
+      lastAccess = System.nanoTime();
+    }
+  }
+}
@@ -0,0 +1,321 @@
+package Model;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reads timestamp,open,high,low,close,volume CSV data, as bundled with the application and
+ * returned by Alpha Vantage, straight from bytes into a StockSeries.Builder.
+ * Rows are parsed in place in the read buffer, so no strings or boxed numbers are created
+ * for them. Dates may be written as yyyy-MM-dd or M/d/yyyy.
+ * Rows that cannot be parsed are skipped and counted.
+ */
+public final class SeriesCsvParser {
+  private static final int BUFFER_SIZE = 1 << 16;
+
+  // Powers of ten that are exact doubles. A decimal with at most 15 significant digits
+  // divided by one of them gives the correctly rounded result.
+  private static final double[] POWERS_OF_TEN = {
+          1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+          1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+  };
+  private static final long MAX_EXACT_MANTISSA = 1L << 53;
+
+  private static final Metrics.Histogram PARSE = Metrics.global().histogram("parse.csv");
+  private static final Metrics.Counter ROWS = Metrics.global().counter("parse.rows");
+  private static final Metrics.Counter MALFORMED = Metrics.global().counter("parse.malformed");
+
+  private final InputStream in;
+  private byte[] buffer = new byte[BUFFER_SIZE];
+  private int limit;
+  private int position;
+  private boolean endOfInput;
+
+  // Cursor over the line being parsed.
+  private int field;
+  private int lineEnd;
+
+  private SeriesCsvParser(InputStream in) {
+    this.in = in;
+  }
+
+  /**
+   * Parses a CSV stream into a series. The first line is taken to be the header.
+   *
+   * @param in InputStream of CSV data, not closed by this method.
+   * @return StockSeries of the rows that could be parsed.
+   * @throws IOException if the stream cannot be read.
+   */
+  public static StockSeries parse(InputStream in) throws IOException {
+    StockSeries.Builder builder = new StockSeries.Builder(0);
+    parse(in, builder);
+    return builder.build();
+  }
+
+  /**
+   * Parses a CSV stream into a builder. The first line is taken to be the header.
+   *
+   * @param in      InputStream of CSV data, not closed by this method.
+   * @param builder StockSeries.Builder the rows are added to.
+   * @return int number of rows that were skipped because they could not be parsed.
+   * @throws IOException if the stream cannot be read.
+   */
+  public static int parse(InputStream in, StockSeries.Builder builder) throws IOException {
+    long start = System.nanoTime();
+    try {
+      return new SeriesCsvParser(in).readAll(builder);
+    } finally {
+      PARSE.recordSince(start);
+    }
+  }
+
+  private int readAll(StockSeries.Builder builder) throws IOException {
+    int rows = 0;
+    int malformed = 0;
+    boolean header = true;
+    while (nextLine()) {
+      if (header) {
+        header = false;
+        continue;
+      }
+      if (field == lineEnd) {
+        continue;
+      }
+      if (parseRow(builder)) {
+        rows++;
+      } else {
+        malformed++;
+      }
+    }
+    // Counted once per stream rather than per row, to keep the row loop free of shared
+    // writes.
+    ROWS.add(rows);
+    MALFORMED.add(malformed);
+    return malformed;
+  }
+
+  /**
+   * Moves the cursor to the next line, reading more input as needed.
+   * On return the line occupies buffer[field, lineEnd) without its line terminator.
+   */
+  private boolean nextLine() throws IOException {
+    while (true) {
+      for (int i = position; i < limit; i++) {
+        if (buffer[i] == '\n') {
+          setLine(position, i);
+          position = i + 1;
+          return true;
+        }
+      }
+      if (endOfInput) {
+        if (position < limit) {
+          setLine(position, limit);
+          position = limit;
+          return true;
+        }
+        return false;
+      }
+      fill();
+    }
+  }
+
+  private void setLine(int start, int end) {
+    if (end > start && buffer[end - 1] == '\r') {
+      end--;
+    }
+    field = start;
+    lineEnd = end;
+  }
+
+  private void fill() throws IOException {
+    if (position > 0) {
+      System.arraycopy(buffer, position, buffer, 0, limit - position);
+      limit -= position;
+      position = 0;
+    } else if (limit == buffer.length) {
+      // A single line longer than the buffer.
+      byte[] larger = new byte[buffer.length * 2];
+      System.arraycopy(buffer, 0, larger, 0, limit);
+      buffer = larger;
+    }
+    int read = in.read(buffer, limit, buffer.length - limit);
+    if (read < 0) {
+      endOfInput = true;
+    } else {
+      limit += read;
+    }
+  }
+
+  private boolean parseRow(StockSeries.Builder builder) {
+    int day = parseDate(field, fieldEnd());
+    if (day == Integer.MIN_VALUE || !nextField()) {
+      return false;
+    }
+    double o = parseDouble(field, fieldEnd());
+    if (!nextField()) {
+      return false;
+    }
+    double h = parseDouble(field, fieldEnd());
+    if (!nextField()) {
+      return false;
+    }
+    double l = parseDouble(field, fieldEnd());
+    if (!nextField()) {
+      return false;
+    }
+    double c = parseDouble(field, fieldEnd());
+    if (!nextField()) {
+      return false;
+    }
+    long v = parseLong(field, fieldEnd());
+    if (Double.isNaN(o) || Double.isNaN(h) || Double.isNaN(l) || Double.isNaN(c) || v < 0) {
+      return false;
+    }
+    builder.add(day, o, h, l, c, v);
+    return true;
+  }
+
+  private int fieldEnd() {
+    for (int i = field; i < lineEnd; i++) {
+      if (buffer[i] == ',') {
+        return i;
+      }
+    }
+    return lineEnd;
+  }
+
+  private boolean nextField() {
+    int end = fieldEnd();
+    if (end == lineEnd) {
+      return false;
+    }
+    field = end + 1;
+    return true;
+  }
+
+  /**
+   * Parses yyyy-M-d or M/d/yyyy.
+   *
+   * @return int epoch day, or Integer.MIN_VALUE if the field is not a valid date.
+   */
+  private int parseDate(int start, int end) {
+    int first = -1;
+    int second = -1;
+    int third = -1;
+    int part = 0;
+    int value = 0;
+    int digits = 0;
+    byte separator = 0;
+    for (int i = start; i <= end; i++) {
+      byte b = i < end ? buffer[i] : (byte) ',';
+      if (b >= '0' && b <= '9') {
+        if (++digits > 4) {
+          return Integer.MIN_VALUE;
+        }
+        value = value * 10 + (b - '0');
+        continue;
+      }
+      if (i < end) {
+        if (b != '-' && b != '/' || (separator != 0 && b != separator)) {
+          return Integer.MIN_VALUE;
+        }
+        separator = b;
+      }
+      if (digits == 0) {
+        return Integer.MIN_VALUE;
+      }
+      if (part == 0) {
+        first = value;
+      } else if (part == 1) {
+        second = value;
+      } else if (part == 2) {
+        third = value;
+      } else {
+        return Integer.MIN_VALUE;
+      }
+      part++;
+      value = 0;
+      digits = 0;
+    }
+    if (part != 3) {
+      return Integer.MIN_VALUE;
+    }
+    int year = separator == '/' ? third : first;
+    int month = separator == '/' ? first : second;
+    int day = separator == '/' ? second : third;
+    return Dates.isValid(year, month, day) ? Dates.epochDay(year, month, day) : Integer.MIN_VALUE;
+  }
+
+  /**
+   * Parses a plain decimal such as 176.81 or -0.5.
+   * Anything the fast path does not handle exactly falls back to Double.parseDouble.
+   *
+   * @return double value, or NaN if the field is not a number.
+   */
+  private double parseDouble(int start, int end) {
+    int i = start;
+    boolean negative = false;
+    if (i < end && (buffer[i] == '-' || buffer[i] == '+')) {
+      negative = buffer[i] == '-';
+      i++;
+    }
+    long mantissa = 0;
+    int scale = 0;
+    int digits = 0;
+    boolean point = false;
+    for (; i < end; i++) {
+      byte b = buffer[i];
+      if (b >= '0' && b <= '9') {
+        if (mantissa >= MAX_EXACT_MANTISSA / 10) {
+          return parseDoubleSlowly(start, end);
+        }
+        mantissa = mantissa * 10 + (b - '0');
+        digits++;
+        if (point) {
+          scale++;
+        }
+      } else if (b == '.' && !point) {
+        point = true;
+      } else {
+        return parseDoubleSlowly(start, end);
+      }
+    }
+    if (digits == 0) {
+      return Double.NaN;
+    }
+    if (scale >= POWERS_OF_TEN.length) {
+      return parseDoubleSlowly(start, end);
+    }
+    double value = mantissa / POWERS_OF_TEN[scale];
+    return negative ? -value : value;
+  }
+
+  private double parseDoubleSlowly(int start, int end) {
+    try {
+      return Double.parseDouble(new String(buffer, start, end - start, StandardCharsets.US_ASCII));
+    } catch (NumberFormatException e) {
+      return Double.NaN;
+    }
+  }
+
+  /**
+   * Parses a non-negative whole number.
+   *
+   * @return long value, or -1 if the field is not a whole number.
+   */
+  private long parseLong(int start, int end) {
+    if (start == end || end - start > 18) {
+      return -1;
+    }
+    long value = 0;
+    for (int i = start; i < end; i++) {
+      byte b = buffer[i];
+      if (b < '0' || b > '9') {
+        return -1;
+      }
+      value = value * 10 + (b - '0');
+    }
+    return value;
+  }
+}
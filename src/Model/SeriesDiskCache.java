@@ -0,0 +1,119 @@
+package Model;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Locale;
+
+/**
+ * A directory of SeriesFiles, one per ticker, that keeps downloaded histories across
+ * restarts so they do not have to be fetched from Alpha Vantage again.
+ */
+public class SeriesDiskCache {
+  /**
+   * System property that overrides the default cache directory.
+   */
+  public static final String DIRECTORY_PROPERTY = "stocks.cache.dir";
+
+  private static final String EXTENSION = ".series";
+
+  private final Path directory;
+
+  /**
+   * Creates a cache stored in the given directory. The directory is created on first write.
+   *
+   * @param directory Path of the cache directory.
+   */
+  public SeriesDiskCache(Path directory) {
+    this.directory = directory;
+  }
+
+  /**
+   * Returns a cache in the directory named by the stocks.cache.dir system property,
+   * or in .stocks/cache under the user's home directory.
+   *
+   * @return SeriesDiskCache.
+   */
+  public static SeriesDiskCache defaultCache() {
+    String configured = System.getProperty(DIRECTORY_PROPERTY);
+    if (configured != null && !configured.isEmpty()) {
+      return new SeriesDiskCache(Paths.get(configured));
+    }
+    return new SeriesDiskCache(Paths.get(System.getProperty("user.home"), ".stocks", "cache"));
+  }
+
+  /**
+   * Loads a ticker's cached history.
+   * A file that cannot be read is deleted so the ticker is fetched again.
+   *
+   * @param symbol String ticker.
+   * @return StockSeries, or null if the ticker is not cached.
+   */
+  public StockSeries load(String symbol) {
+    Path file = fileFor(symbol);
+    if (file == null || !Files.isRegularFile(file)) {
+      return null;
+    }
+    try {
+      return SeriesFile.read(file);
+    } catch (IOException e) {
+      try {
+        Files.deleteIfExists(file);
+      } catch (IOException ignored) {
+        // A later store will replace the file anyway.
+      }
+      return null;
+    }
+  }
+
+  /**
+   * Stores a ticker's history, replacing any cached copy.
+   *
+   * @param symbol String ticker.
+   * @param series StockSeries to store.
+   * @throws IOException if the file cannot be written.
+   */
+  public void store(String symbol, StockSeries series) throws IOException {
+    Path file = fileFor(symbol);
+    if (file == null) {
+      throw new IOException("Cannot cache data for the symbol: " + symbol);
+    }
+    SeriesFile.write(series, file);
+  }
+
+  /**
+   * Removes a ticker from the cache.
+   *
+   * @param symbol String ticker.
+   * @throws IOException if the file cannot be deleted.
+   */
+  public void evict(String symbol) throws IOException {
+    Path file = fileFor(symbol);
+    if (file != null) {
+      Files.deleteIfExists(file);
+    }
+  }
+
+  /**
+   * Returns the cache directory.
+   *
+   * @return Path directory.
+   */
+  public Path getDirectory() {
+    return directory;
+  }
+
+  private Path fileFor(String symbol) {
+    if (symbol == null || symbol.isEmpty()) {
+      return null;
+    }
+    for (int i = 0; i < symbol.length(); i++) {
+      char c = symbol.charAt(i);
+      if (!Character.isLetterOrDigit(c) && c != '.' && c != '-') {
+        return null;
+      }
+    }
+    return directory.resolve(symbol.toUpperCase(Locale.ROOT) + EXTENSION);
+  }
+}
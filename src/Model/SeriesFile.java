@@ -0,0 +1,157 @@
+package Model;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads and writes a StockSeries in a compact binary format.
+ * A file is a fixed header (magic number, format version, row count) followed by
+ * each column stored whole: epoch days, then open, high, low and close prices, then
+ * volumes. Reading maps the file and copies every column with a single bulk get.
+ * The same format is used for the disk cache and for the snapshots of bundled CSVs.
+ */
+public final class SeriesFile {
+  static final int MAGIC = 0x53544B53; // "STKS"
+  static final short VERSION = 1;
+  static final int HEADER_BYTES = 12;
+  static final int ROW_BYTES = Integer.BYTES + 4 * Double.BYTES + Long.BYTES;
+
+  private SeriesFile() {
+  }
+
+  /**
+   * Writes a series to a file, replacing any existing file atomically.
+   *
+   * @param series StockSeries to write.
+   * @param file   Path of the file.
+   * @throws IOException if the file cannot be written.
+   */
+  public static void write(StockSeries series, Path file) throws IOException {
+    ByteBuffer buffer = encode(series);
+    Path parent = file.toAbsolutePath().getParent();
+    Files.createDirectories(parent);
+    Path temp = Files.createTempFile(parent, file.getFileName().toString(), ".tmp");
+    try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+      while (buffer.hasRemaining()) {
+        channel.write(buffer);
+      }
+    } catch (IOException e) {
+      Files.deleteIfExists(temp);
+      throw e;
+    }
+    Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+  }
+
+  /**
+   * Reads a series from a file by memory-mapping it.
+   *
+   * @param file Path of the file.
+   * @return StockSeries read from the file.
+   * @throws IOException if the file cannot be read or is not a valid series file.
+   */
+  public static StockSeries read(Path file) throws IOException {
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+      return decode(buffer);
+    }
+  }
+
+  /**
+   * Reads a series from a stream, such as a resource inside a jar, with a single bulk read.
+   *
+   * @param in InputStream positioned at the start of a series file, not closed by this method.
+   * @return StockSeries read from the stream.
+   * @throws IOException if the stream cannot be read or does not hold a valid series.
+   */
+  public static StockSeries read(InputStream in) throws IOException {
+    return decode(ByteBuffer.wrap(in.readAllBytes()));
+  }
+
+  /**
+   * Encodes a series into a buffer positioned at 0.
+   *
+   * @param series StockSeries to encode.
+   * @return ByteBuffer holding the encoded series.
+   */
+  public static ByteBuffer encode(StockSeries series) {
+    int rows = series.size();
+    ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + rows * ROW_BYTES);
+    buffer.putInt(MAGIC).putShort(VERSION).putShort((short) 0).putInt(rows);
+    for (int i = 0; i < rows; i++) {
+      buffer.putInt(series.dayAt(i));
+    }
+    for (int i = 0; i < rows; i++) {
+      buffer.putDouble(series.openAt(i));
+    }
+    for (int i = 0; i < rows; i++) {
+      buffer.putDouble(series.highAt(i));
+    }
+    for (int i = 0; i < rows; i++) {
+      buffer.putDouble(series.lowAt(i));
+    }
+    for (int i = 0; i < rows; i++) {
+      buffer.putDouble(series.closeAt(i));
+    }
+    for (int i = 0; i < rows; i++) {
+      buffer.putLong(series.volumeAt(i));
+    }
+    buffer.flip();
+    return buffer;
+  }
+
+  /**
+   * Decodes a series from a buffer starting at its current position.
+   *
+   * @param buffer ByteBuffer holding an encoded series.
+   * @return StockSeries.
+   * @throws IOException if the buffer does not hold a valid series.
+   */
+  public static StockSeries decode(ByteBuffer buffer) throws IOException {
+    if (buffer.remaining() < HEADER_BYTES || buffer.getInt() != MAGIC) {
+      throw new IOException("Not a stock series file");
+    }
+    short version = buffer.getShort();
+    if (version != VERSION) {
+      throw new IOException("Unsupported stock series file version: " + version);
+    }
+    buffer.getShort();
+    int rows = buffer.getInt();
+    if (rows < 0 || (long) rows * ROW_BYTES > buffer.remaining()) {
+      throw new IOException("Truncated stock series file");
+    }
+
+    int[] days = new int[rows];
+    double[] open = new double[rows];
+    double[] high = new double[rows];
+    double[] low = new double[rows];
+    double[] close = new double[rows];
+    long[] volume = new long[rows];
+    buffer.asIntBuffer().get(days);
+    buffer.position(buffer.position() + rows * Integer.BYTES);
+    readColumn(buffer, open);
+    readColumn(buffer, high);
+    readColumn(buffer, low);
+    readColumn(buffer, close);
+    buffer.asLongBuffer().get(volume);
+    buffer.position(buffer.position() + rows * Long.BYTES);
+
+    for (int i = 1; i < rows; i++) {
+      if (days[i - 1] >= days[i]) {
+        throw new IOException("Stock series file is not in strictly ascending date order");
+      }
+    }
+    return StockSeries.wrap(days, open, high, low, close, volume, rows);
+  }
+
+  private static void readColumn(ByteBuffer buffer, double[] column) {
+    buffer.asDoubleBuffer().get(column);
+    buffer.position(buffer.position() + column.length * Double.BYTES);
+  }
+}
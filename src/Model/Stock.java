@@ -1,9 +1,8 @@
 package Model;
 
 import java.io.IOException;
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
-import java.util.*;
+import java.util.List;
+import java.util.Map;
 
 /**
  * Represents a Stock.
@@ -13,13 +12,18 @@ import java.util.*;
  */
 
 public class Stock implements IStock {
-  private final String date;
+  private final int day;
   private final double openingPrice;
   private final double closingPrice;
   private final double highPrice;
   private final double lowPrice;
   private final int volume;
 
+  private static final Metrics.Histogram GAIN = Metrics.global().histogram("query.gain");
+  private static final Metrics.Histogram AVERAGE = Metrics.global().histogram("query.average");
+  private static final Metrics.Histogram CROSSOVER =
+          Metrics.global().histogram("query.crossover");
+
   /**
    * Constructor for stock.
    *
@@ -34,7 +38,23 @@ public class Stock implements IStock {
   public Stock(String date, double openingPrice,
                double highPrice, double lowPrice,
                double closingPrice, int volume) {
-    this.date = date;
+    this(Dates.parse(date), openingPrice, highPrice, lowPrice, closingPrice, volume);
+  }
+
+  /**
+   * Constructor used by StockSeries to view one of its rows.
+   *
+   * @param day          int epoch day.
+   * @param openingPrice double opening price for the day.
+   * @param highPrice    double high price for the day.
+   * @param lowPrice     double low price for the day.
+   * @param closingPrice double closing price for the day.
+   * @param volume       int volume number of shares traded for the day.
+   */
+  Stock(int day, double openingPrice,
+        double highPrice, double lowPrice,
+        double closingPrice, int volume) {
+    this.day = day;
     this.openingPrice = openingPrice;
     this.closingPrice = closingPrice;
     this.highPrice = highPrice;
@@ -49,7 +69,16 @@ public class Stock implements IStock {
    */
 
   public String getDate() {
-    return date;
+    return Dates.format(day);
+  }
+
+  /**
+   * Returns the date as days since 1970-01-01.
+   *
+   * @return int epoch day.
+   */
+  int getEpochDay() {
+    return day;
   }
 
   /**
@@ -113,51 +142,40 @@ public class Stock implements IStock {
    * @throws IOException if no data available.
    */
 
-  public static double viewGainLoss(String symbol, String startDateStr, String endDateStr, IAlphaAPIInterface api, Map<String, List<Stock>> library) throws IOException {
-    List<Stock> stocks = api.fetchData(symbol, library);
-    SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd");
+  public static double viewGainLoss(String symbol, String startDateStr, String endDateStr, IAlphaAPIInterface api, SeriesCache library) throws IOException {
+    long start = System.nanoTime();
+    try {
+      return gainLoss(symbol, startDateStr, endDateStr, api, library);
+    } finally {
+      GAIN.recordSince(start);
+    }
+  }
+
+  private static double gainLoss(String symbol, String startDateStr, String endDateStr, IAlphaAPIInterface api, SeriesCache library) throws IOException {
+    StockSeries stocks = api.fetchData(symbol, library);
 
     if (stocks.isEmpty()) {
       throw new RuntimeException("No data available for the symbol: " + symbol);
     }
 
-    boolean startPriceFound = false;
-    boolean endPriceFound = false;
-    double startPrice = 0.0;
-    double endPrice = 0.0;
-
-    try {
-      Date startDate = sdf.parse(startDateStr);
-      Date endDate = sdf.parse(endDateStr);
-
-      for (Stock stock : stocks) {
-        Date stockDate = sdf.parse(stock.getDate());
-        if (stockDate.equals(startDate)) {
-          startPrice = stock.getClosingPrice();
-          startPriceFound = true;
-        }
-        if (stockDate.equals(endDate)) {
-          endPrice = stock.getClosingPrice();
-          endPriceFound = true;
-        }
-      }
+    int startRow = stocks.indexOf(Dates.parse(startDateStr));
+    int endRow = stocks.indexOf(Dates.parse(endDateStr));
 
-      if (!startPriceFound) {
-        throw new RuntimeException("Could not find price for the start date.");
-      }
-      if (!endPriceFound) {
-        throw new RuntimeException("Could not find price for the end date.");
-      }
-
-    } catch (ParseException e) {
-      throw new RuntimeException("Date parsing error: " + e.getMessage());
+    if (startRow < 0) {
+      throw new RuntimeException("Could not find price for the start date.");
+    }
+    if (endRow < 0) {
+      throw new RuntimeException("Could not find price for the end date.");
     }
 
+    double startPrice = stocks.closeAt(startRow);
+    double endPrice = stocks.closeAt(endRow);
     return ((endPrice - startPrice) / startPrice) * 100;
   }
 
   /**
    * Return moving average of a stock for a particular date and a particular number of days.
+   * The average covers the given date and the trading days before it.
    *
    * @param symbol  String ticker.
    * @param dateStr String start date.
@@ -168,43 +186,39 @@ public class Stock implements IStock {
    * @throws Exception if no data available or days < 0
    */
 
-  public static double viewXDayMovingAverage(String symbol, String dateStr, int days, IAlphaAPIInterface api, Map<String, List<Stock>> library) throws IOException {
+  public static double viewXDayMovingAverage(String symbol, String dateStr, int days, IAlphaAPIInterface api, SeriesCache library) throws IOException {
+    long start = System.nanoTime();
+    try {
+      return movingAverage(symbol, dateStr, days, api, library);
+    } finally {
+      AVERAGE.recordSince(start);
+    }
+  }
+
+  private static double movingAverage(String symbol, String dateStr, int days, IAlphaAPIInterface api, SeriesCache library) throws IOException {
 
     if (days <= 0) {
       throw new RuntimeException("Number of days cannot be negative or 0.");
     }
 
-    double change = 0;
-    int index = 0;
-    SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd");
-    List<Stock> stocks = api.fetchData(symbol, library);
+    StockSeries stocks = api.fetchData(symbol, library);
+    if (stocks.isEmpty()) {
+      throw new RuntimeException("No data available for the symbol: " + symbol);
+    }
 
-    try {
-      Date date = sdf.parse(dateStr);
-
-      for (Stock stock : stocks) {
-        Date stockDate = sdf.parse(stock.getDate());
-        if (date.equals(stockDate)) {
-          index = stocks.indexOf(stock);
-          break;
-        }
-      }
+    int index = stocks.indexOf(Dates.parse(dateStr));
 
-      for (int i = index; i < days + index; i++) {
-        change += stocks.get(i).getClosingPrice();
-      }
-    } catch (ParseException e) {
-      throw new RuntimeException("Date parsing error: " + e.getMessage());
-    } catch (IndexOutOfBoundsException e) {
+    if (index < 0 || index - days + 1 < 0) {
       throw new RuntimeException("Number of days goes too far back, or we could not " +
               "find an average for the date provided.");
     }
 
-    return change / days;
+    return stocks.movingAverage(index, days);
   }
 
   /**
-   * Returns the list of days for which the stock crosses over.
+   * Returns the days on which the stock crossed its moving average, described as
+   * "yyyy-MM-dd (Bullish Crossover)" or "yyyy-MM-dd (Bearish Crossover)".
    *
    * @param symbol  String ticker.
    * @param dateStr String start date.
@@ -212,63 +226,97 @@ public class Stock implements IStock {
    * @param api     api to get data from.
    * @param library to get data from.
    * @return List <String>.
-   * @throws Exception if no data or if days < 0.
+   * @throws IOException if no data available.
    */
 
-  public static List<String> viewXDayCrossOver(String symbol, String dateStr, int days, IAlphaAPIInterface api, Map<String, List<Stock>> library) throws IOException {
-    List<String> xcDays = new ArrayList<>();
-    List<Stock> stocks = api.fetchData(symbol, library);
-    SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd");
-
-    try {
-      Date startDate = sdf.parse(dateStr);
+  public static List<String> viewXDayCrossOver(String symbol, String dateStr, int days, IAlphaAPIInterface api, SeriesCache library) throws IOException {
+    return findXDayCrossOvers(symbol, dateStr, days, api, library).toStrings();
+  }
 
-      if (stocks.size() < days) {
-        throw new RuntimeException("Insufficient data points to calculate the " + days + "-day moving average.");
-      }
+  /**
+   * Finds the days from a start date on which the closing price crossed its moving
+   * average. A crossover is a day whose close is on the other side of the average from the
+   * last close before it that was not exactly on its average; days on which the price
+   * stays on the same side are not crossovers.
+   *
+   * @param symbol  String ticker.
+   * @param dateStr String start date.
+   * @param days    int days in the moving average.
+   * @param api     api to get data from.
+   * @param library to get data from.
+   * @return Crossovers.
+   * @throws IOException if no data available.
+   */
+  public static Crossovers findXDayCrossOvers(String symbol, String dateStr, int days, IAlphaAPIInterface api, SeriesCache library) throws IOException {
+    Crossovers crossovers = new Crossovers();
+    streamXDayCrossOvers(symbol, dateStr, days, api, library, crossovers::add);
+    return crossovers;
+  }
 
-      for (int i = days - 1; i < stocks.size(); i++) {
-        Stock currentStock = stocks.get(i);
-        Date currentDate = sdf.parse(currentStock.getDate());
+  /**
+   * Passes each crossover from a start date to a listener as it is found, as
+   * findXDayCrossOvers would return them, without keeping them.
+   *
+   * @param symbol   String ticker.
+   * @param dateStr  String start date.
+   * @param days     int days in the moving average.
+   * @param api      api to get data from.
+   * @param library  to get data from.
+   * @param listener Crossovers.Listener to receive each crossover.
+   * @return int number of crossovers.
+   * @throws IOException if no data available.
+   */
+  public static int streamXDayCrossOvers(String symbol, String dateStr, int days, IAlphaAPIInterface api, SeriesCache library, Crossovers.Listener listener) throws IOException {
+    long start = System.nanoTime();
+    try {
+      return crossOvers(symbol, dateStr, days, api, library, listener);
+    } finally {
+      CROSSOVER.recordSince(start);
+    }
+  }
 
-        if (currentDate.compareTo(startDate) >= 0) {
-          double currentPrice = currentStock.getClosingPrice();
-          double movingAverage = calculateMovingAverage(stocks, i, days);
+  private static int crossOvers(String symbol, String dateStr, int days, IAlphaAPIInterface api, SeriesCache library, Crossovers.Listener listener) throws IOException {
+    StockSeries stocks = api.fetchData(symbol, library);
+    int startDate = Dates.parse(dateStr);
 
-          if (currentPrice > movingAverage) {
-            xcDays.add(currentStock.getDate() + " (Bullish Crossover)");
-          } else if (currentPrice < movingAverage) {
-            xcDays.add(currentStock.getDate() + " (Bearish Crossover)");
-          }
-        }
-      }
-    } catch (ParseException e) {
-      throw new RuntimeException("Date parsing error: " + e.getMessage());
+    if (days <= 0 || stocks.size() < days) {
+      throw new RuntimeException("Insufficient data points to calculate the " + days + "-day moving average.");
     }
 
-    return xcDays;
-  }
+    int first = Math.max(days - 1, stocks.ceilingIndex(startDate));
 
-  /**
-   * Helper to help calculate the moving average.
-   *
-   * @param stocks list of stocks.
-   * @param index  int index.
-   * @param days   int days.
-   * @return double average.
-   */
-  private static double calculateMovingAverage(List<Stock> stocks, int index, int days) throws
-          RuntimeException{
+    // The side of the average the price was on before the start date. It is usually
+    // settled by the day before; only days exactly on their average look further back.
+    int side = 0;
+    for (int i = first - 1; i >= days - 1 && side == 0; i--) {
+      side = side(stocks.closeAt(i), stocks.movingAverage(i, days));
+    }
 
-    if (days <= 0) {
-      throw new RuntimeException("Number of days cannot be negative or 0.");
+    RollingWindow window = new RollingWindow(days);
+    for (int i = first - days + 1; i < first; i++) {
+      window.push(stocks.closeAt(i));
     }
 
-    double sum = 0;
-    for (int i = index - days + 1; i <= index; i++) {
-      sum += stocks.get(i).getClosingPrice();
+    int count = 0;
+    for (int i = first; i < stocks.size(); i++) {
+      double currentPrice = stocks.closeAt(i);
+      window.push(currentPrice);
+      int current = side(currentPrice, window.mean());
+      if (current == 0 || current == side) {
+        continue;
+      }
+      if (side != 0) {
+        listener.crossover(stocks.dayAt(i), current > 0);
+        count++;
+      }
+      side = current;
     }
-    return sum / days;
+
+    return count;
+  }
+
+  static int side(double price, double movingAverage) {
+    return price > movingAverage ? 1 : price < movingAverage ? -1 : 0;
   }
 
 
@@ -280,7 +328,7 @@ public class Stock implements IStock {
   @Override
   public String toString() {
     return "Model.Stock{" +
-            "date='" + date + '\'' +
+            "date='" + getDate() + '\'' +
             ", openingPrice=" + openingPrice +
             ", closingPrice=" + closingPrice +
             ", highPrice=" + highPrice +
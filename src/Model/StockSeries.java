@@ -0,0 +1,626 @@
+package Model;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Represents the full price history of a single ticker.
+ * The history is stored column by column in primitive arrays (dates as epoch days,
+ * prices as doubles and volumes as longs) sorted from oldest to newest, instead of as
+ * one Stock object per trading day. Stock objects are only created as views when a
+ * caller asks for a row.
+ * New days can be appended to the end of a series as they are published. Appending is
+ * safe while other threads read the series: a new row is fully written before the size
+ * that makes it visible is published, and readers read the size before the columns.
+ */
+public final class StockSeries implements Iterable<Stock> {
+  private int[] days;
+  private double[] open;
+  private double[] high;
+  private double[] low;
+  private double[] close;
+  private long[] volume;
+  private volatile int size;
+
+  // Running totals of the close column, built on first use and extended as rows are
+  // appended. Published as a whole so readers never see a half-extended column.
+  private volatile CloseSums closeSums;
+
+  // Indicators computed over this series, kept with it so they go when it does.
+  private volatile IndicatorEngine.Memo indicators;
+
+  private StockSeries(int[] days, double[] open, double[] high, double[] low,
+                      double[] close, long[] volume, int size) {
+    this.days = days;
+    this.open = open;
+    this.high = high;
+    this.low = low;
+    this.close = close;
+    this.volume = volume;
+    this.size = size;
+  }
+
+  /**
+   * Builds a series from a list of Stock rows, in any date order.
+   *
+   * @param stocks list of stocks for one ticker.
+   * @return StockSeries holding the same data.
+   */
+  public static StockSeries of(List<Stock> stocks) {
+    Builder builder = new Builder(stocks.size());
+    for (Stock stock : stocks) {
+      builder.add(stock.getEpochDay(), stock.getOpeningPrice(), stock.getHighPrice(),
+              stock.getLowPrice(), stock.getClosingPrice(), stock.getVolume());
+    }
+    return builder.build();
+  }
+
+  /**
+   * Wraps columns that are already sorted oldest first, without copying them.
+   *
+   * @param days   int[] epoch days.
+   * @param open   double[] opening prices.
+   * @param high   double[] high prices.
+   * @param low    double[] low prices.
+   * @param close  double[] closing prices.
+   * @param volume long[] volumes.
+   * @param size   int number of rows in use.
+   * @return StockSeries over the columns.
+   */
+  static StockSeries wrap(int[] days, double[] open, double[] high, double[] low,
+                          double[] close, long[] volume, int size) {
+    return new StockSeries(days, open, high, low, close, volume, size);
+  }
+
+  /**
+   * Returns an empty series.
+   *
+   * @return StockSeries with no rows.
+   */
+  public static StockSeries empty() {
+    return new Builder(0).build();
+  }
+
+  /**
+   * Returns the number of trading days in the series.
+   *
+   * @return int size.
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Returns whether the series has no data.
+   *
+   * @return boolean.
+   */
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  /**
+   * Estimates the heap memory held by this series, counting the allocated capacity of its
+   * columns rather than just the used rows, and the indicators computed over it.
+   *
+   * @return long number of bytes.
+   */
+  public long sizeInBytes() {
+    // Object header and fields, plus six array headers.
+    long bytes = 48 + 6 * 16;
+    bytes += (long) days.length * (Integer.BYTES + 4 * Double.BYTES + Long.BYTES);
+    CloseSums sums = closeSums;
+    if (sums != null) {
+      bytes += 16 + 2 * 16 + 2L * sums.totals.length * Double.BYTES;
+    }
+    IndicatorEngine.Memo memo = indicators;
+    if (memo != null) {
+      bytes += memo.sizeInBytes();
+    }
+    return bytes;
+  }
+
+  /**
+   * Returns the date of a row as days since 1970-01-01.
+   *
+   * @param row int row, 0 being the oldest day.
+   * @return int epoch day.
+   */
+  public int dayAt(int row) {
+    checkRow(row);
+    return days[row];
+  }
+
+  /**
+   * Returns the opening price of a row.
+   *
+   * @param row int row.
+   * @return double opening price.
+   */
+  public double openAt(int row) {
+    checkRow(row);
+    return open[row];
+  }
+
+  /**
+   * Returns the high price of a row.
+   *
+   * @param row int row.
+   * @return double high price.
+   */
+  public double highAt(int row) {
+    checkRow(row);
+    return high[row];
+  }
+
+  /**
+   * Returns the low price of a row.
+   *
+   * @param row int row.
+   * @return double low price.
+   */
+  public double lowAt(int row) {
+    checkRow(row);
+    return low[row];
+  }
+
+  /**
+   * Returns the closing price of a row.
+   *
+   * @param row int row.
+   * @return double closing price.
+   */
+  public double closeAt(int row) {
+    checkRow(row);
+    return close[row];
+  }
+
+  /**
+   * Returns the volume of a row.
+   *
+   * @param row int row.
+   * @return long volume.
+   */
+  public long volumeAt(int row) {
+    checkRow(row);
+    return volume[row];
+  }
+
+  /**
+   * Returns the sum of the closing prices of rows from (inclusive) to to (exclusive).
+   * This is two lookups in the running-total column, whatever the length of the range.
+   *
+   * @param from int first row.
+   * @param to   int row after the last one.
+   * @return double sum of closes.
+   */
+  public double closeSum(int from, int to) {
+    int rows = size;
+    if (from < 0 || to > rows || from > to) {
+      throw new IndexOutOfBoundsException("Rows " + from + " to " + to
+              + " out of bounds for length " + rows);
+    }
+    CloseSums sums = closeSums;
+    if (sums == null || sums.rows < to) {
+      sums = extendCloseSums();
+    }
+    return (sums.totals[to] - sums.totals[from]) + (sums.errors[to] - sums.errors[from]);
+  }
+
+  /**
+   * Returns the average closing price over a number of days ending at a row.
+   *
+   * @param row  int last row of the window.
+   * @param days int number of rows in the window.
+   * @return double average close.
+   */
+  public double movingAverage(int row, int days) {
+    return closeSum(row - days + 1, row + 1) / days;
+  }
+
+  /**
+   * Appends a trading day after the newest one in the series.
+   *
+   * @param day int epoch day, later than the last day in the series.
+   * @param o   double opening price.
+   * @param h   double high price.
+   * @param l   double low price.
+   * @param c   double closing price.
+   * @param v   long volume.
+   * @throws IllegalArgumentException if the day is not after the last day.
+   */
+  synchronized void append(int day, double o, double h, double l, double c, long v) {
+    int size = this.size;
+    if (size > 0 && day <= days[size - 1]) {
+      throw new IllegalArgumentException("Appended day " + Dates.format(day)
+              + " is not after " + Dates.format(days[size - 1]));
+    }
+    if (size == days.length) {
+      int capacity = days.length + (days.length >> 1) + 1;
+      days = Arrays.copyOf(days, capacity);
+      open = Arrays.copyOf(open, capacity);
+      high = Arrays.copyOf(high, capacity);
+      low = Arrays.copyOf(low, capacity);
+      close = Arrays.copyOf(close, capacity);
+      volume = Arrays.copyOf(volume, capacity);
+    }
+    days[size] = day;
+    open[size] = o;
+    high[size] = h;
+    low[size] = l;
+    close[size] = c;
+    volume[size] = v;
+    this.size = size + 1;
+    if (closeSums != null) {
+      extendCloseSums();
+    }
+  }
+
+  /**
+   * Appends the rows of a more recent series that are newer than this series' last day.
+   * The recent series has to overlap this one, otherwise there is no way to tell
+   * whether trading days in between are missing.
+   *
+   * @param recent StockSeries covering the latest trading days.
+   * @return int number of rows appended, or -1 if recent starts after this series ends,
+   *         meaning some days in between are missing and nothing was appended.
+   */
+  synchronized int appendNewer(StockSeries recent) {
+    int size = this.size;
+    if (recent.isEmpty()) {
+      return 0;
+    }
+    if (size > 0 && recent.dayAt(0) > days[size - 1]) {
+      return -1;
+    }
+    int appended = 0;
+    for (int i = size == 0 ? 0 : recent.ceilingIndex(days[size - 1] + 1); i < recent.size(); i++) {
+      append(recent.dayAt(i), recent.openAt(i), recent.highAt(i), recent.lowAt(i),
+              recent.closeAt(i), recent.volumeAt(i));
+      appended++;
+    }
+    return appended;
+  }
+
+  synchronized IndicatorEngine.Memo indicators() {
+    if (indicators == null) {
+      indicators = new IndicatorEngine.Memo();
+    }
+    return indicators;
+  }
+
+  private synchronized CloseSums extendCloseSums() {
+    int rows = size;
+    CloseSums sums = closeSums;
+    if (sums != null && sums.rows >= rows) {
+      return sums;
+    }
+    double[] totals;
+    double[] errors;
+    int from;
+    if (sums == null) {
+      totals = new double[days.length + 1];
+      errors = new double[days.length + 1];
+      from = 0;
+    } else {
+      // Rows past sums.rows are not visible to readers of sums, so they can be filled in
+      // place unless the columns have grown.
+      totals = sums.totals.length > rows ? sums.totals : Arrays.copyOf(sums.totals, days.length + 1);
+      errors = sums.errors.length > rows ? sums.errors : Arrays.copyOf(sums.errors, days.length + 1);
+      from = sums.rows;
+    }
+    for (int row = from; row < rows; row++) {
+      // Add with the rounding error of the addition kept separately, so that subtracting
+      // two large totals still gives an accurate window sum.
+      double previous = totals[row];
+      double value = close[row];
+      double total = previous + value;
+      double rounded = total - previous;
+      double error = (previous - (total - rounded)) + (value - rounded);
+      totals[row + 1] = total;
+      errors[row + 1] = errors[row] + error;
+    }
+    sums = new CloseSums(totals, errors, rows);
+    closeSums = sums;
+    return sums;
+  }
+
+  /**
+   * Finds the row for a date. The days column is kept sorted, so it doubles as the
+   * date index and the lookup is a binary search.
+   *
+   * @param day int epoch day.
+   * @return int row, or -1 if the series has no data for that day.
+   */
+  public int indexOf(int day) {
+    int rows = size;
+    int row = Arrays.binarySearch(days, 0, rows, day);
+    return row >= 0 ? row : -1;
+  }
+
+  /**
+   * Finds the first row on or after a date.
+   *
+   * @param day int epoch day.
+   * @return int row, or size() if every row is before that day.
+   */
+  public int ceilingIndex(int day) {
+    int rows = size;
+    int row = Arrays.binarySearch(days, 0, rows, day);
+    if (row < 0) {
+      return -row - 1;
+    }
+    while (row > 0 && days[row - 1] == day) {
+      row--;
+    }
+    return row;
+  }
+
+  /**
+   * Returns a Stock view of a row.
+   *
+   * @param row int row.
+   * @return Stock for that trading day.
+   */
+  public Stock get(int row) {
+    checkRow(row);
+    return new Stock(days[row], open[row], high[row], low[row], close[row], (int) volume[row]);
+  }
+
+  /**
+   * Iterates over the rows as Stock views, oldest first.
+   *
+   * @return Iterator of Stock.
+   */
+  @Override
+  public Iterator<Stock> iterator() {
+    return new Iterator<Stock>() {
+      private int row = 0;
+
+      @Override
+      public boolean hasNext() {
+        return row < size;
+      }
+
+      @Override
+      public Stock next() {
+        if (row >= size) {
+          throw new NoSuchElementException();
+        }
+        return get(row++);
+      }
+    };
+  }
+
+  private void checkRow(int row) {
+    int rows = size;
+    if (row < 0 || row >= rows) {
+      throw new IndexOutOfBoundsException("Row " + row + " out of bounds for length " + rows);
+    }
+  }
+
+  /**
+   * Returns the series as a String.
+   *
+   * @return String.
+   */
+  @Override
+  public String toString() {
+    int rows = size;
+    if (rows == 0) {
+      return "Model.StockSeries{size=0}";
+    }
+    return "Model.StockSeries{" +
+            "size=" + rows +
+            ", from=" + Dates.format(days[0]) +
+            ", to=" + Dates.format(days[rows - 1]) +
+            '}';
+  }
+
+  /**
+   * A published state of the running close totals: totals[i] is the sum of the first i
+   * closes and errors[i] the rounding error accumulated while adding them, for i up to rows.
+   */
+  private static final class CloseSums {
+    private final double[] totals;
+    private final double[] errors;
+    private final int rows;
+
+    private CloseSums(double[] totals, double[] errors, int rows) {
+      this.totals = totals;
+      this.errors = errors;
+      this.rows = rows;
+    }
+  }
+
+  /**
+   * Collects rows one at a time and produces a StockSeries.
+   * Rows may be added in any order; Alpha Vantage and the bundled CSVs list the newest
+   * day first, so the common descending case is reversed in place rather than sorted.
+   */
+  public static final class Builder {
+    private int[] days;
+    private double[] open;
+    private double[] high;
+    private double[] low;
+    private double[] close;
+    private long[] volume;
+    private int size;
+
+    /**
+     * Creates a builder sized for the expected number of rows.
+     *
+     * @param expectedRows int expected number of rows, may be 0.
+     */
+    public Builder(int expectedRows) {
+      int capacity = Math.max(expectedRows, 16);
+      days = new int[capacity];
+      open = new double[capacity];
+      high = new double[capacity];
+      low = new double[capacity];
+      close = new double[capacity];
+      volume = new long[capacity];
+    }
+
+    /**
+     * Adds one trading day.
+     *
+     * @param day    int epoch day.
+     * @param o      double opening price.
+     * @param h      double high price.
+     * @param l      double low price.
+     * @param c      double closing price.
+     * @param v      long volume.
+     * @return this builder.
+     */
+    public Builder add(int day, double o, double h, double l, double c, long v) {
+      if (size == days.length) {
+        grow();
+      }
+      days[size] = day;
+      open[size] = o;
+      high[size] = h;
+      low[size] = l;
+      close[size] = c;
+      volume[size] = v;
+      size++;
+      return this;
+    }
+
+    /**
+     * Returns the number of rows added so far.
+     *
+     * @return int size.
+     */
+    public int size() {
+      return size;
+    }
+
+    /**
+     * Sorts the collected rows oldest first and returns the series.
+     * If a day was added more than once, only the first row added for it is kept.
+     * The builder should not be used afterwards.
+     *
+     * @return StockSeries.
+     */
+    public StockSeries build() {
+      if (!isAscending()) {
+        if (isStrictlyDescending()) {
+          reverse();
+        } else {
+          sort();
+        }
+      }
+      removeRepeatedDays();
+      return new StockSeries(days, open, high, low, close, volume, size);
+    }
+
+    private void grow() {
+      int capacity = days.length + (days.length >> 1);
+      days = Arrays.copyOf(days, capacity);
+      open = Arrays.copyOf(open, capacity);
+      high = Arrays.copyOf(high, capacity);
+      low = Arrays.copyOf(low, capacity);
+      close = Arrays.copyOf(close, capacity);
+      volume = Arrays.copyOf(volume, capacity);
+    }
+
+    private boolean isAscending() {
+      for (int i = 1; i < size; i++) {
+        if (days[i - 1] > days[i]) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    private boolean isStrictlyDescending() {
+      for (int i = 1; i < size; i++) {
+        if (days[i - 1] <= days[i]) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    // The rows are sorted and rows sharing a day are in the order they were added, so a
+    // repeated day is always next to the row that is kept for it.
+    private void removeRepeatedDays() {
+      int kept = 0;
+      for (int i = 0; i < size; i++) {
+        if (kept > 0 && days[kept - 1] == days[i]) {
+          continue;
+        }
+        if (kept != i) {
+          days[kept] = days[i];
+          open[kept] = open[i];
+          high[kept] = high[i];
+          low[kept] = low[i];
+          close[kept] = close[i];
+          volume[kept] = volume[i];
+        }
+        kept++;
+      }
+      size = kept;
+    }
+
+    private void reverse() {
+      for (int i = 0, j = size - 1; i < j; i++, j--) {
+        swap(i, j);
+      }
+    }
+
+    private void swap(int i, int j) {
+      int d = days[i];
+      days[i] = days[j];
+      days[j] = d;
+      double t = open[i];
+      open[i] = open[j];
+      open[j] = t;
+      t = high[i];
+      high[i] = high[j];
+      high[j] = t;
+      t = low[i];
+      low[i] = low[j];
+      low[j] = t;
+      t = close[i];
+      close[i] = close[j];
+      close[j] = t;
+      long v = volume[i];
+      volume[i] = volume[j];
+      volume[j] = v;
+    }
+
+    private void sort() {
+      // Sort (day, original row) pairs so that rows sharing a day keep their order.
+      long[] keys = new long[size];
+      for (int i = 0; i < size; i++) {
+        keys[i] = ((long) days[i] << 32) | i;
+      }
+      Arrays.sort(keys);
+      int[] sortedDays = new int[days.length];
+      double[] sortedOpen = new double[days.length];
+      double[] sortedHigh = new double[days.length];
+      double[] sortedLow = new double[days.length];
+      double[] sortedClose = new double[days.length];
+      long[] sortedVolume = new long[days.length];
+      for (int i = 0; i < size; i++) {
+        int from = (int) keys[i];
+        sortedDays[i] = days[from];
+        sortedOpen[i] = open[from];
+        sortedHigh[i] = high[from];
+        sortedLow[i] = low[from];
+        sortedClose[i] = close[from];
+        sortedVolume[i] = volume[from];
+      }
+      days = sortedDays;
+      open = sortedOpen;
+      high = sortedHigh;
+      low = sortedLow;
+      close = sortedClose;
+      volume = sortedVolume;
+    }
+  }
+}
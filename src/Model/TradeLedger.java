@@ -0,0 +1,321 @@
+package Model;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The dated buys and sells of a portfolio, kept per stock in the order they happened.
+ * Each trade stores the position it leaves behind: shares held, cost basis and realized
+ * gain, under both FIFO and average cost. A trade only updates the position left by the
+ * one before it, and the position on any date is found by binary search over the trade
+ * dates, so neither recording a trade nor asking about a date replays the history.
+ */
+public final class TradeLedger {
+  private final Map<String, SymbolLedger> ledgers = new LinkedHashMap<>();
+
+  /**
+   * Records a purchase.
+   *
+   * @param symbol   String ticker.
+   * @param date     String date in yyyy-MM-dd format, not before the stock's last trade.
+   * @param quantity int shares bought.
+   * @param price    double price paid per share.
+   * @throws IllegalArgumentException if the quantity or price is not positive or the date is
+   *                                  before the stock's last trade.
+   */
+  public void buy(String symbol, String date, int quantity, double price) {
+    checkQuantity(quantity);
+    record(symbol, Dates.parse(date), quantity, price);
+  }
+
+  /**
+   * Records a sale.
+   *
+   * @param symbol   String ticker.
+   * @param date     String date in yyyy-MM-dd format, not before the stock's last trade.
+   * @param quantity int shares sold.
+   * @param price    double price received per share.
+   * @throws IllegalArgumentException if the quantity or price is not positive, the date is
+   *                                  before the stock's last trade, or more shares are sold
+   *                                  than are held.
+   */
+  public void sell(String symbol, String date, int quantity, double price) {
+    checkQuantity(quantity);
+    record(symbol, Dates.parse(date), -quantity, price);
+  }
+
+  private static void checkQuantity(int quantity) {
+    if (quantity <= 0) {
+      throw new IllegalArgumentException("Negative or 0 quantity not allowed");
+    }
+  }
+
+  /**
+   * Records a trade.
+   *
+   * @param symbol   String ticker.
+   * @param day      int epoch day.
+   * @param quantity int shares, positive for a purchase and negative for a sale.
+   * @param price    double price per share.
+   */
+  void record(String symbol, int day, int quantity, double price) {
+    if (quantity == 0 || quantity == Integer.MIN_VALUE) {
+      throw new IllegalArgumentException("Negative or 0 quantity not allowed");
+    }
+    if (!(price > 0) || Double.isInfinite(price)) {
+      throw new IllegalArgumentException("Price must be positive");
+    }
+    SymbolLedger ledger = ledgers.get(symbol);
+    if (ledger == null) {
+      if (quantity < 0) {
+        throw new IllegalArgumentException("Cannot sell " + -quantity + " shares of " + symbol
+                + "; only 0 held.");
+      }
+      ledger = new SymbolLedger();
+      ledgers.put(symbol, ledger);
+    }
+    ledger.append(symbol, day, quantity, price);
+  }
+
+  /**
+   * Returns the shares of a stock held after its last recorded trade.
+   *
+   * @param symbol String ticker.
+   * @return long shares, 0 if the stock was never traded.
+   */
+  long sharesHeld(String symbol) {
+    SymbolLedger ledger = ledgers.get(symbol);
+    return ledger == null || ledger.size == 0 ? 0 : ledger.shares[ledger.size - 1];
+  }
+
+  /**
+   * Returns the position in one stock at the end of a date.
+   *
+   * @param symbol String ticker.
+   * @param date   String date in yyyy-MM-dd format.
+   * @param method CostMethod to match sales against purchases with.
+   * @return Position, with no shares if the stock was not traded by then.
+   */
+  public Position positionAsOf(String symbol, String date, CostMethod method) {
+    int day = Dates.parse(date);
+    SymbolLedger ledger = ledgers.get(symbol);
+    if (ledger == null) {
+      return new Position(symbol, date, 0, 0, 0);
+    }
+    return ledger.positionAsOf(symbol, date, ledger.lastRowOnOrBefore(day), method);
+  }
+
+  /**
+   * Returns the position in every stock traded by the end of a date.
+   *
+   * @param date   String date in yyyy-MM-dd format.
+   * @param method CostMethod to match sales against purchases with.
+   * @return Map of ticker to Position, in the order the stocks were first traded.
+   */
+  public Map<String, Position> positionsAsOf(String date, CostMethod method) {
+    int day = Dates.parse(date);
+    Map<String, Position> positions = new LinkedHashMap<>();
+    for (Map.Entry<String, SymbolLedger> entry : ledgers.entrySet()) {
+      int row = entry.getValue().lastRowOnOrBefore(day);
+      if (row >= 0) {
+        positions.put(entry.getKey(),
+                entry.getValue().positionAsOf(entry.getKey(), date, row, method));
+      }
+    }
+    return Collections.unmodifiableMap(positions);
+  }
+
+  /**
+   * Returns the number of trades recorded.
+   *
+   * @return int trades.
+   */
+  public int size() {
+    int size = 0;
+    for (SymbolLedger ledger : ledgers.values()) {
+      size += ledger.size;
+    }
+    return size;
+  }
+
+  /**
+   * Returns whether no trades have been recorded.
+   *
+   * @return boolean.
+   */
+  public boolean isEmpty() {
+    return ledgers.isEmpty();
+  }
+
+  /**
+   * Writes the trades, per stock, as epoch day, signed quantity and price.
+   */
+  void write(DataOutput out) throws IOException {
+    out.writeInt(ledgers.size());
+    for (Map.Entry<String, SymbolLedger> entry : ledgers.entrySet()) {
+      SymbolLedger ledger = entry.getValue();
+      out.writeUTF(entry.getKey());
+      out.writeInt(ledger.size);
+      for (int i = 0; i < ledger.size; i++) {
+        out.writeInt(ledger.days[i]);
+        out.writeInt(ledger.quantities[i]);
+        out.writeDouble(ledger.prices[i]);
+      }
+    }
+  }
+
+  /**
+   * Records the trades written by write.
+   */
+  void read(DataInput in) throws IOException {
+    int symbols = in.readInt();
+    for (int s = 0; s < symbols; s++) {
+      String symbol = in.readUTF();
+      int trades = in.readInt();
+      for (int i = 0; i < trades; i++) {
+        record(symbol, in.readInt(), in.readInt(), in.readDouble());
+      }
+    }
+  }
+
+  /**
+   * The trades in one stock as columns, with the position after each trade, and the
+   * purchases not yet sold under FIFO as a queue.
+   */
+  private static final class SymbolLedger {
+    private int size;
+    private int[] days = new int[8];
+    private int[] quantities = new int[8];
+    private double[] prices = new double[8];
+    private long[] shares = new long[8];
+    private double[] fifoBasis = new double[8];
+    private double[] fifoRealized = new double[8];
+    private double[] averageBasis = new double[8];
+    private double[] averageRealized = new double[8];
+
+    // Purchases with shares left under FIFO, oldest at lotHead.
+    private int lotHead;
+    private int lotTail;
+    private int[] lotShares = new int[8];
+    private double[] lotPrices = new double[8];
+
+    private void append(String symbol, int day, int quantity, double price) {
+      long held = size == 0 ? 0 : shares[size - 1];
+      if (size > 0 && day < days[size - 1]) {
+        throw new IllegalArgumentException("Trades in " + symbol + " must be recorded in date"
+                + " order; the last was on " + Dates.format(days[size - 1]) + ".");
+      }
+      if (quantity < 0 && -quantity > held) {
+        throw new IllegalArgumentException("Cannot sell " + -quantity + " shares of " + symbol
+                + "; only " + held + " held.");
+      }
+      if (size == days.length) {
+        grow();
+      }
+
+      double fifo = size == 0 ? 0 : fifoBasis[size - 1];
+      double fifoGain = size == 0 ? 0 : fifoRealized[size - 1];
+      double average = size == 0 ? 0 : averageBasis[size - 1];
+      double averageGain = size == 0 ? 0 : averageRealized[size - 1];
+      long after = held + quantity;
+      if (quantity > 0) {
+        fifo += quantity * price;
+        average += quantity * price;
+        pushLot(quantity, price);
+      } else {
+        int toSell = -quantity;
+        while (toSell > 0) {
+          int taken = Math.min(toSell, lotShares[lotHead]);
+          fifo -= taken * lotPrices[lotHead];
+          fifoGain += taken * (price - lotPrices[lotHead]);
+          lotShares[lotHead] -= taken;
+          if (lotShares[lotHead] == 0) {
+            lotHead++;
+          }
+          toSell -= taken;
+        }
+        double averageCost = average / held;
+        average -= -quantity * averageCost;
+        averageGain += -quantity * (price - averageCost);
+        if (after == 0) {
+          // No rounding error is left behind once nothing is held.
+          fifo = 0;
+          average = 0;
+        }
+      }
+
+      days[size] = day;
+      quantities[size] = quantity;
+      prices[size] = price;
+      shares[size] = after;
+      fifoBasis[size] = fifo;
+      fifoRealized[size] = fifoGain;
+      averageBasis[size] = average;
+      averageRealized[size] = averageGain;
+      size++;
+    }
+
+    private void pushLot(int quantity, double price) {
+      if (lotTail == lotShares.length) {
+        if (lotHead > 0) {
+          int open = lotTail - lotHead;
+          System.arraycopy(lotShares, lotHead, lotShares, 0, open);
+          System.arraycopy(lotPrices, lotHead, lotPrices, 0, open);
+          lotHead = 0;
+          lotTail = open;
+        }
+        if (lotTail == lotShares.length) {
+          lotShares = Arrays.copyOf(lotShares, lotShares.length * 2);
+          lotPrices = Arrays.copyOf(lotPrices, lotPrices.length * 2);
+        }
+      }
+      lotShares[lotTail] = quantity;
+      lotPrices[lotTail] = price;
+      lotTail++;
+    }
+
+    private void grow() {
+      int capacity = days.length * 2;
+      days = Arrays.copyOf(days, capacity);
+      quantities = Arrays.copyOf(quantities, capacity);
+      prices = Arrays.copyOf(prices, capacity);
+      shares = Arrays.copyOf(shares, capacity);
+      fifoBasis = Arrays.copyOf(fifoBasis, capacity);
+      fifoRealized = Arrays.copyOf(fifoRealized, capacity);
+      averageBasis = Arrays.copyOf(averageBasis, capacity);
+      averageRealized = Arrays.copyOf(averageRealized, capacity);
+    }
+
+    /**
+     * Returns the last trade on or before a day, or -1 if there is none.
+     */
+    private int lastRowOnOrBefore(int day) {
+      int low = 0;
+      int high = size - 1;
+      while (low <= high) {
+        int mid = (low + high) >>> 1;
+        if (days[mid] <= day) {
+          low = mid + 1;
+        } else {
+          high = mid - 1;
+        }
+      }
+      return high;
+    }
+
+    private Position positionAsOf(String symbol, String date, int row, CostMethod method) {
+      if (row < 0) {
+        return new Position(symbol, date, 0, 0, 0);
+      }
+      if (method == CostMethod.FIFO) {
+        return new Position(symbol, date, shares[row], fifoBasis[row], fifoRealized[row]);
+      }
+      return new Position(symbol, date, shares[row], averageBasis[row], averageRealized[row]);
+    }
+  }
+}
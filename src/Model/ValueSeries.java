@@ -0,0 +1,85 @@
+package Model;
+
+/**
+ * A daily series of values, such as the value of a portfolio over a date range.
+ * Days are stored as epoch days, oldest first, next to a column of values.
+ */
+public final class ValueSeries {
+  private final int[] days;
+  private final double[] values;
+  private final int size;
+
+  ValueSeries(int[] days, double[] values, int size) {
+    this.days = days;
+    this.values = values;
+    this.size = size;
+  }
+
+  /**
+   * Returns the number of days in the series.
+   *
+   * @return int size.
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Returns whether the series has no days.
+   *
+   * @return boolean.
+   */
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  /**
+   * Returns the date of a row as days since 1970-01-01.
+   *
+   * @param row int row, 0 being the oldest day.
+   * @return int epoch day.
+   */
+  public int dayAt(int row) {
+    checkRow(row);
+    return days[row];
+  }
+
+  /**
+   * Returns the date of a row.
+   *
+   * @param row int row, 0 being the oldest day.
+   * @return String date in yyyy-MM-dd format.
+   */
+  public String dateAt(int row) {
+    return Dates.format(dayAt(row));
+  }
+
+  /**
+   * Returns the value on a row.
+   *
+   * @param row int row.
+   * @return double value.
+   */
+  public double valueAt(int row) {
+    checkRow(row);
+    return values[row];
+  }
+
+  private void checkRow(int row) {
+    if (row < 0 || row >= size) {
+      throw new IndexOutOfBoundsException("Row " + row + " out of bounds for length " + size);
+    }
+  }
+
+  @Override
+  public String toString() {
+    if (size == 0) {
+      return "Model.ValueSeries{size=0}";
+    }
+    return "Model.ValueSeries{" +
+            "size=" + size +
+            ", from=" + Dates.format(days[0]) +
+            ", to=" + Dates.format(days[size - 1]) +
+            '}';
+  }
+}
@@ -0,0 +1,146 @@
+package controller;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import Model.IAlphaAPIInterface;
+import Model.PortfolioRegistry;
+import Model.SeriesCache;
+
+/**
+ * Runs a file of queries without prompting, several at a time, against one shared cache.
+ * Each line is a command and its arguments, separated by spaces or commas:
+ * <pre>
+ *   gain      SYMBOL START_DATE END_DATE
+ *   average   SYMBOL DATE DAYS
+ *   crossover SYMBOL DATE DAYS
+ *   value     PORTFOLIO DATE
+ * </pre>
+ * Blank lines and lines starting with # are skipped. One result is written per command,
+ * in the order of the file, as soon as it and every command before it have finished.
+ * A command that fails gets a result carrying the error; the rest still run.
+ */
+public class BatchRunner {
+
+  /**
+   * How results are written.
+   */
+  public enum Format {
+    /**
+     * A header, then line,command,arguments,result,error rows.
+     */
+    CSV,
+
+    /**
+     * One JSON object per line.
+     */
+    JSON
+  }
+
+  private final Commands commands;
+  private final int threads;
+
+  /**
+   * Creates a runner.
+   *
+   * @param api        IAlphaAPIInterface to fetch data with.
+   * @param library    SeriesCache shared by every command.
+   * @param portfolios PortfolioRegistry the value command looks portfolios up in.
+   * @param threads    int number of commands to run at once.
+   */
+  public BatchRunner(IAlphaAPIInterface api, SeriesCache library, PortfolioRegistry portfolios,
+                     int threads) {
+    if (threads < 1) {
+      throw new IllegalArgumentException("Number of threads must be at least 1");
+    }
+    this.commands = new Commands(api, library, portfolios);
+    this.threads = threads;
+  }
+
+  /**
+   * Runs every command read from a reader.
+   *
+   * @param input  Reader of commands, one per line.
+   * @param out    Appendable the results are written to.
+   * @param format Format of the results.
+   * @return int number of commands that failed.
+   * @throws IOException if the commands cannot be read or the results cannot be written.
+   */
+  public int run(Reader input, Appendable out, Format format) throws IOException {
+    BufferedReader reader = input instanceof BufferedReader
+            ? (BufferedReader) input : new BufferedReader(input);
+    if (format == Format.CSV) {
+      out.append("line,command,arguments,result,error").append(System.lineSeparator());
+    }
+
+    AtomicInteger count = new AtomicInteger();
+    ExecutorService pool = Executors.newFixedThreadPool(threads, task -> {
+      Thread thread = new Thread(task, "batch-" + count.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    });
+    // Bounds how far ahead of the oldest unfinished command reading may get.
+    int window = threads * 4;
+    Deque<Future<Commands.Result>> running = new ArrayDeque<>();
+    int failures = 0;
+    try {
+      String line;
+      int number = 0;
+      while ((line = reader.readLine()) != null) {
+        number++;
+        String trimmed = line.trim();
+        if (trimmed.isEmpty() || trimmed.startsWith("#")) {
+          continue;
+        }
+        if (running.size() == window) {
+          failures += write(running.poll(), out, format);
+        }
+        int lineNumber = number;
+        running.add(pool.submit(() -> execute(lineNumber, trimmed)));
+      }
+      while (!running.isEmpty()) {
+        failures += write(running.poll(), out, format);
+      }
+    } finally {
+      pool.shutdownNow();
+    }
+    return failures;
+  }
+
+  private int write(Future<Commands.Result> pending, Appendable out, Format format)
+          throws IOException {
+    Commands.Result result;
+    try {
+      result = pending.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while running batch commands", e);
+    } catch (ExecutionException e) {
+      throw new IOException("Batch command failed unexpectedly", e.getCause());
+    }
+    out.append(format == Format.CSV ? result.toCsv() : result.toJson())
+            .append(System.lineSeparator());
+    return result.isError() ? 1 : 0;
+  }
+
+  /**
+   * Runs one command line.
+   *
+   * @param line    int line number in the file.
+   * @param command String command and arguments.
+   * @return Commands.Result.
+   */
+  Commands.Result execute(int line, String command) {
+    String[] parts = command.split("[\\s,]+");
+    return commands.execute(line, parts[0], Arrays.asList(parts).subList(1, parts.length));
+  }
+}
@@ -0,0 +1,210 @@
+package controller;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+
+import Model.IAlphaAPIInterface;
+import Model.IPortfolio;
+import Model.PortfolioRegistry;
+import Model.SeriesCache;
+import Model.Stock;
+
+/**
+ * The queries the batch runner and the HTTP service share: gain, average, crossover and
+ * value. Each runs against one cache and registry and never throws; a failure becomes a
+ * Result carrying the error.
+ */
+final class Commands {
+  private final IAlphaAPIInterface api;
+  private final SeriesCache library;
+  private final PortfolioRegistry portfolios;
+
+  Commands(IAlphaAPIInterface api, SeriesCache library, PortfolioRegistry portfolios) {
+    this.api = api;
+    this.library = library;
+    this.portfolios = portfolios;
+  }
+
+  /**
+   * Runs one command.
+   *
+   * @param line      int line number the command came from, or 0 if it has none.
+   * @param command   String command name, in any case.
+   * @param arguments List of the command's arguments.
+   * @return Result.
+   */
+  Result execute(int line, String command, List<String> arguments) {
+    String name = command.toLowerCase(Locale.ROOT);
+    try {
+      switch (name) {
+        case "gain":
+          expect(arguments, 3, "gain SYMBOL START_DATE END_DATE");
+          return Result.number(line, name, arguments, Stock.viewGainLoss(arguments.get(0),
+                  arguments.get(1), arguments.get(2), api, library));
+        case "average":
+          expect(arguments, 3, "average SYMBOL DATE DAYS");
+          return Result.number(line, name, arguments, Stock.viewXDayMovingAverage(
+                  arguments.get(0), arguments.get(1), days(arguments.get(2)), api, library));
+        case "crossover":
+          expect(arguments, 3, "crossover SYMBOL DATE DAYS");
+          return Result.dates(line, name, arguments, Stock.viewXDayCrossOver(arguments.get(0),
+                  arguments.get(1), days(arguments.get(2)), api, library));
+        case "value":
+          expect(arguments, 2, "value PORTFOLIO DATE");
+          IPortfolio portfolio = portfolios.get(arguments.get(0));
+          if (portfolio == null) {
+            throw new IllegalArgumentException("We could not find a portfolio with that name.");
+          }
+          return Result.number(line, name, arguments,
+                  portfolio.calculatePortfolioValue(arguments.get(1), api, library));
+        default:
+          throw new IllegalArgumentException("Unknown command: " + command);
+      }
+    } catch (Exception e) {
+      Throwable cause = unwrap(e);
+      String message = cause.getMessage() != null ? cause.getMessage()
+              : cause.getClass().getSimpleName();
+      return Result.error(line, name, arguments, message, cause instanceof IOException);
+    }
+  }
+
+  /**
+   * Returns the failure behind the wrappers a fetch error picks up on its way out of a
+   * cache loader, a future or a portfolio valuation, so it is still reported as a fetch
+   * failure.
+   */
+  private static Throwable unwrap(Throwable e) {
+    for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+      if (cause instanceof IOException) {
+        return cause;
+      }
+    }
+    Throwable cause = e;
+    while ((cause instanceof UncheckedIOException || cause instanceof CompletionException
+            || cause instanceof ExecutionException) && cause.getCause() != null) {
+      cause = cause.getCause();
+    }
+    return cause;
+  }
+
+  private static void expect(List<String> arguments, int count, String usage) {
+    if (arguments.size() != count) {
+      throw new IllegalArgumentException("Usage: " + usage);
+    }
+  }
+
+  private static int days(String value) {
+    try {
+      return Integer.parseInt(value);
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException("Number of days must be a whole number: " + value);
+    }
+  }
+
+  /**
+   * The outcome of one command: a number, a list of dates, or an error.
+   */
+  static final class Result {
+    private final int line;
+    private final String command;
+    private final List<String> arguments;
+    private final double number;
+    private final List<String> dates;
+    private final String error;
+    private final boolean fetchFailed;
+
+    private Result(int line, String command, List<String> arguments, double number,
+                   List<String> dates, String error, boolean fetchFailed) {
+      this.line = line;
+      this.command = command;
+      this.arguments = arguments;
+      this.number = number;
+      this.dates = dates;
+      this.error = error;
+      this.fetchFailed = fetchFailed;
+    }
+
+    static Result number(int line, String command, List<String> arguments, double number) {
+      return new Result(line, command, arguments, number, null, null, false);
+    }
+
+    static Result dates(int line, String command, List<String> arguments, List<String> dates) {
+      return new Result(line, command, arguments, Double.NaN, dates, null, false);
+    }
+
+    static Result error(int line, String command, List<String> arguments, String error,
+                        boolean fetchFailed) {
+      return new Result(line, command, arguments, Double.NaN, null, error, fetchFailed);
+    }
+
+    /**
+     * Returns whether the command failed.
+     *
+     * @return boolean.
+     */
+    boolean isError() {
+      return error != null;
+    }
+
+    /**
+     * Returns whether the command failed because its data could not be fetched, rather
+     * than because it was malformed.
+     *
+     * @return boolean.
+     */
+    boolean isFetchFailure() {
+      return fetchFailed;
+    }
+
+    String toCsv() {
+      StringBuilder row = new StringBuilder();
+      row.append(line).append(',');
+      csv(row, command).append(',');
+      csv(row, String.join(" ", arguments)).append(',');
+      if (error == null) {
+        csv(row, dates != null ? String.join(";", dates) : Double.toString(number));
+      }
+      row.append(',');
+      if (error != null) {
+        csv(row, error);
+      }
+      return row.toString();
+    }
+
+    /**
+     * Writes the result as a JSON object, with its line number if it has one.
+     *
+     * @return String JSON.
+     */
+    String toJson() {
+      StringBuilder json = new StringBuilder();
+      json.append('{');
+      if (line > 0) {
+        json.append("\"line\":").append(line).append(',');
+      }
+      json.append("\"command\":");
+      Json.string(json, command).append(",\"arguments\":");
+      Json.strings(json, arguments);
+      if (error != null) {
+        Json.string(json.append(",\"error\":"), error);
+      } else if (dates != null) {
+        Json.strings(json.append(",\"result\":"), dates);
+      } else {
+        Json.number(json.append(",\"result\":"), number);
+      }
+      return json.append('}').toString();
+    }
+
+    private static StringBuilder csv(StringBuilder row, String field) {
+      if (field.indexOf(',') < 0 && field.indexOf('"') < 0 && field.indexOf('\n') < 0
+              && field.indexOf('\r') < 0) {
+        return row.append(field);
+      }
+      return row.append('"').append(field.replace("\"", "\"\"")).append('"');
+    }
+  }
+}
@@ -0,0 +1,86 @@
+package controller;
+
+import java.util.List;
+
+/**
+ * Writes the few JSON values the batch and HTTP front ends produce: strings, numbers and
+ * arrays of strings.
+ */
+final class Json {
+
+  private Json() {
+  }
+
+  /**
+   * Appends a string as a quoted JSON string.
+   *
+   * @param out   StringBuilder to append to.
+   * @param value String to write, or null.
+   * @return StringBuilder out.
+   */
+  static StringBuilder string(StringBuilder out, String value) {
+    if (value == null) {
+      return out.append("null");
+    }
+    out.append('"');
+    for (int i = 0; i < value.length(); i++) {
+      char c = value.charAt(i);
+      switch (c) {
+        case '"':
+          out.append("\\\"");
+          break;
+        case '\\':
+          out.append("\\\\");
+          break;
+        case '\n':
+          out.append("\\n");
+          break;
+        case '\r':
+          out.append("\\r");
+          break;
+        case '\t':
+          out.append("\\t");
+          break;
+        default:
+          if (c < 0x20) {
+            out.append(String.format("\\u%04x", (int) c));
+          } else {
+            out.append(c);
+          }
+      }
+    }
+    return out.append('"');
+  }
+
+  /**
+   * Appends a number, or null if it is not finite.
+   *
+   * @param out   StringBuilder to append to.
+   * @param value double to write.
+   * @return StringBuilder out.
+   */
+  static StringBuilder number(StringBuilder out, double value) {
+    if (Double.isNaN(value) || Double.isInfinite(value)) {
+      return out.append("null");
+    }
+    return out.append(value);
+  }
+
+  /**
+   * Appends a list of strings as a JSON array.
+   *
+   * @param out    StringBuilder to append to.
+   * @param values List of strings.
+   * @return StringBuilder out.
+   */
+  static StringBuilder strings(StringBuilder out, List<String> values) {
+    out.append('[');
+    for (int i = 0; i < values.size(); i++) {
+      if (i > 0) {
+        out.append(',');
+      }
+      string(out, values.get(i));
+    }
+    return out.append(']');
+  }
+}
@@ -0,0 +1,231 @@
+package controller;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import Model.IAlphaAPIInterface;
+import Model.Metrics;
+import Model.MetricsSnapshot;
+import Model.PortfolioRegistry;
+import Model.SeriesCache;
+
+/**
+ * Serves the stock and portfolio queries over HTTP as JSON, from one warm cache shared by
+ * every client:
+ * <pre>
+ *   GET /gain?symbol=GOOG&amp;start=2024-01-02&amp;end=2024-02-01
+ *   GET /average?symbol=GOOG&amp;date=2024-02-01&amp;days=5
+ *   GET /crossover?symbol=GOOG&amp;date=2024-02-01&amp;days=5
+ *   GET /value?portfolio=Tech&amp;date=2024-02-01
+ *   GET /metrics
+ * </pre>
+ * A successful query answers 200 with {"command", "arguments", "result"}. A malformed one
+ * answers 400, and one whose data could not be fetched answers 502, both with an "error".
+ * /metrics answers with the application's counters and, for each timing histogram, its
+ * count, mean, 50th, 90th and 99th percentiles and maximum in nanoseconds.
+ * Requests are handled on a fixed pool of threads. Every response has a known length, so
+ * clients can keep their connection open between requests.
+ */
+public class QueryServer {
+  private static final Map<String, String[]> PARAMETERS = new HashMap<>();
+
+  static {
+    PARAMETERS.put("gain", new String[] {"symbol", "start", "end"});
+    PARAMETERS.put("average", new String[] {"symbol", "date", "days"});
+    PARAMETERS.put("crossover", new String[] {"symbol", "date", "days"});
+    PARAMETERS.put("value", new String[] {"portfolio", "date"});
+  }
+
+  private final Commands commands;
+  private final HttpServer server;
+  private final ExecutorService pool;
+  private final CountDownLatch stopped = new CountDownLatch(1);
+
+  /**
+   * Creates a server bound to a port. It does not accept requests until started.
+   *
+   * @param api        IAlphaAPIInterface to fetch data with.
+   * @param library    SeriesCache shared by every request.
+   * @param portfolios PortfolioRegistry the value query looks portfolios up in.
+   * @param port       int port to listen on, or 0 for any free port.
+   * @param threads    int number of requests to handle at once.
+   * @throws IOException if the port cannot be bound.
+   */
+  public QueryServer(IAlphaAPIInterface api, SeriesCache library, PortfolioRegistry portfolios,
+                     int port, int threads) throws IOException {
+    if (threads < 1) {
+      throw new IllegalArgumentException("Number of threads must be at least 1");
+    }
+    this.commands = new Commands(api, library, portfolios);
+    this.server = HttpServer.create(new InetSocketAddress(port), 0);
+    AtomicInteger count = new AtomicInteger();
+    this.pool = Executors.newFixedThreadPool(threads,
+        task -> new Thread(task, "query-" + count.incrementAndGet()));
+    server.setExecutor(pool);
+    for (String command : PARAMETERS.keySet()) {
+      server.createContext("/" + command, this::handle);
+    }
+    server.createContext("/metrics", this::handleMetrics);
+    server.createContext("/", exchange -> respond(exchange, 404, error("Not found")));
+  }
+
+  /**
+   * Starts accepting requests.
+   *
+   * @return QueryServer this server.
+   */
+  public QueryServer start() {
+    server.start();
+    return this;
+  }
+
+  /**
+   * Returns the port the server listens on.
+   *
+   * @return int port.
+   */
+  public int getPort() {
+    return server.getAddress().getPort();
+  }
+
+  /**
+   * Stops accepting requests, gives those in progress a second to finish, and releases
+   * anyone waiting in awaitStop.
+   */
+  public void stop() {
+    server.stop(1);
+    pool.shutdown();
+    try {
+      pool.awaitTermination(1, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    stopped.countDown();
+  }
+
+  /**
+   * Waits until the server is stopped.
+   *
+   * @throws InterruptedException if interrupted while waiting.
+   */
+  public void awaitStop() throws InterruptedException {
+    stopped.await();
+  }
+
+  private void handle(HttpExchange exchange) throws IOException {
+    if (!"GET".equals(exchange.getRequestMethod())) {
+      exchange.getResponseHeaders().set("Allow", "GET");
+      respond(exchange, 405, error("Only GET is supported"));
+      return;
+    }
+    String path = exchange.getRequestURI().getPath();
+    String command = path.substring(1);
+    String[] names = PARAMETERS.get(command);
+    if (names == null) {
+      respond(exchange, 404, error("Not found"));
+      return;
+    }
+
+    Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+    List<String> arguments = new ArrayList<>(names.length);
+    for (String name : names) {
+      String value = query.get(name);
+      if (value == null || value.isEmpty()) {
+        respond(exchange, 400, error("Missing parameter: " + name));
+        return;
+      }
+      arguments.add(value);
+    }
+
+    Commands.Result result = commands.execute(0, command, arguments);
+    int status = !result.isError() ? 200 : result.isFetchFailure() ? 502 : 400;
+    respond(exchange, status, result.toJson());
+  }
+
+  private void handleMetrics(HttpExchange exchange) throws IOException {
+    if (!"GET".equals(exchange.getRequestMethod())) {
+      exchange.getResponseHeaders().set("Allow", "GET");
+      respond(exchange, 405, error("Only GET is supported"));
+      return;
+    }
+    if (!"/metrics".equals(exchange.getRequestURI().getPath())) {
+      respond(exchange, 404, error("Not found"));
+      return;
+    }
+    respond(exchange, 200, metricsJson(Metrics.global().snapshot()));
+  }
+
+  static String metricsJson(MetricsSnapshot snapshot) {
+    StringBuilder json = new StringBuilder("{\"counters\":{");
+    String separator = "";
+    for (Map.Entry<String, Long> counter : snapshot.getCounters().entrySet()) {
+      Json.string(json.append(separator), counter.getKey()).append(':')
+              .append(counter.getValue());
+      separator = ",";
+    }
+    json.append("},\"histograms\":{");
+    separator = "";
+    for (Map.Entry<String, MetricsSnapshot.HistogramSnapshot> entry
+            : snapshot.getHistograms().entrySet()) {
+      MetricsSnapshot.HistogramSnapshot histogram = entry.getValue();
+      Json.string(json.append(separator), entry.getKey())
+              .append(":{\"count\":").append(histogram.getCount())
+              .append(",\"mean\":").append(Math.round(histogram.getMean()))
+              .append(",\"p50\":").append(histogram.getPercentile(50))
+              .append(",\"p90\":").append(histogram.getPercentile(90))
+              .append(",\"p99\":").append(histogram.getPercentile(99))
+              .append(",\"max\":").append(histogram.getMax()).append('}');
+      separator = ",";
+    }
+    return json.append("}}").toString();
+  }
+
+  static Map<String, String> parseQuery(String rawQuery) {
+    Map<String, String> query = new HashMap<>();
+    if (rawQuery == null || rawQuery.isEmpty()) {
+      return query;
+    }
+    for (String pair : rawQuery.split("&")) {
+      int equals = pair.indexOf('=');
+      String name = equals < 0 ? pair : pair.substring(0, equals);
+      String value = equals < 0 ? "" : pair.substring(equals + 1);
+      try {
+        query.putIfAbsent(URLDecoder.decode(name, StandardCharsets.UTF_8),
+                URLDecoder.decode(value, StandardCharsets.UTF_8));
+      } catch (IllegalArgumentException e) {
+        // A malformed escape; the parameter is treated as missing.
+      }
+    }
+    return query;
+  }
+
+  private static String error(String message) {
+    return Json.string(new StringBuilder("{\"error\":"), message).append('}').toString();
+  }
+
+  private static void respond(HttpExchange exchange, int status, String json)
+          throws IOException {
+    byte[] body = json.getBytes(StandardCharsets.UTF_8);
+    exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+    // A fixed length lets the connection be reused for the next request.
+    exchange.sendResponseHeaders(status, body.length);
+    try (OutputStream out = exchange.getResponseBody()) {
+      out.write(body);
+    }
+  }
+}
@@ -1,27 +1,33 @@
 package controller;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
 
+import Model.Crossovers;
+import Model.FetchResult;
 import Model.IAlphaAPIInterface;
-import Model.IStock;
+import Model.IPortfolio;
 import Model.Portfolio;
+import Model.PortfolioRegistry;
 import View.IView;
 import Model.Stock;
-import Model.AlphaAPI;
+import Model.SeriesCache;
+import Model.BundledSeries;
+import Model.StockSeries;
 
 import java.time.format.DateTimeFormatter;
 
 public class StockController {
   private final IView stockView;
   private final IAlphaAPIInterface api;
-  private final List<Portfolio> loPortfolio;
-  final Map<String, List<Stock>> library;
+  private final PortfolioRegistry portfolios;
+  final SeriesCache library;
   private final Scanner scanner;
 
   private final Readable in;
@@ -32,10 +38,25 @@ public class StockController {
   DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd");
 
   public StockController(IView stockView, Readable in, Appendable out, IAlphaAPIInterface api) {
+    this(stockView, in, out, api, new PortfolioRegistry());
+  }
+
+  /**
+   * Creates a controller that keeps its portfolios in the given registry. The registry is
+   * saved when the user quits.
+   *
+   * @param stockView  IView menu.
+   * @param in         Readable user input.
+   * @param out        Appendable output.
+   * @param api        IAlphaAPIInterface.
+   * @param portfolios PortfolioRegistry of the user's portfolios.
+   */
+  public StockController(IView stockView, Readable in, Appendable out, IAlphaAPIInterface api,
+                         PortfolioRegistry portfolios) {
     this.stockView = stockView;
-    this.api = new AlphaAPI();
-    this.loPortfolio = new ArrayList<>();
-    this.library = new HashMap<>();
+    this.api = api;
+    this.portfolios = portfolios;
+    this.library = new SeriesCache();
     this.in = in;
     this.out = out;
     this.scanner = new Scanner(in);
@@ -116,10 +137,17 @@ public class StockController {
             days = scanner.nextInt();
             try {
               out.append("The stock's crossovers in the last " + days + " were:").append(System.lineSeparator());
-              for (String date : IStock.viewXDayCrossOver(stockChoice, startDate, days, api, library)) {
-                out.append(date).append(System.lineSeparator());
-              }
+              // Each crossover is written as it is found rather than collected first.
+              Stock.streamXDayCrossOvers(stockChoice, startDate, days, api, library, (day, bullish) -> {
+                try {
+                  out.append(Crossovers.format(day, bullish)).append(System.lineSeparator());
+                } catch (IOException e) {
+                  throw new UncheckedIOException(e);
+                }
+              });
               break;
+            } catch (UncheckedIOException e) {
+              throw e.getCause();
             } catch (RuntimeException e) {
               out.append("Error: " + e.getMessage()).append(System.lineSeparator());
             }
@@ -128,6 +156,10 @@ public class StockController {
         case 4:
           out.append("Please enter the name of your new portfolio.").append(System.lineSeparator());
           portfolioName = scanner.next();
+          if (portfolios.contains(portfolioName)) {
+            out.append("A portfolio with that name already exists.").append(System.lineSeparator());
+            break;
+          }
           out.append("Would you like to add stocks to your portfolio immediately?").append(System.lineSeparator());
           String answer = scanner.next().toLowerCase();
           if (answer.equals("yes")) {
@@ -144,37 +176,30 @@ public class StockController {
                 stocks.put(stockChoice, quantity);
               }
             }
-            for (String symbol : stocks.keySet()) {
-              try {
-                api.fetchData(symbol, library);
-              } catch (Exception e) {
-                stocks.remove(symbol);
-                out.append("We did not add stock " + symbol + " because the ticker was invalid").append(System.lineSeparator());
+            for (FetchResult fetched : api.fetchAll(stocks.keySet(), library).values()) {
+              if (!fetched.isSuccess()) {
+                stocks.remove(fetched.getSymbol());
+                out.append("We did not add stock " + fetched.getSymbol() + " because the ticker was invalid").append(System.lineSeparator());
               }
             }
-            loPortfolio.add(Portfolio.createPortfolio(portfolioName, stocks));
+            portfolios.add(Portfolio.createPortfolio(portfolioName, stocks));
             out.append("Portfolio created with name " + portfolioName + " and " + stocks.size() + " stocks.").append(System.lineSeparator());
           } else {
-            loPortfolio.add(Portfolio.createPortfolio(portfolioName));
+            portfolios.add(Portfolio.createPortfolio(portfolioName));
             out.append("Portfolio created with name " + portfolioName).append(System.lineSeparator());
           }
           break;
         case 5:
           out.append("Which portfolio would you like to add to?").append(System.lineSeparator());
           portfolioChoice = scanner.next();
-          boolean done = false;
-          for (Portfolio portfolio : loPortfolio) {
-            if (portfolio.getName().equals(portfolioChoice)) {
-              done = true;
-              out.append("Please enter your stock and then the amount").append(System.lineSeparator());
-              String symbol = scanner.next();
-              quantity = scanner.nextInt();
-              portfolio.addStock(symbol, quantity);
-            }
-          }
-          if (!done) {
+          IPortfolio toAddTo = portfolios.get(portfolioChoice);
+          if (toAddTo == null) {
             out.append("We could not find a portfolio with that name.").append(System.lineSeparator());
           } else {
+            out.append("Please enter your stock and then the amount").append(System.lineSeparator());
+            String symbol = scanner.next();
+            quantity = scanner.nextInt();
+            portfolios.addStock(portfolioChoice, symbol, quantity);
             out.append("The stocks were added successfully.").append(System.lineSeparator());
           }
           break;
@@ -182,22 +207,16 @@ public class StockController {
           out.append("Which portfolio would you like to check the value of?").append(System.lineSeparator());
           portfolioChoice = scanner.next();
           String date = promptForValidDate("Date?");
-          double result = 0.0;
-          boolean finished = false;
-
-          for (Portfolio portfolio : loPortfolio) {
-            if (portfolio.getName().equals(portfolioChoice)) {
-              finished = true;
-              result = portfolio.calculatePortfolioValue(date, api, library);
-            }
-          }
-          if (!finished) {
+          IPortfolio toValue = portfolios.get(portfolioChoice);
+          if (toValue == null) {
             out.append("We could not find a portfolio with that name.").append(System.lineSeparator());
           } else {
+            double result = toValue.calculatePortfolioValue(date, api, library);
             out.append("Your portfolio's value on date " + date + " is " + result + ".").append(System.lineSeparator());
           }
           break;
         case 7:
+          portfolios.save();
           quit = true;
           break;
         default:
@@ -249,67 +268,60 @@ public class StockController {
   }
 
   public void addOriginalStocksToLibrary(String name) throws IOException {
-    List<Stock> stocks = new ArrayList<>();
-    Set<String> uniqueDates = new HashSet<>();
-
-    // Define multiple date formats
-    SimpleDateFormat[] possibleFormats = new SimpleDateFormat[]{
-            new SimpleDateFormat("M/d/yyyy"),
-            new SimpleDateFormat("yyyy-MM-dd")
-    };
-    SimpleDateFormat targetFormat = new SimpleDateFormat("yyyy-MM-dd");
-
-    // Use getResourceAsStream to read the file from the JAR
-    InputStream inputStream = getClass().getClassLoader().getResourceAsStream(name + ".csv");
-    if (inputStream == null) {
-      throw new IOException("Resource not found: " + name + ".csv");
-    }
+    StockSeries stocks = BundledSeries.load(name);
 
-    BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream));
-    String line;
-    String date;
-    double open;
-    double close;
-    double high;
-    double low;
-    int volume;
-    reader.readLine(); // Skip the header
-
-    while ((line = reader.readLine()) != null) {
-      String[] parts = line.split(",");
-      date = parts[0];
-      open = Double.parseDouble(parts[1]);
-      high = Double.parseDouble(parts[2]);
-      low = Double.parseDouble(parts[3]);
-      close = Double.parseDouble(parts[4]);
-      volume = Integer.parseInt(parts[5]);
+    // The bundled tickers are always available, so they are never evicted.
+    library.pin(name);
+    library.put(name, stocks);
+  }
 
-      // Try parsing the date with multiple formats
-      Date parsedDate = null;
-      for (SimpleDateFormat format : possibleFormats) {
-        try {
-          parsedDate = format.parse(date);
-          break;
-        } catch (ParseException e) {
-          // Continue to try the next format
-        }
-      }
-      if (parsedDate == null) {
-        throw new RuntimeException("Unparseable date: " + date);
-      }
+  /**
+   * Registers every CSV bundled with the application without parsing any of them.
+   * Each one is parsed the first time a query uses it.
+   *
+   * @return the bundled tickers.
+   * @throws IOException if the bundled files cannot be listed.
+   */
+  public Set<String> registerBundledStocks() throws IOException {
+    return BundledSeries.registerAll(library);
+  }
 
-      // Format the parsed date to the target format
-      String formattedDate = targetFormat.format(parsedDate);
+  /**
+   * Parses the registered bundled stocks in parallel in the background.
+   *
+   * @return a future completed once every bundled stock is loaded.
+   */
+  public CompletableFuture<Void> warmUpBundledStocks() {
+    return library.warmUp(ForkJoinPool.commonPool());
+  }
 
-      // Ensure only unique dates are added
-      if (!uniqueDates.contains(formattedDate)) {
-        uniqueDates.add(formattedDate);
-        stocks.add(new Stock(formattedDate, open, high, low, close, volume));
-      }
-    }
-    reader.close();
+  /**
+   * Runs a file of commands without prompting, against this controller's cache and
+   * portfolios. See BatchRunner for the command format.
+   *
+   * @param commands Reader of commands, one per line.
+   * @param results  Appendable the results are written to.
+   * @param format   BatchRunner.Format of the results.
+   * @param threads  int number of commands to run at once.
+   * @return int number of commands that failed.
+   * @throws IOException if the commands cannot be read or the results cannot be written.
+   */
+  public int runBatch(Reader commands, Appendable results, BatchRunner.Format format,
+                      int threads) throws IOException {
+    return new BatchRunner(api, library, portfolios, threads).run(commands, results, format);
+  }
 
-    library.put(name, stocks);
+  /**
+   * Starts serving queries over HTTP against this controller's cache and portfolios.
+   * See QueryServer for the endpoints.
+   *
+   * @param port    int port to listen on, or 0 for any free port.
+   * @param threads int number of requests to handle at once.
+   * @return the started QueryServer.
+   * @throws IOException if the port cannot be bound.
+   */
+  public QueryServer serve(int port, int threads) throws IOException {
+    return new QueryServer(api, library, portfolios, port, threads).start();
   }
 
 }
\ No newline at end of file
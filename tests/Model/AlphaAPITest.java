@@ -0,0 +1,207 @@
+package Model;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests AlphaAPI against a local stand-in for the Alpha Vantage query endpoint.
+ */
+public class AlphaAPITest {
+
+  private static final String HEADER = "timestamp,open,high,low,close,volume\n";
+
+  private HttpServer server;
+  private String endpoint;
+  private final Map<String, String> fullResponses = new ConcurrentHashMap<>();
+  private final Map<String, String> compactResponses = new ConcurrentHashMap<>();
+  private final AtomicInteger requests = new AtomicInteger();
+  private final AtomicInteger inFlight = new AtomicInteger();
+  private final AtomicInteger maxInFlight = new AtomicInteger();
+  private final AtomicInteger gzipResponses = new AtomicInteger();
+
+  @Before
+  public void setUp() throws IOException {
+    fullResponses.put("GOOG", HEADER
+            + "2020-03-09,1050,1150,1000,1100,12000\n"
+            + "2020-03-04,1000,1100,950,1050,10000\n");
+    fullResponses.put("AAPL", HEADER
+            + "2020-03-09,205,215,195,210,16000\n"
+            + "2020-03-04,200,210,190,205,15000\n");
+    compactResponses.put("GOOG", HEADER
+            + "2020-03-10,1100,1200,1090,1180,13000\n"
+            + "2020-03-09,1050,1150,1000,1100,12000\n");
+
+    server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+    server.createContext("/query", this::handle);
+    server.setExecutor(Executors.newCachedThreadPool());
+    server.start();
+    endpoint = "http://127.0.0.1:" + server.getAddress().getPort() + "/query";
+  }
+
+  @After
+  public void tearDown() {
+    server.stop(0);
+  }
+
+  private void handle(HttpExchange exchange) throws IOException {
+    requests.incrementAndGet();
+    maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+    try {
+      Thread.sleep(50);
+      String query = exchange.getRequestURI().getQuery();
+      String symbol = parameter(query, "symbol");
+      Map<String, String> responses = "compact".equals(parameter(query, "outputsize"))
+              ? compactResponses : fullResponses;
+      String body = responses.get(symbol);
+      if (body == null) {
+        exchange.sendResponseHeaders(500, -1);
+        return;
+      }
+      byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+      String accepted = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+      if (accepted != null && accepted.contains("gzip")) {
+        gzipResponses.incrementAndGet();
+        bytes = gzip(bytes);
+        exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+      }
+      exchange.sendResponseHeaders(200, bytes.length);
+      try (OutputStream out = exchange.getResponseBody()) {
+        out.write(bytes);
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } finally {
+      inFlight.decrementAndGet();
+      exchange.close();
+    }
+  }
+
+  private static byte[] gzip(byte[] bytes) throws IOException {
+    ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+    try (GZIPOutputStream out = new GZIPOutputStream(compressed)) {
+      out.write(bytes);
+    }
+    return compressed.toByteArray();
+  }
+
+  private static String parameter(String query, String name) {
+    for (String pair : query.split("&")) {
+      if (pair.startsWith(name + "=")) {
+        return pair.substring(name.length() + 1);
+      }
+    }
+    return null;
+  }
+
+  @Test
+  public void testFetchAllReportsEachSymbol() {
+    AlphaAPI api = new AlphaAPI(endpoint, null, 0, 4);
+    SeriesCache library = new SeriesCache();
+    List<String> symbols = Arrays.asList("GOOG", "FAIL", "AAPL");
+
+    Map<String, FetchResult> results = api.fetchAll(symbols, library);
+
+    assertEquals(symbols, Arrays.asList(results.keySet().toArray()));
+    assertTrue(results.get("GOOG").isSuccess());
+    assertTrue(results.get("AAPL").isSuccess());
+    assertFalse(results.get("FAIL").isSuccess());
+    assertTrue(results.get("FAIL").getError().contains("500"));
+    assertEquals(2, results.get("AAPL").getSeries().size());
+    assertTrue(library.containsKey("GOOG"));
+    assertFalse(library.containsKey("FAIL"));
+    assertTrue(maxInFlight.get() > 1);
+  }
+
+  @Test
+  public void testFetchAllUsesLibraryFirst() {
+    AlphaAPI api = new AlphaAPI(endpoint, null, 0, 4);
+    SeriesCache library = new SeriesCache();
+    StockSeries cached = StockSeries.of(Arrays.asList(
+            new Stock("2020-03-04", 1, 1, 1, 1, 1)));
+    library.put("GOOG", cached);
+
+    Map<String, FetchResult> results = api.fetchAll(Arrays.asList("GOOG", "GOOG"), library);
+
+    assertEquals(1, results.size());
+    assertSame(cached, results.get("GOOG").getSeries());
+    assertEquals(0, requests.get());
+  }
+
+  @Test
+  public void testFetchAllReusesWorkersUntilClosed() {
+    AlphaAPI api = new AlphaAPI(endpoint, null, 0, 2);
+    assertTrue(api.fetchAll(Arrays.asList("GOOG"), new SeriesCache()).get("GOOG").isSuccess());
+    assertTrue(api.fetchAll(Arrays.asList("AAPL"), new SeriesCache()).get("AAPL").isSuccess());
+    api.close();
+
+    try {
+      api.fetchAll(Arrays.asList("GOOG"), new SeriesCache());
+      fail("Expected a closed API to reject batch fetches");
+    } catch (IllegalStateException e) {
+      // Expected.
+    }
+  }
+
+  @Test
+  public void testFetchAllRespectsRequestsPerMinute() {
+    // 600 requests per minute leaves 100ms between requests.
+    AlphaAPI api = new AlphaAPI(endpoint, null, 600, 4);
+    long start = System.nanoTime();
+
+    api.fetchAll(Arrays.asList("GOOG", "AAPL", "FAIL"), new SeriesCache());
+
+    long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+    assertEquals(3, requests.get());
+    assertTrue("took " + elapsedMillis + "ms", elapsedMillis >= 200);
+  }
+
+  @Test
+  public void testRefreshDataAppendsCompactRows() throws IOException {
+    AlphaAPI api = new AlphaAPI(endpoint, null, 0, 1);
+    SeriesCache library = new SeriesCache();
+    StockSeries series = api.fetchData("GOOG", library);
+    assertEquals(2, series.size());
+
+    StockSeries refreshed = api.refreshData("GOOG", library);
+
+    assertSame(series, refreshed);
+    assertEquals(3, refreshed.size());
+    assertEquals(1180, refreshed.closeAt(2), 0.001);
+  }
+
+  @Test
+  public void testFetchDecodesCompressedResponse() throws IOException {
+    fullResponses.put("MSFT", HEADER
+            + "2020-03-09,150,160,140,155,30000\n"
+            + "{\"Information\": \"not a row\"}\n"
+            + "2020-03-04,160,170,150,165,25000\n");
+    AlphaAPI api = new AlphaAPI(endpoint, null, 0, 1);
+
+    StockSeries series = api.fetchData("MSFT", new SeriesCache());
+
+    assertEquals(1, gzipResponses.get());
+    assertEquals(2, series.size());
+    assertEquals(165, series.closeAt(0), 0.001);
+    assertEquals(155, series.closeAt(1), 0.001);
+    assertEquals(1, api.getMalformedRowCount());
+  }
+}
@@ -0,0 +1,82 @@
+package Model;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.Assert.*;
+
+public class BundledSeriesTest {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void testDiscoversCsvFilesInDirectory() throws IOException {
+    File directory = folder.newFolder("classes");
+    Files.write(directory.toPath().resolve("GOOG.csv"), new byte[0]);
+    Files.write(directory.toPath().resolve("msft.csv"), new byte[0]);
+    Files.write(directory.toPath().resolve("MSFT.series"), new byte[0]);
+    Files.write(directory.toPath().resolve("TSLA.series"), new byte[0]);
+    Files.write(directory.toPath().resolve("notes.txt"), new byte[0]);
+    Files.write(directory.toPath().resolve("bad name.csv"), new byte[0]);
+
+    Set<String> symbols = BundledSeries.discover(directory.toURI().toURL());
+
+    assertEquals(new TreeSet<>(Arrays.asList("GOOG", "MSFT", "TSLA")), symbols);
+  }
+
+  @Test
+  public void testDiscoversCsvFilesInJar() throws IOException {
+    File jar = folder.newFile("app.jar");
+    try (ZipOutputStream out = new ZipOutputStream(new FileOutputStream(jar))) {
+      for (String name : new String[]{"AAPL.csv", "NVDA.csv", "Model/Stock.class", "data/X.csv"}) {
+        out.putNextEntry(new ZipEntry(name));
+        out.closeEntry();
+      }
+    }
+
+    Set<String> symbols = BundledSeries.discover(jar.toURI().toURL());
+
+    assertEquals(new TreeSet<>(Arrays.asList("AAPL", "NVDA")), symbols);
+  }
+
+  @Test
+  public void testRegisteredSymbolsLoadOnFirstUse() throws IOException {
+    SeriesCache library = new SeriesCache();
+    Set<String> symbols = BundledSeries.registerAll(library);
+
+    assertTrue(symbols.contains("GOOG"));
+    assertFalse(library.containsKey("GOOG"));
+    assertTrue(library.isPinned("GOOG"));
+
+    StockSeries series = library.get("GOOG");
+
+    assertTrue(library.containsKey("GOOG"));
+    assertEquals("2024-05-29", Dates.format(series.dayAt(series.size() - 1)));
+  }
+
+  @Test
+  public void testSnapshotMatchesCsv() throws IOException {
+    StockSeries snapshot = BundledSeries.load("NVDA");
+    StockSeries csv = BundledSeries.loadCsv("NVDA");
+
+    assertEquals(csv.size(), snapshot.size());
+    for (int i = 0; i < csv.size(); i++) {
+      assertEquals(csv.dayAt(i), snapshot.dayAt(i));
+      assertEquals(csv.openAt(i), snapshot.openAt(i), 0);
+      assertEquals(csv.closeAt(i), snapshot.closeAt(i), 0);
+      assertEquals(csv.volumeAt(i), snapshot.volumeAt(i));
+    }
+  }
+}
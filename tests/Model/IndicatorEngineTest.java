@@ -0,0 +1,244 @@
+package Model;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class IndicatorEngineTest {
+
+  private static final int ROWS = 300;
+  private static final double DELTA = 1e-9;
+
+  private double[] high;
+  private double[] low;
+  private double[] close;
+  private StockSeries stocks;
+
+  @Before
+  public void setUp() {
+    Random random = new Random(42);
+    high = new double[ROWS];
+    low = new double[ROWS];
+    close = new double[ROWS];
+    StockSeries.Builder builder = new StockSeries.Builder(ROWS);
+    double price = 100;
+    int day = Dates.parse("2023-01-02");
+    for (int i = 0; i < ROWS; i++) {
+      price = Math.max(1, price + random.nextGaussian() * 2);
+      close[i] = price;
+      high[i] = price + random.nextDouble() * 3;
+      low[i] = price - random.nextDouble() * 3;
+      builder.add(day + i, price, high[i], low[i], price, 1000);
+    }
+    stocks = builder.build();
+  }
+
+  private static double sma(double[] values, int row, int days) {
+    if (row < days - 1) {
+      return Double.NaN;
+    }
+    double sum = 0;
+    for (int i = row - days + 1; i <= row; i++) {
+      sum += values[i];
+    }
+    return sum / days;
+  }
+
+  private static double[] ema(double[] values, int from, int days) {
+    double[] ema = new double[values.length];
+    Arrays.fill(ema, Double.NaN);
+    if (values.length - from < days) {
+      return ema;
+    }
+    ema[from + days - 1] = sma(values, from + days - 1, days);
+    for (int i = from + days; i < values.length; i++) {
+      ema[i] = ema[i - 1] + 2.0 / (days + 1) * (values[i] - ema[i - 1]);
+    }
+    return ema;
+  }
+
+  private Map<Indicator, IndicatorSeries> compute(Indicator... indicators) {
+    return IndicatorEngine.compute(stocks, Arrays.asList(indicators));
+  }
+
+  @Test
+  public void testMovingAverages() {
+    IndicatorSeries sma = compute(Indicator.sma(10)).get(Indicator.sma(10));
+    IndicatorSeries ema = compute(Indicator.ema(10)).get(Indicator.ema(10));
+    double[] expected = ema(close, 0, 10);
+    assertEquals(ROWS, sma.size());
+    for (int row = 0; row < ROWS; row++) {
+      assertEquals(sma(close, row, 10), sma.valueAt(row), DELTA);
+      assertEquals(stocks.movingAverage(Math.max(row, 9), 10), sma.valueAt(Math.max(row, 9)),
+              DELTA);
+      assertEquals(expected[row], ema.valueAt(row), DELTA);
+    }
+    assertTrue(Double.isNaN(sma.valueAt(8)));
+    assertEquals(stocks.dayAt(5), sma.dayAt(5));
+  }
+
+  @Test
+  public void testRsi() {
+    IndicatorSeries rsi = compute(Indicator.rsi(14)).get(Indicator.rsi(14));
+    double gain = 0;
+    double loss = 0;
+    for (int row = 1; row < ROWS; row++) {
+      double change = close[row] - close[row - 1];
+      if (row <= 14) {
+        gain += Math.max(change, 0) / 14;
+        loss += Math.max(-change, 0) / 14;
+      } else {
+        gain = (gain * 13 + Math.max(change, 0)) / 14;
+        loss = (loss * 13 + Math.max(-change, 0)) / 14;
+      }
+      if (row < 14) {
+        assertTrue(Double.isNaN(rsi.valueAt(row)));
+      } else {
+        assertEquals(100 - 100 / (1 + gain / loss), rsi.valueAt(row), DELTA);
+      }
+    }
+    assertTrue(Double.isNaN(rsi.valueAt(0)));
+  }
+
+  @Test
+  public void testBollingerBands() {
+    Indicator bands = Indicator.bollinger(20, 2);
+    assertEquals(Arrays.asList("middle", "upper", "lower"), bands.getOutputs());
+    IndicatorSeries bollinger = compute(bands).get(bands);
+    for (int row = 19; row < ROWS; row++) {
+      double mean = sma(close, row, 20);
+      double squares = 0;
+      for (int i = row - 19; i <= row; i++) {
+        squares += (close[i] - mean) * (close[i] - mean);
+      }
+      double deviation = Math.sqrt(squares / 20);
+      assertEquals(mean, bollinger.valueAt(0, row), DELTA);
+      assertEquals(mean + 2 * deviation, bollinger.valueAt(1, row), DELTA);
+      assertEquals(mean - 2 * deviation, bollinger.valueAt(2, row), DELTA);
+    }
+    assertTrue(Double.isNaN(bollinger.valueAt(2, 18)));
+  }
+
+  @Test
+  public void testMacd() {
+    IndicatorSeries macd = compute(Indicator.macd(12, 26, 9)).get(Indicator.macd(12, 26, 9));
+    double[] fast = ema(close, 0, 12);
+    double[] slow = ema(close, 0, 26);
+    double[] line = new double[ROWS];
+    for (int row = 0; row < ROWS; row++) {
+      line[row] = fast[row] - slow[row];
+    }
+    double[] signal = ema(line, 25, 9);
+    for (int row = 0; row < ROWS; row++) {
+      assertEquals(line[row], macd.valueAt(0, row), DELTA);
+      assertEquals(signal[row], macd.valueAt(1, row), DELTA);
+      assertEquals(line[row] - signal[row], macd.valueAt(2, row), DELTA);
+    }
+    assertTrue(Double.isNaN(macd.valueAt(0, 24)));
+    assertFalse(Double.isNaN(macd.valueAt(0, 25)));
+    assertTrue(Double.isNaN(macd.valueAt(1, 32)));
+    assertFalse(Double.isNaN(macd.valueAt(1, 33)));
+  }
+
+  @Test
+  public void testAtr() {
+    IndicatorSeries atr = compute(Indicator.atr(14)).get(Indicator.atr(14));
+    double average = 0;
+    for (int row = 0; row < ROWS; row++) {
+      double range = high[row] - low[row];
+      if (row > 0) {
+        range = Math.max(range, Math.max(Math.abs(high[row] - close[row - 1]),
+                Math.abs(low[row] - close[row - 1])));
+      }
+      average = row < 14 ? average + range / 14 : (average * 13 + range) / 14;
+      if (row < 13) {
+        assertTrue(Double.isNaN(atr.valueAt(row)));
+      } else {
+        assertEquals(average, atr.valueAt(row), DELTA);
+      }
+    }
+  }
+
+  @Test
+  public void testComputedColumnsCountTowardsCacheBudget() throws Exception {
+    SeriesCache library = new SeriesCache();
+    library.put("SYN", stocks);
+    long before = library.sizeInBytes();
+
+    IndicatorEngine.compute("SYN", Arrays.asList(Indicator.macd(12, 26, 9)),
+            (symbol, cache) -> cache.get(symbol), library);
+
+    // MACD keeps three columns of ROWS doubles.
+    assertTrue(library.sizeInBytes() >= before + 3L * ROWS * Double.BYTES);
+    assertEquals(stocks.sizeInBytes(), library.sizeInBytes());
+  }
+
+  @Test
+  public void testResultsAreRememberedAndExtended() {
+    Metrics.Counter rows = Metrics.global().counter("indicator.rows");
+    long before = rows.get();
+    Map<Indicator, IndicatorSeries> first = compute(Indicator.ema(5), Indicator.rsi(14));
+    assertEquals(before + 2 * ROWS, rows.get());
+
+    // Asking again, or for one of them alone, computes nothing.
+    compute(Indicator.rsi(14), Indicator.ema(5));
+    assertEquals(before + 2 * ROWS, rows.get());
+
+    stocks.append(stocks.dayAt(ROWS - 1) + 1, 50, 52, 49, 51, 1000);
+    stocks.append(stocks.dayAt(ROWS) + 1, 51, 55, 50, 54, 1000);
+    Map<Indicator, IndicatorSeries> extended = compute(Indicator.ema(5), Indicator.atr(3));
+    assertEquals(before + 2 * ROWS + 2 + ROWS + 2, rows.get());
+
+    // Earlier results keep their size; the extended ones match a fresh computation.
+    assertEquals(ROWS, first.get(Indicator.ema(5)).size());
+    IndicatorSeries ema = extended.get(Indicator.ema(5));
+    assertEquals(ROWS + 2, ema.size());
+    double[] closes = Arrays.copyOf(close, ROWS + 2);
+    closes[ROWS] = 51;
+    closes[ROWS + 1] = 54;
+    double[] expected = ema(closes, 0, 5);
+    for (int row = 0; row < ROWS + 2; row++) {
+      assertEquals(expected[row], ema.valueAt(row), DELTA);
+    }
+    assertEquals(first.get(Indicator.ema(5)).valueAt(ROWS - 1), ema.valueAt(ROWS - 1), 0);
+    assertEquals(ROWS + 2, extended.get(Indicator.atr(3)).size());
+  }
+
+  @Test
+  public void testComputeBySymbol() throws Exception {
+    MockAlphaAPI api = new MockAlphaAPI();
+    List<Indicator> indicators = Collections.singletonList(Indicator.sma(2));
+    IndicatorSeries sma = IndicatorEngine.compute("AAPL", indicators, api, new SeriesCache())
+            .get(Indicator.sma(2));
+    assertEquals(3, sma.size());
+    assertEquals(112.5, sma.valueAt(sma.indexOf(Dates.parse("2023-01-03"))), DELTA);
+    assertEquals(-1, sma.indexOf(Dates.parse("2023-01-04")));
+  }
+
+  @Test
+  public void testIndicatorsAreValues() {
+    assertEquals(Indicator.macd(12, 26, 9), Indicator.macd(12, 26, 9));
+    assertEquals(Indicator.macd(12, 26, 9).hashCode(), Indicator.macd(12, 26, 9).hashCode());
+    assertNotEquals(Indicator.ema(12), Indicator.sma(12));
+    assertNotEquals(Indicator.bollinger(20, 2), Indicator.bollinger(20, 2.5));
+    assertEquals("MACD(12,26,9)", Indicator.macd(12, 26, 9).toString());
+    assertEquals("BOLLINGER(20,2.0)", Indicator.bollinger(20, 2).toString());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testNonPositivePeriod() {
+    Indicator.ema(0);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testFastSlowerThanSlow() {
+    Indicator.macd(26, 12, 9);
+  }
+}
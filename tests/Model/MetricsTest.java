@@ -0,0 +1,88 @@
+package Model;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.*;
+
+public class MetricsTest {
+
+  @Test
+  public void testBucketsCoverEveryValue() {
+    for (long value = 0; value < 100_000; value++) {
+      int bucket = Metrics.Histogram.bucketOf(value);
+      assertTrue(value <= Metrics.Histogram.highestValueIn(bucket));
+      assertTrue(bucket == 0 || value > Metrics.Histogram.highestValueIn(bucket - 1));
+    }
+    assertEquals(Metrics.Histogram.BUCKETS - 1, Metrics.Histogram.bucketOf(Long.MAX_VALUE));
+    assertEquals(Long.MAX_VALUE, Metrics.Histogram.highestValueIn(Metrics.Histogram.BUCKETS - 1));
+  }
+
+  @Test
+  public void testBucketsAreWithinASixteenth() {
+    for (long value = 16; value < Long.MAX_VALUE / 3; value = value * 3 + 1) {
+      long highest = Metrics.Histogram.highestValueIn(Metrics.Histogram.bucketOf(value));
+      assertTrue(highest - value <= value / 16);
+    }
+  }
+
+  @Test
+  public void testPercentiles() {
+    Metrics metrics = new Metrics();
+    Metrics.Histogram histogram = metrics.histogram("latency");
+    for (int i = 1; i <= 1000; i++) {
+      histogram.record(i * 1000L);
+    }
+    MetricsSnapshot.HistogramSnapshot snapshot = metrics.snapshot().getHistogram("latency");
+    assertEquals(1000, snapshot.getCount());
+    assertEquals(500_500, snapshot.getMean(), 0.001);
+    assertEquals(1_000_000, snapshot.getMax());
+    assertEquals(500_000, snapshot.getPercentile(50), 500_000 / 16);
+    assertEquals(990_000, snapshot.getPercentile(99), 990_000 / 16);
+    assertEquals(1_000_000, snapshot.getPercentile(100));
+    assertTrue(snapshot.getPercentile(50) >= 500_000);
+  }
+
+  @Test
+  public void testCountersAndReset() {
+    Metrics metrics = new Metrics();
+    assertSame(metrics.counter("hits"), metrics.counter("hits"));
+    metrics.counter("hits").increment();
+    metrics.counter("hits").add(4);
+    metrics.histogram("load").record(-5);
+    MetricsSnapshot snapshot = metrics.snapshot();
+    assertEquals(5, snapshot.getCounter("hits"));
+    assertEquals(0, snapshot.getCounter("misses"));
+    assertEquals(1, snapshot.getHistogram("load").getCount());
+    assertEquals(0, snapshot.getHistogram("load").getMax());
+    assertTrue(snapshot.toString().startsWith("hits 5"));
+
+    metrics.reset();
+    assertEquals(0, metrics.snapshot().getCounter("hits"));
+    assertEquals(0, metrics.snapshot().getHistogram("load").getCount());
+    assertEquals(0, metrics.snapshot().getHistogram("load").getPercentile(50));
+  }
+
+  @Test
+  public void testGlobalMetricsAreUpdated() throws Exception {
+    MetricsSnapshot before = Metrics.global().snapshot();
+
+    Stock.viewGainLoss("AAPL", "2023-01-02", "2023-01-03", new MockAlphaAPI(), new SeriesCache());
+    SeriesCache library = new SeriesCache();
+    library.put("AAPL", SeriesCsvParser.parse(new ByteArrayInputStream(
+            ("timestamp,open,high,low,close,volume\n"
+                    + "2023-01-03,1,1,1,110,100\nbad row\n2023-01-04,1,1,1,115,100\n")
+                    .getBytes(StandardCharsets.UTF_8))));
+    library.getOrLoad("AAPL", symbol -> null);
+
+    MetricsSnapshot after = Metrics.global().snapshot();
+    assertEquals(before.getCounter("parse.rows") + 2, after.getCounter("parse.rows"));
+    assertEquals(before.getCounter("parse.malformed") + 1, after.getCounter("parse.malformed"));
+    assertTrue(after.getCounter("cache.hits") > before.getCounter("cache.hits"));
+    long gains = before.getHistogram("query.gain") == null ? 0
+            : before.getHistogram("query.gain").getCount();
+    assertEquals(gains + 1, after.getHistogram("query.gain").getCount());
+  }
+}
@@ -4,6 +4,7 @@ import org.junit.Test;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -12,7 +13,8 @@ import java.util.Map;
  * A mock implementation of the AlphaAPIInterface for testing purposes.
  */
 public class MockAlphaAPI implements IAlphaAPIInterface {
-  private final Map<String, List<Stock>> mockLibrary = new HashMap<>();
+  private final SeriesCache mockLibrary = new SeriesCache();
+  private final List<String> fetchedSymbols = Collections.synchronizedList(new ArrayList<>());
 
   public MockAlphaAPI() {
     // Preload mock data
@@ -20,10 +22,20 @@ public class MockAlphaAPI implements IAlphaAPIInterface {
     stocks.add(new Stock("2020-01-01", 100.0, 110.0, 90.0, 105.0, 10000));
     stocks.add(new Stock("2023-01-02", 106.0, 115.0, 95.0, 110.0, 15000));
     stocks.add(new Stock("2023-01-03", 111.0, 120.0, 100.0, 115.0, 20000));
-    mockLibrary.put("AAPL", stocks);
+    mockLibrary.put("AAPL", StockSeries.of(stocks));
   }
+
+  public void addMockData(String symbol, StockSeries series) {
+    mockLibrary.put(symbol, series);
+  }
+
+  public List<String> getFetchedSymbols() {
+    return fetchedSymbols;
+  }
+
 @Override
-  public List<Stock> fetchData(String symbol, Map<String, List<Stock>> library) throws IOException {
+  public StockSeries fetchData(String symbol, SeriesCache library) throws IOException {
+    fetchedSymbols.add(symbol);
     // Use the preloaded data
     if (mockLibrary.containsKey(symbol)) {
       if (library != null && !library.containsKey(symbol)) {
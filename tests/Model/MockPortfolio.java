@@ -2,7 +2,6 @@ package Model;
 
 import java.util.HashMap;
 import java.util.Map;
-import java.util.List;
 
 /**
  * A mock implementation of the PortfolioModel interface for testing purposes.
@@ -10,6 +9,7 @@ import java.util.List;
 public class MockPortfolio implements IPortfolio {
   private final String name;
   private final Map<String, Integer> stocks = new HashMap<>();
+  private final TradeLedger trades = new TradeLedger();
 
   public MockPortfolio(String name) {
     this.name = name;
@@ -26,11 +26,38 @@ public class MockPortfolio implements IPortfolio {
   }
 
   @Override
-  public double calculatePortfolioValue(String date, IAlphaAPIInterface api, Map<String, List<Stock>> library) {
+  public void buy(String symbol, String date, int quantity, double price) {
+    trades.buy(symbol, date, quantity, price);
+  }
+
+  @Override
+  public void sell(String symbol, String date, int quantity, double price) {
+    trades.sell(symbol, date, quantity, price);
+  }
+
+  @Override
+  public Position getPosition(String symbol, String date, CostMethod method) {
+    return trades.positionAsOf(symbol, date, method);
+  }
+
+  @Override
+  public Map<String, Position> getPositions(String date, CostMethod method) {
+    return trades.positionsAsOf(date, method);
+  }
+
+  @Override
+  public double calculatePortfolioValue(String date, IAlphaAPIInterface api, SeriesCache library) {
     // Return a mock value
     return 1000.0;
   }
 
+  @Override
+  public ValueSeries calculatePortfolioValues(String from, String to, IAlphaAPIInterface api,
+                                              SeriesCache library) {
+    // Return a mock value on the first day
+    return new ValueSeries(new int[]{Dates.parse(from)}, new double[]{1000.0}, 1);
+  }
+
   @Override
   public Map<String, Integer> getStocks() {
     return stocks;
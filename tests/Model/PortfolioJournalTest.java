@@ -0,0 +1,139 @@
+package Model;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+
+public class PortfolioJournalTest {
+
+  private Path directory;
+  private Path file;
+
+  @Before
+  public void setUp() throws IOException {
+    directory = Files.createTempDirectory("journal");
+    file = directory.resolve("portfolios.journal");
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    try (Stream<Path> files = Files.walk(directory)) {
+      files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+    }
+  }
+
+  private List<PortfolioJournal.Entry> replay(long after) throws IOException {
+    List<PortfolioJournal.Entry> entries = new ArrayList<>();
+    PortfolioJournal.open(file, after, entries::add).close();
+    return entries;
+  }
+
+  @Test
+  public void testEntriesReplayInOrder() throws IOException {
+    try (PortfolioJournal journal = PortfolioJournal.open(file, 0, entry -> { })) {
+      journal.append(PortfolioJournal.Entry.create("Tech",
+              Collections.singletonMap("GOOG", 10)));
+      journal.append(PortfolioJournal.Entry.add("Tech", "AAPL", 5));
+      long last = journal.append(PortfolioJournal.Entry.remove("Tech"));
+      journal.sync(last);
+      assertEquals(3, last);
+    }
+
+    List<PortfolioJournal.Entry> entries = replay(0);
+    assertEquals(3, entries.size());
+    assertEquals(PortfolioJournal.Entry.Type.CREATE, entries.get(0).getType());
+    assertEquals(Integer.valueOf(10), entries.get(0).getHoldings().get("GOOG"));
+    assertEquals("AAPL", entries.get(1).getSymbol());
+    assertEquals(5, entries.get(1).getQuantity());
+    assertEquals(PortfolioJournal.Entry.Type.REMOVE, entries.get(2).getType());
+    assertEquals(3, entries.get(2).getSequence());
+
+    assertEquals(1, replay(2).size());
+  }
+
+  @Test
+  public void testTornTailIsDropped() throws IOException {
+    try (PortfolioJournal journal = PortfolioJournal.open(file, 0, entry -> { })) {
+      journal.append(PortfolioJournal.Entry.add("Tech", "GOOG", 1));
+      journal.append(PortfolioJournal.Entry.add("Tech", "GOOG", 2));
+    }
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+      channel.truncate(channel.size() - 3);
+    }
+
+    List<PortfolioJournal.Entry> entries = replay(0);
+    assertEquals(1, entries.size());
+    assertEquals(1, entries.get(0).getQuantity());
+
+    // The next entry follows the last good one.
+    try (PortfolioJournal journal = PortfolioJournal.open(file, 0, entry -> { })) {
+      assertEquals(2, journal.append(PortfolioJournal.Entry.add("Tech", "AAPL", 7)));
+    }
+    assertEquals(2, replay(0).size());
+  }
+
+  @Test
+  public void testSequenceContinuesAfterReset() throws IOException {
+    try (PortfolioJournal journal = PortfolioJournal.open(file, 0, entry -> { })) {
+      journal.append(PortfolioJournal.Entry.add("Tech", "GOOG", 1));
+      journal.reset();
+      assertEquals(0, journal.getEntryCount());
+      assertEquals(2, journal.append(PortfolioJournal.Entry.add("Tech", "GOOG", 1)));
+    }
+    List<PortfolioJournal.Entry> entries = replay(1);
+    assertEquals(1, entries.size());
+    assertEquals(2, entries.get(0).getSequence());
+  }
+
+  @Test
+  public void testConcurrentWritersAreAllDurable() throws Exception {
+    int threads = 8;
+    int perThread = 200;
+    ExecutorService pool = Executors.newFixedThreadPool(threads);
+    try (PortfolioJournal journal = PortfolioJournal.open(file, 0, entry -> { })) {
+      List<Future<?>> futures = new ArrayList<>();
+      for (int t = 0; t < threads; t++) {
+        String name = "P" + t;
+        futures.add(pool.submit(() -> {
+          for (int i = 0; i < perThread; i++) {
+            journal.sync(journal.append(PortfolioJournal.Entry.add(name, "GOOG", 1)));
+          }
+          return null;
+        }));
+      }
+      for (Future<?> future : futures) {
+        future.get();
+      }
+    } finally {
+      pool.shutdown();
+    }
+
+    List<PortfolioJournal.Entry> entries = replay(0);
+    assertEquals(threads * perThread, entries.size());
+    for (int i = 0; i < entries.size(); i++) {
+      assertEquals(i + 1, entries.get(i).getSequence());
+    }
+  }
+
+  @Test(expected = IOException.class)
+  public void testRejectsOtherFiles() throws IOException {
+    Files.write(file, "not a journal".getBytes());
+    PortfolioJournal.open(file, 0, entry -> { });
+  }
+}
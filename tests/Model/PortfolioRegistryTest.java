@@ -0,0 +1,236 @@
+package Model;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+
+public class PortfolioRegistryTest {
+
+  private Path directory;
+  private Path file;
+
+  @Before
+  public void setUp() throws IOException {
+    directory = Files.createTempDirectory("portfolios");
+    file = directory.resolve("portfolios.dat");
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    try (Stream<Path> files = Files.walk(directory)) {
+      files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+    }
+  }
+
+  private static Portfolio techPortfolio() {
+    Map<String, Integer> stocks = new HashMap<>();
+    stocks.put("GOOG", 10);
+    stocks.put("AAPL", 5);
+    return Portfolio.createPortfolio("Tech", stocks);
+  }
+
+  @Test
+  public void testAddAndGet() {
+    PortfolioRegistry registry = new PortfolioRegistry();
+    Portfolio tech = techPortfolio();
+    registry.add(tech);
+
+    assertEquals(tech.getStocks(), registry.get("Tech").getStocks());
+    assertTrue(registry.contains("Tech"));
+    assertNull(registry.get("Energy"));
+    assertEquals(1, registry.size());
+  }
+
+  @Test
+  public void testChangesOnlyGoThroughTheRegistry() {
+    PortfolioRegistry registry = new PortfolioRegistry();
+    Portfolio tech = techPortfolio();
+    registry.add(tech);
+    tech.addStock("GOOG", 1);
+    assertEquals(Integer.valueOf(10), registry.get("Tech").getStocks().get("GOOG"));
+
+    IPortfolio view = registry.get("Tech");
+    try {
+      view.addStock("GOOG", 1);
+      fail("Expected the view to reject changes");
+    } catch (UnsupportedOperationException e) {
+      // Expected.
+    }
+    try {
+      view.getStocks().put("GOOG", 1);
+      fail("Expected the holdings to be read-only");
+    } catch (UnsupportedOperationException e) {
+      // Expected.
+    }
+    registry.addStock("Tech", "GOOG", 1);
+    assertEquals(Integer.valueOf(11), view.getStocks().get("GOOG"));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testDuplicateNameRejected() {
+    PortfolioRegistry registry = new PortfolioRegistry();
+    registry.add(techPortfolio());
+    registry.add(Portfolio.createPortfolio("Tech"));
+  }
+
+  @Test
+  public void testSaveAndReopen() throws IOException {
+    try (PortfolioRegistry registry = PortfolioRegistry.open(file)) {
+      registry.add(techPortfolio());
+      registry.add(Portfolio.createPortfolio("Empty"));
+      registry.save();
+    }
+
+    try (PortfolioRegistry reopened = PortfolioRegistry.open(file)) {
+      assertEquals(new HashSet<>(Arrays.asList("Tech", "Empty")), reopened.names());
+      assertEquals(techPortfolio().getStocks(), reopened.get("Tech").getStocks());
+      assertTrue(reopened.get("Empty").getStocks().isEmpty());
+    }
+  }
+
+  @Test
+  public void testChangesToUnreadAndReadPortfoliosSurviveResave() throws IOException {
+    try (PortfolioRegistry registry = PortfolioRegistry.open(file)) {
+      registry.add(techPortfolio());
+      registry.add(Portfolio.createPortfolio("Energy"));
+      registry.save();
+    }
+
+    try (PortfolioRegistry reopened = PortfolioRegistry.open(file)) {
+      // Tech is never read, so it is copied across as stored; Energy is changed.
+      reopened.addStock("Energy", "XOM", 3);
+      reopened.add(Portfolio.createPortfolio("Cash"));
+      reopened.save();
+      reopened.addStock("Energy", "CVX", 1);
+      reopened.save();
+    }
+
+    try (PortfolioRegistry reopened = PortfolioRegistry.open(file)) {
+      assertEquals(3, reopened.size());
+      assertEquals(techPortfolio().getStocks(), reopened.get("Tech").getStocks());
+      assertEquals(Integer.valueOf(3), reopened.get("Energy").getStocks().get("XOM"));
+      assertEquals(Integer.valueOf(1), reopened.get("Energy").getStocks().get("CVX"));
+    }
+  }
+
+  @Test
+  public void testJournaledChangesSurviveWithoutSave() throws IOException {
+    Path journal = directory.resolve("portfolios.journal");
+    try (PortfolioRegistry registry = PortfolioRegistry.open(file, journal)) {
+      registry.add(techPortfolio());
+      registry.save();
+      registry.addStock("Tech", "GOOG", 2);
+      registry.add(Portfolio.createPortfolio("Energy"));
+      registry.addStock("Energy", "XOM", 4);
+      registry.add(Portfolio.createPortfolio("Gone"));
+      registry.remove("Gone");
+    }
+
+    try (PortfolioRegistry reopened = PortfolioRegistry.open(file, journal)) {
+      assertEquals(new HashSet<>(Arrays.asList("Tech", "Energy")), reopened.names());
+      assertEquals(Integer.valueOf(12), reopened.get("Tech").getStocks().get("GOOG"));
+      assertEquals(Integer.valueOf(4), reopened.get("Energy").getStocks().get("XOM"));
+    }
+
+    // Without the journal only the snapshot is seen.
+    try (PortfolioRegistry snapshot = PortfolioRegistry.open(file)) {
+      assertEquals(techPortfolio().getStocks(), snapshot.get("Tech").getStocks());
+    }
+  }
+
+  @Test
+  public void testCheckpointEmptiesJournal() throws IOException {
+    Path journal = directory.resolve("portfolios.journal");
+    try (PortfolioRegistry registry = PortfolioRegistry.open(file, journal)) {
+      registry.setCheckpointEntries(3);
+      registry.add(Portfolio.createPortfolio("Tech"));
+      registry.addStock("Tech", "GOOG", 1);
+      assertFalse(Files.exists(file));
+      registry.addStock("Tech", "GOOG", 1);
+      assertTrue(Files.exists(file));
+      assertEquals(PortfolioJournal.HEADER_BYTES, Files.size(journal));
+      registry.addStock("Tech", "GOOG", 1);
+    }
+
+    try (PortfolioRegistry reopened = PortfolioRegistry.open(file, journal)) {
+      assertEquals(Integer.valueOf(3), reopened.get("Tech").getStocks().get("GOOG"));
+    }
+  }
+
+  @Test
+  public void testTradesSurviveSnapshotAndJournal() throws IOException {
+    Path journal = directory.resolve("portfolios.journal");
+    try (PortfolioRegistry registry = PortfolioRegistry.open(file, journal)) {
+      registry.add(Portfolio.createPortfolio("Tech"));
+      registry.buy("Tech", "GOOG", "2020-01-02", 10, 100);
+      registry.save();
+      registry.buy("Tech", "GOOG", "2020-02-03", 10, 120);
+      registry.sell("Tech", "GOOG", "2020-03-02", 15, 130);
+    }
+
+    try (PortfolioRegistry reopened = PortfolioRegistry.open(file, journal)) {
+      IPortfolio tech = reopened.get("Tech");
+      assertEquals(Integer.valueOf(5), tech.getStocks().get("GOOG"));
+      Position position = tech.getPosition("GOOG", "2020-03-02", CostMethod.FIFO);
+      assertEquals(5, position.getShares());
+      assertEquals(350, position.getRealizedGain(), 1e-9);
+      assertEquals(10, tech.getPosition("GOOG", "2020-01-31", CostMethod.FIFO).getShares());
+      reopened.save();
+    }
+
+    try (PortfolioRegistry snapshot = PortfolioRegistry.open(file)) {
+      assertEquals(600, snapshot.get("Tech").getPosition("GOOG", "2020-12-31", CostMethod.FIFO)
+              .getCostBasis(), 1e-9);
+    }
+  }
+
+  @Test
+  public void testTradesOfAddedPortfolioSurviveJournal() throws IOException {
+    Path journal = directory.resolve("portfolios.journal");
+    Portfolio tech = Portfolio.createPortfolio("Tech");
+    tech.buy("GOOG", "2020-01-02", 10, 100);
+    tech.sell("GOOG", "2020-02-03", 4, 120);
+    try (PortfolioRegistry registry = PortfolioRegistry.open(file, journal)) {
+      registry.add(tech);
+    }
+
+    try (PortfolioRegistry reopened = PortfolioRegistry.open(file, journal)) {
+      IPortfolio replayed = reopened.get("Tech");
+      assertEquals(Integer.valueOf(6), replayed.getStocks().get("GOOG"));
+      Position position = replayed.getPosition("GOOG", "2020-02-03", CostMethod.FIFO);
+      assertEquals(6, position.getShares());
+      assertEquals(80, position.getRealizedGain(), 1e-9);
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testAddStockToMissingPortfolio() {
+    new PortfolioRegistry().addStock("Tech", "GOOG", 1);
+  }
+
+  @Test
+  public void testMissingFileOpensEmpty() throws IOException {
+    try (PortfolioRegistry registry = PortfolioRegistry.open(file)) {
+      assertEquals(0, registry.size());
+      assertFalse(Files.exists(file));
+    }
+  }
+
+  @Test(expected = IOException.class)
+  public void testRejectsOtherFiles() throws IOException {
+    Files.write(file, "timestamp,open,high,low,close,volume\n".getBytes());
+    PortfolioRegistry.open(file);
+  }
+}
@@ -3,19 +3,27 @@ package Model;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.io.IOException;
 import java.util.*;
 
 import static org.junit.Assert.*;
 
 public class PortfolioTest {
 
-  private AlphaAPI api;
-  private Map<String, List<Stock>> library;
+  private IAlphaAPIInterface api;
+  private SeriesCache library;
 
   @Before
   public void setUp() {
-    api = new AlphaAPI();
-    library = new HashMap<>();
+    // Serves only what is in the library it is given, so no test reaches the network.
+    api = (symbol, data) -> {
+      StockSeries series = data == null ? null : data.get(symbol);
+      if (series == null) {
+        throw new IOException("No data available for the symbol: " + symbol);
+      }
+      return series;
+    };
+    library = new SeriesCache();
 
     List<Stock> googStocks = Arrays.asList(
             new Stock("2020-03-04", 1000, 1100, 950, 1050, 10000),
@@ -27,8 +35,47 @@ public class PortfolioTest {
             new Stock("2020-03-09", 205, 215, 195, 210, 16000)
     );
 
-    library.put("GOOG", googStocks);
-    library.put("AAPL", aaplStocks);
+    library.put("GOOG", StockSeries.of(googStocks));
+    library.put("AAPL", StockSeries.of(aaplStocks));
+  }
+
+  @Test
+  public void testBuyAndSellChangeHoldings() {
+    Portfolio portfolio = new Portfolio("Traded");
+    portfolio.addStock("AAPL", 4);
+    portfolio.buy("GOOG", "2020-03-04", 10, 1050);
+    portfolio.buy("AAPL", "2020-03-04", 2, 205);
+    portfolio.sell("GOOG", "2020-03-09", 4, 1100);
+
+    assertEquals(Integer.valueOf(6), portfolio.getStocks().get("GOOG"));
+    assertEquals(Integer.valueOf(6), portfolio.getStocks().get("AAPL"));
+    // Only traded shares have a position; AAPL added without a date has no cost.
+    assertEquals(2, portfolio.getPosition("AAPL", "2020-03-09", CostMethod.FIFO).getShares());
+    assertEquals(200.0, portfolio.getPositions("2020-03-09", CostMethod.AVERAGE_COST)
+            .get("GOOG").getRealizedGain(), 1e-9);
+    assertEquals(6 * 1100 + 6 * 210,
+            portfolio.calculatePortfolioValue("2020-03-09", api, library), 1e-9);
+
+    portfolio.sell("GOOG", "2020-03-09", 6, 1100);
+    assertFalse(portfolio.getStocks().containsKey("GOOG"));
+  }
+
+  @Test
+  public void testSharesAddedWithoutTradeCannotBeSold() {
+    Portfolio portfolio = Portfolio.createPortfolio("Held", Collections.singletonMap("AAPL", 4));
+    portfolio.buy("AAPL", "2020-03-04", 2, 205);
+    try {
+      portfolio.sell("AAPL", "2020-03-09", 3, 210);
+      fail("Expected the untraded shares to be refused");
+    } catch (IllegalArgumentException e) {
+      assertEquals("Cannot sell 3 shares of AAPL; only 2 were bought with buy. The other 4"
+              + " were added without a date and price and cannot be sold.", e.getMessage());
+    }
+    assertEquals(Integer.valueOf(6), portfolio.getStocks().get("AAPL"));
+
+    portfolio.sell("AAPL", "2020-03-09", 2, 210);
+    assertEquals(Integer.valueOf(4), portfolio.getStocks().get("AAPL"));
+    assertEquals(0, portfolio.getPosition("AAPL", "2020-03-09", CostMethod.FIFO).getShares());
   }
 
   @Test
@@ -77,12 +124,15 @@ public class PortfolioTest {
     portfolio.addStock("GOOG", 10);
     portfolio.addStock("AAPL", 20);
 
+    Metrics.Counter errors = Metrics.global().counter("portfolio.value.errors");
+    long before = errors.get();
     try {
       portfolio.calculatePortfolioValue("2020-03-10", api, library);
       fail("Expected RuntimeException not thrown");
     } catch (RuntimeException e) {
       assertTrue(e.getMessage().contains("No data available for the symbol"));
     }
+    assertEquals(before + 1, errors.get());
   }
 
   @Test
@@ -146,7 +196,7 @@ public class PortfolioTest {
     portfolio.addStock("GOOG", 10);
     portfolio.addStock("AAPL", 20);
 
-    Map<String, List<Stock>> emptyLibrary = new HashMap<>();
+    SeriesCache emptyLibrary = new SeriesCache();
 
     try {
       portfolio.calculatePortfolioValue("2020-03-09", api, emptyLibrary);
@@ -156,6 +206,28 @@ public class PortfolioTest {
     }
   }
 
+  @Test
+  public void testCalculatePortfolioValueAfterHoldingWasEvicted() {
+    StockSeries msft = StockSeries.of(Collections.singletonList(
+            new Stock("2020-03-09", 160, 170, 150, 165, 25000)));
+    StockSeries ibm = StockSeries.of(Collections.singletonList(
+            new Stock("2020-03-09", 120, 125, 115, 120, 5000)));
+    MockAlphaAPI downloads = new MockAlphaAPI();
+    downloads.addMockData("MSFT", msft);
+    downloads.addMockData("IBM", ibm);
+    // Room for one series only, so adding IBM evicts MSFT.
+    SeriesCache small = new SeriesCache(msft.sizeInBytes());
+    small.put("MSFT", msft);
+    small.put("IBM", ibm);
+    assertFalse(small.containsKey("MSFT"));
+
+    Portfolio portfolio = new Portfolio("Evicted");
+    portfolio.addStock("MSFT", 2);
+    portfolio.addStock("IBM", 3);
+    assertEquals(2 * 165 + 3 * 120,
+            portfolio.calculatePortfolioValue("2020-03-09", downloads, small), 1e-9);
+  }
+
   @Test
   public void testCalculatePortfolioValueWithNullLibrary() {
     Portfolio portfolio = new Portfolio("Test Portfolio");
@@ -184,4 +256,122 @@ public class PortfolioTest {
       assertTrue(e.getMessage().contains("No data available for the symbol"));
     }
   }
+
+  @Test
+  public void testCalculatePortfolioValuesOverRange() throws IOException {
+    library.put("MSFT", StockSeries.of(Arrays.asList(
+            new Stock("2020-03-02", 160, 170, 150, 165, 25000),
+            new Stock("2020-03-04", 165, 175, 155, 170, 26000),
+            new Stock("2020-03-06", 170, 180, 160, 175, 27000),
+            new Stock("2020-03-09", 175, 185, 165, 180, 28000))));
+    Map<String, Integer> stocks = new HashMap<>();
+    stocks.put("GOOG", 2);
+    stocks.put("AAPL", 10);
+    stocks.put("MSFT", 1);
+    Portfolio portfolio = Portfolio.createPortfolio("Range", stocks);
+
+    ValueSeries values = portfolio.calculatePortfolioValues("2020-03-01", "2020-03-31", api, library);
+
+    assertEquals(2, values.size());
+    assertEquals("2020-03-04", values.dateAt(0));
+    assertEquals(2 * 1050 + 10 * 205 + 170, values.valueAt(0), 0.001);
+    assertEquals("2020-03-09", values.dateAt(1));
+    assertEquals(2 * 1100 + 10 * 210 + 180, values.valueAt(1), 0.001);
+    assertEquals(portfolio.calculatePortfolioValue("2020-03-09", api, library),
+            values.valueAt(1), 0.001);
+  }
+
+  @Test
+  public void testCalculatePortfolioValuesRangeBounds() throws IOException {
+    Map<String, Integer> stocks = new HashMap<>();
+    stocks.put("GOOG", 1);
+    Portfolio portfolio = Portfolio.createPortfolio("Range", stocks);
+
+    ValueSeries values = portfolio.calculatePortfolioValues("2020-03-05", "2020-03-09", api, library);
+    assertEquals(1, values.size());
+    assertEquals(1100, values.valueAt(0), 0.001);
+
+    assertTrue(portfolio.calculatePortfolioValues("2021-01-01", "2021-12-31", api, library)
+            .isEmpty());
+    assertTrue(new Portfolio("Empty").calculatePortfolioValues("2020-03-01", "2020-03-31",
+            api, library).isEmpty());
+  }
+
+  @Test(expected = RuntimeException.class)
+  public void testCalculatePortfolioValuesReversedRange() throws IOException {
+    new Portfolio("Empty").calculatePortfolioValues("2020-03-09", "2020-03-04", api, library);
+  }
+
+  @Test
+  public void testValuePortfoliosSharesPrices() {
+    MockAlphaAPI mockApi = new MockAlphaAPI();
+    mockApi.addMockData("GOOG", library.get("GOOG"));
+    mockApi.addMockData("AAPL", library.get("AAPL"));
+    List<Portfolio> portfolios = new ArrayList<>();
+    for (int i = 1; i <= 100; i++) {
+      Map<String, Integer> stocks = new HashMap<>();
+      stocks.put("GOOG", i);
+      stocks.put("AAPL", 2 * i);
+      portfolios.add(Portfolio.createPortfolio("P" + i, stocks));
+    }
+
+    BulkValuation valuation = Portfolio.valuePortfolios(portfolios, "2020-03-09", mockApi, library);
+
+    assertEquals(2, mockApi.getFetchedSymbols().size());
+    assertTrue(mockApi.getFetchedSymbols().containsAll(Arrays.asList("GOOG", "AAPL")));
+    assertEquals(100, valuation.size());
+    assertTrue(valuation.getFailures().isEmpty());
+    for (int i = 1; i <= 100; i++) {
+      assertEquals("P" + i, valuation.getName(i - 1));
+      assertEquals(portfolios.get(i - 1).calculatePortfolioValue("2020-03-09", mockApi, library),
+              valuation.getTotal(i - 1), 0.001);
+    }
+  }
+
+  @Test
+  public void testValuePortfoliosIsolatesMissingPrices() {
+    MockAlphaAPI mockApi = new MockAlphaAPI();
+    mockApi.addMockData("GOOG", library.get("GOOG"));
+    mockApi.addMockData("AAPL", StockSeries.of(Arrays.asList(
+            new Stock("2020-03-04", 200, 210, 190, 205, 15000))));
+    Map<String, Integer> goog = new HashMap<>();
+    goog.put("GOOG", 1);
+    Map<String, Integer> aapl = new HashMap<>();
+    aapl.put("AAPL", 1);
+    aapl.put("GOOG", 1);
+    Map<String, Integer> unknown = new HashMap<>();
+    unknown.put("XXXX", 1);
+    List<Portfolio> portfolios = Arrays.asList(
+            Portfolio.createPortfolio("Goog", goog),
+            Portfolio.createPortfolio("Apple", aapl),
+            Portfolio.createPortfolio("Unknown", unknown));
+
+    BulkValuation valuation = Portfolio.valuePortfolios(portfolios, "2020-03-09", mockApi, library);
+
+    assertTrue(valuation.isValued(0));
+    assertEquals(1100, valuation.getTotal(0), 0.001);
+    assertFalse(valuation.isValued(1));
+    assertFalse(valuation.isValued(2));
+    assertEquals(Collections.singletonMap("Goog", 1100.0), valuation.getTotals());
+    assertEquals(2, valuation.getFailures().size());
+    assertTrue(valuation.getFailures().get(0).contains("AAPL on date: 2020-03-09"));
+    assertEquals(new HashSet<>(Arrays.asList("AAPL", "XXXX")), valuation.getMissingSymbols());
+  }
+
+  @Test
+  public void testValuePortfoliosIgnoresMissingPricesForEmptyHoldings() {
+    MockAlphaAPI mockApi = new MockAlphaAPI();
+    mockApi.addMockData("GOOG", library.get("GOOG"));
+    Map<String, Integer> stocks = new HashMap<>();
+    stocks.put("GOOG", 1);
+    stocks.put("XXXX", 0);
+    List<Portfolio> portfolios = Collections.singletonList(
+            Portfolio.createPortfolio("Goog", stocks));
+
+    BulkValuation valuation = Portfolio.valuePortfolios(portfolios, "2020-03-09", mockApi, library);
+
+    assertTrue(valuation.isValued(0));
+    assertEquals(1100, valuation.getTotal(0), 0.001);
+    assertTrue(valuation.getFailures().isEmpty());
+  }
 }
@@ -0,0 +1,46 @@
+package Model;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class RollingWindowTest {
+
+  @Test
+  public void testMeanOfLastValues() {
+    RollingWindow window = new RollingWindow(3);
+    window.push(1);
+    window.push(2);
+    assertFalse(window.isFull());
+    assertEquals(1.5, window.mean(), 0.0001);
+
+    window.push(3);
+    assertTrue(window.isFull());
+    assertEquals(2.0, window.mean(), 0.0001);
+
+    window.push(10);
+    assertEquals(3, window.count());
+    assertEquals(15.0, window.sum(), 0.0001); // 2 + 3 + 10
+  }
+
+  @Test
+  public void testLongStreamMatchesDirectSum() {
+    RollingWindow window = new RollingWindow(200);
+    double[] values = new double[10000];
+    for (int i = 0; i < values.length; i++) {
+      values[i] = 100 + Math.sin(i) * 37.123456789;
+      window.push(values[i]);
+    }
+
+    double expected = 0;
+    for (int i = values.length - 200; i < values.length; i++) {
+      expected += values[i];
+    }
+    assertEquals(expected / 200, window.mean(), 1e-9);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testNonPositiveSize() {
+    new RollingWindow(0);
+  }
+}
@@ -0,0 +1,139 @@
+package Model;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+
+public class ScreenerTest {
+
+  private SeriesCache library;
+
+  private static StockSeries series(double[] closes, long[] volumes) {
+    StockSeries.Builder builder = new StockSeries.Builder(closes.length);
+    int day = Dates.parse("2024-01-01");
+    for (int i = 0; i < closes.length; i++) {
+      builder.add(day + i, closes[i], closes[i], closes[i], closes[i], volumes[i]);
+    }
+    return builder.build();
+  }
+
+  private static long[] volumes(long... volumes) {
+    return volumes;
+  }
+
+  @Before
+  public void setUp() {
+    library = new SeriesCache();
+    library.put("UP", series(new double[] {10, 10, 9, 12},
+            volumes(100, 100, 100, 400)));
+    library.put("DOWN", series(new double[] {10, 10, 12, 9},
+            volumes(100, 100, 100, 100)));
+    library.put("FLAT", series(new double[] {10, 10, 10, 10},
+            volumes(100, 100, 100, 100)));
+    library.put("RISING", series(new double[] {8, 9, 11, 12},
+            volumes(100, 200, 100, 300)));
+    library.put("EDGE", series(new double[] {12, 8, 8, 8.5},
+            volumes(100, 100, 100, 100)));
+  }
+
+  private static List<String> symbols(List<ScreenMatch> matches) {
+    List<String> symbols = new ArrayList<>();
+    for (ScreenMatch match : matches) {
+      symbols.add(match.getSymbol());
+    }
+    return symbols;
+  }
+
+  @Test
+  public void testCrossedAbove() {
+    List<ScreenMatch> matches = Screener.screen(library,
+            ScreenCondition.crossedAbove("2024-01-04", 2));
+    // EDGE closed on its average on the 3rd, so it crossed from below, as on the 2nd.
+    assertEquals(Arrays.asList("UP", "EDGE"), symbols(matches));
+    assertEquals((12 - 10.5) / 10.5 * 100, matches.get(0).getScore(), 1e-9);
+
+    assertEquals(Arrays.asList("DOWN"), symbols(Screener.screen(library,
+            ScreenCondition.crossedBelow("2024-01-04", 2))));
+    assertTrue(Screener.screen(library, ScreenCondition.crossedAbove("2024-01-02", 2)).isEmpty());
+  }
+
+  @Test
+  public void testGainRankedHighestFirst() {
+    List<ScreenMatch> matches = Screener.screen(library,
+            ScreenCondition.gainAtLeast("2024-01-01", "2024-01-04", 0));
+    assertEquals(Arrays.asList("RISING", "UP", "FLAT"), symbols(matches));
+    assertEquals(50.0, matches.get(0).getScore(), 1e-9);
+    assertEquals(Arrays.asList("RISING", "UP"), symbols(Screener.screen(library,
+            ScreenCondition.gainAtLeast("2024-01-01", "2024-01-04", 10))));
+  }
+
+  @Test
+  public void testVolumeSpike() {
+    List<ScreenMatch> matches = Screener.screen(library,
+            ScreenCondition.volumeSpike("2024-01-04", 3, 2));
+    assertEquals(Arrays.asList("UP", "RISING"), symbols(matches));
+    assertEquals(4.0, matches.get(0).getScore(), 1e-9);
+    assertEquals(300 / (400 / 3.0), matches.get(1).getScore(), 1e-9);
+  }
+
+  @Test
+  public void testLargeUniverseMatchesSequentialResult() {
+    SeriesCache universe = new SeriesCache(Long.MAX_VALUE);
+    int day = Dates.parse("2024-01-01");
+    for (int s = 0; s < 2000; s++) {
+      StockSeries.Builder builder = new StockSeries.Builder(60);
+      double close = 100;
+      Random random = new Random(s);
+      for (int i = 0; i < 60; i++) {
+        close = Math.max(1, close + random.nextGaussian());
+        builder.add(day + i, close, close, close, close, 1000 + random.nextInt(1000));
+      }
+      universe.put("S" + s, builder.build());
+    }
+    ScreenCondition condition = ScreenCondition.crossedAbove(Dates.format(day + 59), 20);
+
+    List<String> expected = new ArrayList<>();
+    for (String symbol : new TreeSet<>(universe.symbols())) {
+      if (!Double.isNaN(condition.score(universe.get(symbol)))) {
+        expected.add(symbol);
+      }
+    }
+    ForkJoinPool pool = new ForkJoinPool(4);
+    try {
+      List<String> found = symbols(Screener.screen(universe, condition, pool));
+      assertFalse(found.isEmpty());
+      assertEquals(expected.size(), found.size());
+      assertTrue(found.containsAll(expected));
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  @Test
+  public void testRegisteredSymbolsAreReadWithoutCachingAndFailuresSkipped() {
+    library.register("LAZY", symbol -> series(new double[] {10, 10, 9, 13},
+            volumes(1, 1, 1, 1)));
+    library.register("BROKEN", symbol -> {
+      throw new IOException("unavailable");
+    });
+    List<ScreenMatch> matches = Screener.screen(library,
+            ScreenCondition.crossedAbove("2024-01-04", 2));
+    assertEquals(Arrays.asList("LAZY", "UP", "EDGE"), symbols(matches));
+    assertFalse(library.containsKey("LAZY"));
+    assertEquals(5, library.size());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testNonPositiveDays() {
+    ScreenCondition.volumeSpike("2024-01-04", 0, 2);
+  }
+}
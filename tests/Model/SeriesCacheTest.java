@@ -0,0 +1,204 @@
+package Model;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests the shared SeriesCache library.
+ */
+public class SeriesCacheTest {
+
+  private static StockSeries sample() {
+    return StockSeries.of(Arrays.asList(
+            new Stock("2020-03-04", 1000, 1100, 950, 1050, 10000),
+            new Stock("2020-03-09", 1050, 1150, 1000, 1100, 12000)));
+  }
+
+  @Test
+  public void testConcurrentLoadsShareOneCall() throws Exception {
+    SeriesCache library = new SeriesCache();
+    AtomicInteger calls = new AtomicInteger();
+    CountDownLatch start = new CountDownLatch(1);
+    SeriesCache.Loader slow = symbol -> {
+      calls.incrementAndGet();
+      try {
+        Thread.sleep(100);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      return sample();
+    };
+
+    ExecutorService pool = Executors.newFixedThreadPool(8);
+    List<Future<StockSeries>> results = new ArrayList<>();
+    for (int i = 0; i < 8; i++) {
+      results.add(pool.submit(() -> {
+        start.await();
+        return library.getOrLoad("GOOG", slow);
+      }));
+    }
+    start.countDown();
+
+    StockSeries first = results.get(0).get();
+    for (Future<StockSeries> result : results) {
+      assertSame(first, result.get());
+    }
+    pool.shutdown();
+    assertTrue(pool.awaitTermination(5, TimeUnit.SECONDS));
+    assertEquals(1, calls.get());
+    assertSame(first, library.get("GOOG"));
+  }
+
+  @Test
+  public void testLoadFailureIsNotCached() throws IOException {
+    SeriesCache library = new SeriesCache();
+    try {
+      library.getOrLoad("FAIL", symbol -> {
+        throw new IOException("Failed to retrieve data");
+      });
+      fail("Expected IOException");
+    } catch (IOException e) {
+      assertEquals("Failed to retrieve data", e.getMessage());
+    }
+    assertFalse(library.containsKey("FAIL"));
+
+    StockSeries loaded = library.getOrLoad("FAIL", symbol -> sample());
+    assertEquals(2, loaded.size());
+  }
+
+  @Test
+  public void testCachedSeriesSkipsLoader() throws IOException {
+    SeriesCache library = new SeriesCache();
+    StockSeries series = sample();
+    library.put("AAPL", series);
+
+    assertSame(series, library.getOrLoad("AAPL", symbol -> {
+      throw new IOException("should not load");
+    }));
+    assertEquals(1, library.size());
+    assertTrue(library.symbols().contains("AAPL"));
+  }
+
+  @Test
+  public void testEvictsLeastRecentlyUsedOverBudget() {
+    long entryBytes = sample().sizeInBytes();
+    SeriesCache library = new SeriesCache(entryBytes * 2);
+    library.put("GOOG", sample());
+    library.put("AAPL", sample());
+    assertNotNull(library.get("GOOG"));
+
+    library.put("NVDA", sample());
+
+    assertTrue(library.containsKey("GOOG"));
+    assertFalse(library.containsKey("AAPL"));
+    assertTrue(library.containsKey("NVDA"));
+    assertEquals(entryBytes * 2, library.sizeInBytes());
+    assertEquals(1, library.stats().getEvictions());
+  }
+
+  @Test
+  public void testLaterEvictionsKeepLeastRecentlyUsedOrder() {
+    long entryBytes = sample().sizeInBytes();
+    SeriesCache library = new SeriesCache(entryBytes * 3);
+    library.put("GOOG", sample());
+    library.put("AAPL", sample());
+    library.put("NVDA", sample());
+    library.put("MSFT", sample());
+    assertFalse(library.containsKey("GOOG"));
+
+    // AAPL is used after the order was sorted, so NVDA is now the oldest.
+    assertNotNull(library.get("AAPL"));
+    library.put("TSLA", sample());
+    assertTrue(library.containsKey("AAPL"));
+    assertFalse(library.containsKey("NVDA"));
+
+    library.put("IBM", sample());
+    assertFalse(library.containsKey("MSFT"));
+    assertEquals(3, library.size());
+    assertEquals(3, library.stats().getEvictions());
+  }
+
+  @Test
+  public void testPinnedSymbolsAreNotEvicted() {
+    long entryBytes = sample().sizeInBytes();
+    SeriesCache library = new SeriesCache(entryBytes);
+    library.pin("GOOG");
+    library.put("GOOG", sample());
+    library.put("AAPL", sample());
+    library.put("MSFT", sample());
+
+    assertTrue(library.containsKey("GOOG"));
+    assertFalse(library.containsKey("AAPL"));
+    assertFalse(library.containsKey("MSFT"));
+
+    library.unpin("GOOG");
+    library.put("TSLA", sample());
+    assertFalse(library.containsKey("GOOG"));
+    assertEquals(entryBytes, library.sizeInBytes());
+  }
+
+  @Test
+  public void testStatsCountHitsAndMisses() throws IOException {
+    SeriesCache library = new SeriesCache();
+    library.getOrLoad("GOOG", symbol -> sample());
+    library.getOrLoad("GOOG", symbol -> sample());
+    library.get("GOOG");
+    assertNull(library.get("AAPL"));
+
+    CacheStats stats = library.stats();
+    assertEquals(2, stats.getHits());
+    assertEquals(1, stats.getMisses());
+    assertEquals(1, stats.getEntries());
+    assertEquals(sample().sizeInBytes(), stats.getBytes());
+    assertEquals(2.0 / 3, stats.hitRate(), 0.0001);
+  }
+
+  @Test
+  public void testRegisteredSourceLoadsLazily() throws Exception {
+    SeriesCache library = new SeriesCache();
+    AtomicInteger calls = new AtomicInteger();
+    library.register("GOOG", symbol -> {
+      calls.incrementAndGet();
+      return sample();
+    });
+    library.register("AAPL", symbol -> sample());
+
+    assertEquals(0, calls.get());
+    assertFalse(library.containsKey("GOOG"));
+    assertTrue(library.isRegistered("GOOG"));
+
+    StockSeries series = library.getOrLoad("GOOG", symbol -> {
+      throw new IOException("should use the registered source");
+    });
+    assertEquals(2, series.size());
+    assertSame(series, library.get("GOOG"));
+    assertEquals(1, calls.get());
+
+    library.warmUp(Runnable::run).get(5, TimeUnit.SECONDS);
+    assertTrue(library.containsKey("AAPL"));
+    assertEquals(1, calls.get());
+  }
+
+  @Test
+  public void testAppendVisibleToReaders() throws Exception {
+    StockSeries series = sample();
+    assertEquals(2150, series.closeSum(0, 2), 0.001);
+    series.append(Dates.parse("2020-03-10"), 1100, 1200, 1090, 1180, 13000);
+
+    assertEquals(3, series.size());
+    assertEquals(3330, series.closeSum(0, 3), 0.001);
+    assertEquals(2, series.indexOf(Dates.parse("2020-03-10")));
+  }
+}
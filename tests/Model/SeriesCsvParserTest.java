@@ -0,0 +1,107 @@
+package Model;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+
+import static org.junit.Assert.*;
+
+public class SeriesCsvParserTest {
+
+  private static InputStream csv(String text) {
+    return new ByteArrayInputStream(text.getBytes(StandardCharsets.US_ASCII));
+  }
+
+  @Test
+  public void testParsesBothDateFormats() throws IOException {
+    StockSeries series = SeriesCsvParser.parse(csv("timestamp,open,high,low,close,volume\n"
+            + "2024-06-06,195.6850,196.5000,194.1700,194.4800,40995085\n"
+            + "5/29/2024,176.81,178.23,176.26,177.4,15023847\n"));
+
+    assertEquals(2, series.size());
+    assertEquals("2024-05-29", Dates.format(series.dayAt(0)));
+    assertEquals("2024-06-06", Dates.format(series.dayAt(1)));
+    assertEquals(176.81, series.openAt(0), 0);
+    assertEquals(194.48, series.closeAt(1), 0);
+    assertEquals(40995085L, series.volumeAt(1));
+  }
+
+  @Test
+  public void testPricesMatchDoubleParseDouble() throws IOException {
+    String[] prices = {"0.1", "1240.4800", "178.23", "-0.5", "+3", "12345678901234567.25", "1e3",
+        "0.000000000000000000000001"};
+    StringBuilder text = new StringBuilder("timestamp,open,high,low,close,volume\n");
+    for (int i = 0; i < prices.length; i++) {
+      text.append(Dates.format(i)).append(',').append(prices[i]).append(",1,1,1,1\n");
+    }
+    StockSeries series = SeriesCsvParser.parse(csv(text.toString()));
+
+    assertEquals(prices.length, series.size());
+    for (int i = 0; i < prices.length; i++) {
+      assertEquals(prices[i], Double.parseDouble(prices[i]), series.openAt(i), 0);
+    }
+  }
+
+  @Test
+  public void testCountsAndSkipsMalformedRows() throws IOException {
+    StockSeries.Builder builder = new StockSeries.Builder(0);
+    int skipped = SeriesCsvParser.parse(csv("timestamp,open,high,low,close,volume\r\n"
+            + "2020-03-04,1000,1100,950,1050,10000\r\n"
+            + "2020-02-30,1000,1100,950,1050,10000\r\n"
+            + "2020-03-05,abc,1100,950,1050,10000\r\n"
+            + "2020-03-06,1000,1100,950\r\n"
+            + "\r\n"
+            + "2020-03-09,1050,1150,1000,1100,12000"), builder);
+
+    assertEquals(3, skipped);
+    StockSeries series = builder.build();
+    assertEquals(2, series.size());
+    assertEquals(1100, series.closeAt(1), 0);
+  }
+
+  @Test
+  public void testKeepsFirstRowOfRepeatedDay() throws IOException {
+    StockSeries series = SeriesCsvParser.parse(csv("timestamp,open,high,low,close,volume\n"
+            + "2020-03-09,1050,1150,1000,1100,12000\n"
+            + "3/9/2020,1,1,1,1,1\n"
+            + "2020-03-04,1000,1100,950,1050,10000\n"));
+
+    assertEquals(2, series.size());
+    assertEquals(1100, series.closeAt(1), 0);
+  }
+
+  @Test
+  public void testReadsAcrossBufferBoundaries() throws IOException {
+    StringBuilder text = new StringBuilder("timestamp,open,high,low,close,volume\n");
+    int rows = 5000;
+    for (int i = rows - 1; i >= 0; i--) {
+      text.append(Dates.format(i)).append(',').append(i).append(".25,2,1,")
+              .append(i).append(".5,").append(i).append('\n');
+    }
+    StockSeries series = SeriesCsvParser.parse(csv(text.toString()));
+
+    assertEquals(rows, series.size());
+    for (int i = 0; i < rows; i++) {
+      assertEquals(i, series.dayAt(i));
+      assertEquals(i + 0.5, series.closeAt(i), 0);
+      assertEquals(i, series.volumeAt(i));
+    }
+  }
+
+  @Test
+  public void testEpochDayMatchesLocalDate() {
+    for (LocalDate date = LocalDate.of(1899, 12, 25); date.getYear() < 2101;
+         date = date.plusDays(13)) {
+      assertTrue(Dates.isValid(date.getYear(), date.getMonthValue(), date.getDayOfMonth()));
+      assertEquals(date.toString(), date.toEpochDay(),
+              Dates.epochDay(date.getYear(), date.getMonthValue(), date.getDayOfMonth()));
+    }
+    assertTrue(Dates.isValid(2000, 2, 29));
+    assertFalse(Dates.isValid(1900, 2, 29));
+    assertFalse(Dates.isValid(2023, 4, 31));
+  }
+}
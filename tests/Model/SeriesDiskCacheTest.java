@@ -0,0 +1,99 @@
+package Model;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+
+public class SeriesDiskCacheTest {
+
+  private Path directory;
+  private SeriesDiskCache cache;
+  private StockSeries googSeries;
+
+  @Before
+  public void setUp() throws IOException {
+    directory = Files.createTempDirectory("series-cache");
+    cache = new SeriesDiskCache(directory);
+    googSeries = StockSeries.of(Arrays.asList(
+            new Stock("2020-03-04", 1000, 1100, 950, 1050, 10000),
+            new Stock("2020-03-09", 1050, 1150, 1000, 1100, 12000)
+    ));
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    try (Stream<Path> files = Files.walk(directory)) {
+      files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+    }
+  }
+
+  @Test
+  public void testStoreAndLoad() throws IOException {
+    cache.store("GOOG", googSeries);
+    StockSeries loaded = cache.load("GOOG");
+
+    assertNotNull(loaded);
+    assertEquals(2, loaded.size());
+    assertEquals("2020-03-04", loaded.get(0).getDate());
+    assertEquals(1100, loaded.closeAt(1), 0.001);
+    assertEquals(12000, loaded.volumeAt(1));
+  }
+
+  @Test
+  public void testReadFromStream() throws IOException {
+    ByteBuffer encoded = SeriesFile.encode(googSeries);
+    byte[] bytes = new byte[encoded.remaining()];
+    encoded.get(bytes);
+
+    StockSeries loaded = SeriesFile.read(new ByteArrayInputStream(bytes));
+
+    assertEquals(googSeries.size(), loaded.size());
+    assertEquals(googSeries.dayAt(0), loaded.dayAt(0));
+    assertEquals(googSeries.closeAt(1), loaded.closeAt(1), 0);
+  }
+
+  @Test(expected = IOException.class)
+  public void testRepeatedDayIsRejected() throws IOException {
+    ByteBuffer encoded = SeriesFile.encode(googSeries);
+    encoded.putInt(SeriesFile.HEADER_BYTES + Integer.BYTES, googSeries.dayAt(0));
+
+    SeriesFile.decode(encoded);
+  }
+
+  @Test
+  public void testLoadMissingSymbol() {
+    assertNull(cache.load("AAPL"));
+    assertNull(cache.load("../AAPL"));
+  }
+
+  @Test
+  public void testCorruptFileIsDiscarded() throws IOException {
+    Path file = directory.resolve("GOOG.series");
+    Files.write(file, new byte[]{1, 2, 3});
+
+    assertNull(cache.load("GOOG"));
+    assertFalse(Files.exists(file));
+  }
+
+  @Test
+  public void testFetchDataReadsDiskCache() throws IOException {
+    cache.store("GOOG", googSeries);
+    AlphaAPI api = new AlphaAPI(cache);
+    SeriesCache library = new SeriesCache();
+
+    double gainLoss = Stock.viewGainLoss("GOOG", "2020-03-04", "2020-03-09", api, library);
+    assertEquals(4.76, gainLoss, 0.01);
+    assertTrue(library.containsKey("GOOG"));
+  }
+}
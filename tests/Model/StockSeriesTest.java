@@ -0,0 +1,125 @@
+package Model;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class StockSeriesTest {
+
+  @Test
+  public void testBuilderReversesNewestFirstRows() {
+    StockSeries.Builder builder = new StockSeries.Builder(0);
+    builder.add(Dates.parse("2020-03-09"), 1050, 1150, 1000, 1100, 12000);
+    builder.add(Dates.parse("2020-03-06"), 1020, 1060, 1010, 1040, 11000);
+    builder.add(Dates.parse("2020-03-04"), 1000, 1100, 950, 1050, 10000);
+    StockSeries series = builder.build();
+
+    assertEquals(3, series.size());
+    assertEquals("2020-03-04", series.get(0).getDate());
+    assertEquals("2020-03-09", series.get(2).getDate());
+    assertEquals(1040, series.closeAt(1), 0.001);
+    assertEquals(11000, series.volumeAt(1));
+  }
+
+  @Test
+  public void testOfSortsUnorderedRows() {
+    List<Stock> stocks = Arrays.asList(
+            new Stock("2020-03-06", 1020, 1060, 1010, 1040, 11000),
+            new Stock("2020-03-04", 1000, 1100, 950, 1050, 10000),
+            new Stock("2020-03-09", 1050, 1150, 1000, 1100, 12000)
+    );
+    StockSeries series = StockSeries.of(stocks);
+
+    assertEquals(Dates.parse("2020-03-04"), series.dayAt(0));
+    assertEquals(Dates.parse("2020-03-06"), series.dayAt(1));
+    assertEquals(Dates.parse("2020-03-09"), series.dayAt(2));
+    assertEquals(1100, series.closeAt(2), 0.001);
+  }
+
+  @Test
+  public void testRowViewMatchesColumns() {
+    StockSeries series = StockSeries.of(Arrays.asList(
+            new Stock("2020-03-04", 1000, 1100, 950, 1050, 10000)));
+    Stock stock = series.get(0);
+
+    assertEquals("2020-03-04", stock.getDate());
+    assertEquals(1000, stock.getOpeningPrice(), 0.01);
+    assertEquals(1100, stock.getHighPrice(), 0.01);
+    assertEquals(950, stock.getLowPrice(), 0.01);
+    assertEquals(1050, stock.getClosingPrice(), 0.01);
+    assertEquals(10000, stock.getVolume());
+  }
+
+  @Test
+  public void testIndexOfAndCeilingIndex() {
+    StockSeries series = StockSeries.of(Arrays.asList(
+            new Stock("2020-03-04", 1000, 1100, 950, 1050, 10000),
+            new Stock("2020-03-06", 1020, 1060, 1010, 1040, 11000),
+            new Stock("2020-03-09", 1050, 1150, 1000, 1100, 12000)));
+
+    assertEquals(0, series.indexOf(Dates.parse("2020-03-04")));
+    assertEquals(2, series.indexOf(Dates.parse("2020-03-09")));
+    assertEquals(-1, series.indexOf(Dates.parse("2020-03-08")));
+    assertEquals(2, series.ceilingIndex(Dates.parse("2020-03-07")));
+    assertEquals(0, series.ceilingIndex(Dates.parse("2020-01-01")));
+    assertEquals(3, series.ceilingIndex(Dates.parse("2020-04-01")));
+  }
+
+  @Test
+  public void testMovingAverageUsesRunningTotals() {
+    StockSeries series = StockSeries.of(Arrays.asList(
+            new Stock("2020-03-04", 1000, 1100, 950, 1050, 10000),
+            new Stock("2020-03-06", 1020, 1060, 1010, 1040, 11000),
+            new Stock("2020-03-09", 1050, 1150, 1000, 1100, 12000)));
+
+    assertEquals(3190, series.closeSum(0, 3), 0.0001);
+    assertEquals(1070, series.movingAverage(2, 2), 0.0001); // (1040 + 1100) / 2
+
+    series.append(Dates.parse("2020-03-10"), 1100, 1200, 1090, 1180, 13000);
+    assertEquals(4, series.size());
+    assertEquals(1140, series.movingAverage(3, 2), 0.0001); // (1100 + 1180) / 2
+    assertEquals(1092.5, series.movingAverage(3, 4), 0.0001);
+  }
+
+  @Test
+  public void testAppendNewerMergesOnlyNewDays() {
+    StockSeries series = StockSeries.of(Arrays.asList(
+            new Stock("2020-03-04", 1000, 1100, 950, 1050, 10000),
+            new Stock("2020-03-06", 1020, 1060, 1010, 1040, 11000)));
+    StockSeries recent = StockSeries.of(Arrays.asList(
+            new Stock("2020-03-10", 1100, 1200, 1090, 1180, 13000),
+            new Stock("2020-03-09", 1050, 1150, 1000, 1100, 12000),
+            new Stock("2020-03-06", 1020, 1060, 1010, 1040, 11000)));
+
+    assertEquals(2, series.appendNewer(recent));
+    assertEquals(4, series.size());
+    assertEquals(Dates.parse("2020-03-10"), series.dayAt(3));
+    assertEquals(0, series.appendNewer(recent));
+  }
+
+  @Test
+  public void testAppendNewerRejectsGap() {
+    StockSeries series = StockSeries.of(Arrays.asList(
+            new Stock("2020-03-04", 1000, 1100, 950, 1050, 10000)));
+    StockSeries recent = StockSeries.of(Arrays.asList(
+            new Stock("2020-03-09", 1050, 1150, 1000, 1100, 12000)));
+
+    assertEquals(-1, series.appendNewer(recent));
+    assertEquals(1, series.size());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testAppendRejectsOlderDay() {
+    StockSeries series = StockSeries.of(Arrays.asList(
+            new Stock("2020-03-09", 1050, 1150, 1000, 1100, 12000)));
+    series.append(Dates.parse("2020-03-04"), 1000, 1100, 950, 1050, 10000);
+  }
+
+  @Test(expected = IndexOutOfBoundsException.class)
+  public void testRowOutOfBounds() {
+    StockSeries.empty().closeAt(0);
+  }
+}
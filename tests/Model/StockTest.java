@@ -11,12 +11,12 @@ import static org.junit.Assert.*;
 public class StockTest {
 
   private AlphaAPI api;
-  private Map<String, List<Stock>> library;
+  private SeriesCache library;
 
   @Before
   public void setUp() {
     api = new AlphaAPI(); // Mock or real API object
-    library = new HashMap<>();
+    library = new SeriesCache();
 
     // Mock data for stocks
     List<Stock> googStocks = Arrays.asList(
@@ -29,8 +29,8 @@ public class StockTest {
             new Stock("2020-03-09", 205, 215, 195, 210, 16000)
     );
 
-    library.put("GOOG", googStocks);
-    library.put("AAPL", aaplStocks);
+    library.put("GOOG", StockSeries.of(googStocks));
+    library.put("AAPL", StockSeries.of(aaplStocks));
   }
 
   @Test
@@ -60,11 +60,11 @@ public class StockTest {
   @Test
   public void testViewXDayMovingAverage() throws Exception {
     // Test for GOOG
-    double movingAverage = Stock.viewXDayMovingAverage("GOOG", "2020-03-04", 2, api, library);
+    double movingAverage = Stock.viewXDayMovingAverage("GOOG", "2020-03-09", 2, api, library);
     assertEquals(1075.0, movingAverage, 0.01); // (1050 + 1100) / 2
 
     // Test for AAPL
-    movingAverage = Stock.viewXDayMovingAverage("AAPL", "2020-03-04", 2, api, library);
+    movingAverage = Stock.viewXDayMovingAverage("AAPL", "2020-03-09", 2, api, library);
     assertEquals(207.5, movingAverage, 0.01); // (205 + 210) / 2
   }
 
@@ -83,15 +83,58 @@ public class StockTest {
 
   @Test
   public void testViewXDayCrossOver() throws Exception {
-    // Test for GOOG
+    // Only one day has a 2-day average, so there is no earlier side for it to cross from.
     List<String> crossovers = Stock.viewXDayCrossOver("GOOG", "2020-03-04", 2, api, library);
-    assertEquals(1, crossovers.size());
-    assertTrue(crossovers.contains("2020-03-09 (Bullish Crossover)"));
+    assertTrue(crossovers.isEmpty());
 
-    // Test for AAPL
     crossovers = Stock.viewXDayCrossOver("AAPL", "2020-03-04", 2, api, library);
-    assertEquals(1, crossovers.size());
-    assertTrue(crossovers.contains("2020-03-09 (Bullish Crossover)"));
+    assertTrue(crossovers.isEmpty());
+  }
+
+  @Test
+  public void testCrossOversAreOnlySignFlips() throws Exception {
+    // 2-day averages: 11, 11.5, 10, 8.5, 9, 11.5, 13.5, 14.
+    library.put("SPY", StockSeries.of(Arrays.asList(
+            new Stock("2024-01-01", 10, 10, 10, 10, 100),
+            new Stock("2024-01-02", 12, 12, 12, 12, 100),
+            new Stock("2024-01-03", 11, 11, 11, 11, 100),
+            new Stock("2024-01-04", 9, 9, 9, 9, 100),
+            new Stock("2024-01-05", 8, 8, 8, 8, 100),
+            new Stock("2024-01-08", 10, 10, 10, 10, 100),
+            new Stock("2024-01-09", 13, 13, 13, 13, 100),
+            new Stock("2024-01-10", 14, 14, 14, 14, 100),
+            new Stock("2024-01-11", 14, 14, 14, 14, 100))));
+
+    Crossovers crossovers = Stock.findXDayCrossOvers("SPY", "2024-01-01", 2, api, library);
+    assertEquals(2, crossovers.size());
+    assertEquals(Dates.parse("2024-01-03"), crossovers.dayAt(0));
+    assertFalse(crossovers.isBullish(0));
+    assertEquals(Dates.parse("2024-01-08"), crossovers.dayAt(1));
+    assertTrue(crossovers.isBullish(1));
+    assertEquals(Arrays.asList("2024-01-03 (Bearish Crossover)", "2024-01-08 (Bullish Crossover)"),
+            Stock.viewXDayCrossOver("SPY", "2024-01-01", 2, api, library));
+
+    // Starting on the 3rd still sees the price was above its average on the 2nd.
+    assertEquals(2, Stock.findXDayCrossOvers("SPY", "2024-01-03", 2, api, library).size());
+    assertEquals(1, Stock.findXDayCrossOvers("SPY", "2024-01-04", 2, api, library).size());
+    assertTrue(Stock.findXDayCrossOvers("SPY", "2024-01-09", 2, api, library).isEmpty());
+  }
+
+  @Test
+  public void testStreamXDayCrossOvers() throws Exception {
+    // A close exactly on its average keeps the side from before it.
+    library.put("QQQ", StockSeries.of(Arrays.asList(
+            new Stock("2024-01-01", 10, 10, 10, 10, 100),
+            new Stock("2024-01-02", 12, 12, 12, 12, 100),
+            new Stock("2024-01-03", 12, 12, 12, 12, 100),
+            new Stock("2024-01-04", 13, 13, 13, 13, 100),
+            new Stock("2024-01-05", 10, 10, 10, 10, 100))));
+
+    List<String> streamed = new ArrayList<>();
+    int count = Stock.streamXDayCrossOvers("QQQ", "2024-01-03", 2, api, library,
+        (day, bullish) -> streamed.add(Crossovers.format(day, bullish)));
+    assertEquals(1, count);
+    assertEquals(Collections.singletonList("2024-01-05 (Bearish Crossover)"), streamed);
   }
 
   @Test
@@ -0,0 +1,122 @@
+package Model;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class TradeLedgerTest {
+
+  private static final double DELTA = 1e-9;
+
+  private TradeLedger ledger;
+
+  @Before
+  public void setUp() {
+    ledger = new TradeLedger();
+    ledger.buy("GOOG", "2020-01-02", 10, 100);
+    ledger.buy("GOOG", "2020-02-03", 10, 120);
+    ledger.sell("GOOG", "2020-03-02", 15, 130);
+  }
+
+  @Test
+  public void testFifoSellsOldestSharesFirst() {
+    Position position = ledger.positionAsOf("GOOG", "2020-03-02", CostMethod.FIFO);
+    assertEquals(5, position.getShares());
+    // 10 at 100 and 5 at 120 sold; 5 at 120 left.
+    assertEquals(600, position.getCostBasis(), DELTA);
+    assertEquals(10 * 30 + 5 * 10, position.getRealizedGain(), DELTA);
+    assertEquals(120, position.getAverageCost(), DELTA);
+  }
+
+  @Test
+  public void testAverageCostSellsAtAveragePrice() {
+    Position position = ledger.positionAsOf("GOOG", "2020-03-02", CostMethod.AVERAGE_COST);
+    assertEquals(5, position.getShares());
+    assertEquals(550, position.getCostBasis(), DELTA);
+    assertEquals(15 * (130 - 110), position.getRealizedGain(), DELTA);
+  }
+
+  @Test
+  public void testPositionAsOfEarlierDates() {
+    assertEquals(0, ledger.positionAsOf("GOOG", "2019-12-31", CostMethod.FIFO).getShares());
+
+    Position january = ledger.positionAsOf("GOOG", "2020-01-31", CostMethod.FIFO);
+    assertEquals(10, january.getShares());
+    assertEquals(1000, january.getCostBasis(), DELTA);
+    assertEquals(0, january.getRealizedGain(), DELTA);
+
+    Position february = ledger.positionAsOf("GOOG", "2020-02-03", CostMethod.AVERAGE_COST);
+    assertEquals(20, february.getShares());
+    assertEquals(2200, february.getCostBasis(), DELTA);
+  }
+
+  @Test
+  public void testPositionsAsOfCoversTradedStocks() {
+    ledger.buy("AAPL", "2020-02-10", 3, 300);
+
+    Map<String, Position> january = ledger.positionsAsOf("2020-01-15", CostMethod.FIFO);
+    assertEquals(1, january.size());
+    assertTrue(january.containsKey("GOOG"));
+
+    Map<String, Position> march = ledger.positionsAsOf("2020-03-15", CostMethod.FIFO);
+    assertEquals(2, march.size());
+    assertEquals(900, march.get("AAPL").getCostBasis(), DELTA);
+    assertEquals(4, ledger.size());
+  }
+
+  @Test
+  public void testSellingEverythingLeavesNoCost() {
+    ledger.sell("GOOG", "2020-03-03", 5, 90);
+    Position fifo = ledger.positionAsOf("GOOG", "2020-03-03", CostMethod.FIFO);
+    assertEquals(0, fifo.getShares());
+    assertEquals(0, fifo.getCostBasis(), 0);
+    assertEquals(350 + 5 * (90 - 120), fifo.getRealizedGain(), DELTA);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testCannotSellMoreThanHeld() {
+    ledger.sell("GOOG", "2020-04-01", 6, 130);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testCannotSellUnheldStock() {
+    ledger.sell("AAPL", "2020-04-01", 1, 130);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testTradesMustBeInDateOrder() {
+    ledger.buy("GOOG", "2020-02-01", 1, 100);
+  }
+
+  @Test
+  public void testRejectedTradeLeavesLedgerUnchanged() {
+    try {
+      ledger.sell("GOOG", "2020-04-01", 100, 130);
+      fail("Selling more than held should be rejected");
+    } catch (IllegalArgumentException e) {
+      assertEquals("Cannot sell 100 shares of GOOG; only 5 held.", e.getMessage());
+    }
+    assertEquals(3, ledger.size());
+    assertEquals(5, ledger.positionAsOf("GOOG", "2020-04-01", CostMethod.FIFO).getShares());
+  }
+
+  @Test
+  public void testManyTradesKeepFifoLots() {
+    TradeLedger busy = new TradeLedger();
+    for (int i = 0; i < 1000; i++) {
+      busy.buy("NVDA", Dates.format(Dates.parse("2020-01-01") + i), 2, 10 + i);
+      busy.sell("NVDA", Dates.format(Dates.parse("2020-01-01") + i), 1, 10 + i);
+    }
+    Position position = busy.positionAsOf("NVDA", "2030-01-01", CostMethod.FIFO);
+    assertEquals(1000, position.getShares());
+    // The last 500 purchases are left whole.
+    double basis = 0;
+    for (int i = 500; i < 1000; i++) {
+      basis += 2 * (10 + i);
+    }
+    assertEquals(basis, position.getCostBasis(), 1e-6);
+  }
+}
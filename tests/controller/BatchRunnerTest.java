@@ -0,0 +1,119 @@
+package controller;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.Collections;
+
+import Model.MockAlphaAPI;
+import Model.Portfolio;
+import Model.PortfolioRegistry;
+import Model.SeriesCache;
+import Model.Stock;
+import Model.StockSeries;
+
+import static org.junit.Assert.*;
+
+public class BatchRunnerTest {
+
+  private BatchRunner runner;
+
+  @Before
+  public void setUp() {
+    PortfolioRegistry portfolios = new PortfolioRegistry();
+    portfolios.add(Portfolio.createPortfolio("Tech", Collections.singletonMap("AAPL", 10)));
+    MockAlphaAPI api = new MockAlphaAPI();
+    // Closes 10, 12, 11, 9, 8, 10: below the 2-day average on the 3rd, above it on the 6th.
+    api.addMockData("SPY", StockSeries.of(Arrays.asList(
+            new Stock("2024-01-01", 10, 10, 10, 10, 100),
+            new Stock("2024-01-02", 12, 12, 12, 12, 100),
+            new Stock("2024-01-03", 11, 11, 11, 11, 100),
+            new Stock("2024-01-04", 9, 9, 9, 9, 100),
+            new Stock("2024-01-05", 8, 8, 8, 8, 100),
+            new Stock("2024-01-06", 10, 10, 10, 10, 100))));
+    runner = new BatchRunner(api, new SeriesCache(), portfolios, 4);
+  }
+
+  private String[] run(String commands, BatchRunner.Format format, int failures)
+          throws IOException {
+    StringBuilder out = new StringBuilder();
+    assertEquals(failures, runner.run(new StringReader(commands), out, format));
+    return out.toString().split(System.lineSeparator());
+  }
+
+  @Test
+  public void testCsvResultsInInputOrder() throws IOException {
+    String[] lines = run("# nightly report\n"
+            + "gain AAPL 2023-01-02 2023-01-03\n"
+            + "\n"
+            + "average,AAPL,2023-01-03,2\n"
+            + "crossover AAPL 2023-01-02 2\n"
+            + "value Tech 2023-01-03\n", BatchRunner.Format.CSV, 0);
+
+    assertArrayEquals(new String[] {
+        "line,command,arguments,result,error",
+        "2,gain,AAPL 2023-01-02 2023-01-03," + (115.0 - 110.0) / 110.0 * 100 + ",",
+        "4,average,AAPL 2023-01-03 2,112.5,",
+        "5,crossover,AAPL 2023-01-02 2,,",
+        "6,value,Tech 2023-01-03,1150.0,"
+    }, lines);
+  }
+
+  @Test
+  public void testJsonLines() throws IOException {
+    String[] lines = run("average AAPL 2023-01-03 2\n"
+            + "crossover SPY 2024-01-02 2\n", BatchRunner.Format.JSON, 0);
+
+    assertEquals("{\"line\":1,\"command\":\"average\","
+            + "\"arguments\":[\"AAPL\",\"2023-01-03\",\"2\"],\"result\":112.5}", lines[0]);
+    assertEquals("{\"line\":2,\"command\":\"crossover\","
+            + "\"arguments\":[\"SPY\",\"2024-01-02\",\"2\"],"
+            + "\"result\":[\"2024-01-03 (Bearish Crossover)\","
+            + "\"2024-01-06 (Bullish Crossover)\"]}", lines[1]);
+  }
+
+  @Test
+  public void testFailedCommandsAreReportedAndOthersStillRun() throws IOException {
+    String[] lines = run("gain TSLA 2023-01-02 2023-01-03\n"
+            + "average AAPL 2023-01-03 two\n"
+            + "value Energy 2023-01-03\n"
+            + "forecast AAPL\n"
+            + "average AAPL 2023-01-03 2\n", BatchRunner.Format.JSON, 4);
+
+    assertEquals("{\"line\":1,\"command\":\"gain\","
+            + "\"arguments\":[\"TSLA\",\"2023-01-02\",\"2023-01-03\"],"
+            + "\"error\":\"Mock data not available for symbol: TSLA\"}", lines[0]);
+    assertTrue(lines[1].contains("\"error\":\"Number of days must be a whole number: two\""));
+    assertTrue(lines[2].contains("We could not find a portfolio with that name."));
+    assertTrue(lines[3].contains("\"error\":\"Unknown command: forecast\""));
+    assertTrue(lines[4].endsWith("\"result\":112.5}"));
+  }
+
+  @Test
+  public void testManyCommandsKeepOrder() throws IOException {
+    StringBuilder commands = new StringBuilder();
+    for (int i = 0; i < 500; i++) {
+      commands.append(i % 2 == 0 ? "average AAPL 2023-01-03 2" : "gain AAPL 2023-01-02 2023-01-03")
+              .append('\n');
+    }
+    String[] lines = run(commands.toString(), BatchRunner.Format.CSV, 0);
+    assertEquals(501, lines.length);
+    for (int i = 1; i <= 500; i++) {
+      assertTrue(lines[i].startsWith(i + "," + (i % 2 == 1 ? "average" : "gain") + ","));
+    }
+  }
+
+  @Test
+  public void testCsvQuotesFieldsWithQuotes() {
+    Commands.Result result = runner.execute(1, "average AAPL notadate 2");
+    assertEquals("1,average,AAPL notadate 2,,"
+            + "\"Date parsing error: Unparseable date: \"\"notadate\"\"\"", result.toCsv());
+
+    StringBuilder message = new StringBuilder();
+    Json.string(message, "a \"quoted\"\nline");
+    assertEquals("\"a \\\"quoted\\\"\\nline\"", message.toString());
+  }
+}
@@ -1,11 +1,13 @@
 package controller;
 
+import Model.BundledSeries;
 import Model.MockAlphaAPI;
 import View.MockStockView;
 import org.junit.Test;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.PrintStream;
 import java.util.Arrays;
@@ -15,16 +17,26 @@ import static org.junit.Assert.assertEquals;
 
 public class ControllerTest {
 
+  // Serves the bundled histories, so the expected values are those of the real tickers.
+  // Portfolio tickers are lowercased by the controller, which Alpha Vantage accepts.
+  private static MockAlphaAPI bundledApi() throws IOException {
+    MockAlphaAPI api = new MockAlphaAPI();
+    api.addMockData("GOOG", BundledSeries.load("GOOG"));
+    api.addMockData("goog", BundledSeries.load("GOOG"));
+    api.addMockData("AAPL", BundledSeries.load("AAPL"));
+    return api;
+  }
+
   @Test
   public void testControllerViewGainAverage() throws Exception {
     // Simulated user input
-    String simulatedUserInput = "1\nGOOG\n2020-10-20\n2020-10-30\n2\nAAPL\n2023-01-01\n5\n7\n";
+    String simulatedUserInput = "1\nGOOG\n2020-10-20\n2020-10-30\n2\nAAPL\n2023-01-03\n5\n7\n";
     ByteArrayInputStream inputStream = new ByteArrayInputStream(simulatedUserInput.getBytes());
     ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
     PrintStream printStream = new PrintStream(outputStream);
 
     MockStockView view = new MockStockView(Arrays.asList(simulatedUserInput.split("\n")));
-    MockAlphaAPI api = new MockAlphaAPI();
+    MockAlphaAPI api = bundledApi();
 
     StockController controller = new StockController(view, new InputStreamReader(inputStream), printStream, api);
     controller.start();
@@ -43,7 +55,7 @@ public class ControllerTest {
             "Please enter your desired stock in ticker form.",
             "Start date?",
             "How many days?",
-            "Your average is: 195.124",
+            "Your average is: 128.13600000000002",
             "Please enter your choice as the associated number:"
     );
 
@@ -58,7 +70,7 @@ public class ControllerTest {
     PrintStream printStream = new PrintStream(outputStream);
 
     MockStockView view = new MockStockView(Arrays.asList(simulatedUserInput.split("\n")));
-    MockAlphaAPI api = new MockAlphaAPI();
+    MockAlphaAPI api = bundledApi();
 
     StockController controller = new StockController(view, new InputStreamReader(inputStream), printStream, api);
     controller.start();
@@ -86,7 +98,7 @@ public class ControllerTest {
     PrintStream printStream = new PrintStream(outputStream);
 
     MockStockView view = new MockStockView(Arrays.asList(simulatedUserInput.split("\n")));
-    MockAlphaAPI api = new MockAlphaAPI();
+    MockAlphaAPI api = bundledApi();
 
     StockController controller = new StockController(view, new InputStreamReader(inputStream), printStream, api);
     controller.start();
@@ -116,7 +128,7 @@ public class ControllerTest {
     PrintStream printStream = new PrintStream(outputStream);
 
     MockStockView view = new MockStockView(Arrays.asList(simulatedUserInput.split("\n")));
-    MockAlphaAPI api = new MockAlphaAPI();
+    MockAlphaAPI api = bundledApi();
 
     StockController controller = new StockController(view, new InputStreamReader(inputStream),
             printStream, api);
@@ -151,7 +163,7 @@ public class ControllerTest {
     PrintStream printStream = new PrintStream(outputStream);
 
     MockStockView view = new MockStockView(Arrays.asList(simulatedUserInput.split("\n")));
-    MockAlphaAPI api = new MockAlphaAPI();
+    MockAlphaAPI api = bundledApi();
 
     StockController controller = new StockController(view, new InputStreamReader(inputStream),
             printStream, api);
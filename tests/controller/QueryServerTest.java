@@ -0,0 +1,154 @@
+package controller;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import Model.MockAlphaAPI;
+import Model.Portfolio;
+import Model.PortfolioRegistry;
+import Model.SeriesCache;
+
+import static org.junit.Assert.*;
+
+public class QueryServerTest {
+
+  private QueryServer server;
+  private HttpClient client;
+
+  @Before
+  public void setUp() throws Exception {
+    PortfolioRegistry portfolios = new PortfolioRegistry();
+    portfolios.add(Portfolio.createPortfolio("Tech", Collections.singletonMap("AAPL", 10)));
+    server = new QueryServer(new MockAlphaAPI(), new SeriesCache(), portfolios, 0, 4).start();
+    client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+  }
+
+  @After
+  public void tearDown() {
+    server.stop();
+  }
+
+  private HttpResponse<String> get(String pathAndQuery) throws Exception {
+    HttpRequest request = HttpRequest.newBuilder(
+            URI.create("http://localhost:" + server.getPort() + pathAndQuery)).build();
+    return client.send(request, HttpResponse.BodyHandlers.ofString());
+  }
+
+  @Test
+  public void testQueries() throws Exception {
+    HttpResponse<String> average = get("/average?symbol=AAPL&date=2023-01-03&days=2");
+    assertEquals(200, average.statusCode());
+    assertEquals("{\"command\":\"average\",\"arguments\":[\"AAPL\",\"2023-01-03\",\"2\"],"
+            + "\"result\":112.5}", average.body());
+    assertTrue(average.headers().firstValue("Content-Type").get().startsWith("application/json"));
+
+    HttpResponse<String> value = get("/value?portfolio=Tech&date=2023-01-03");
+    assertEquals(200, value.statusCode());
+    assertTrue(value.body().endsWith("\"result\":1150.0}"));
+
+    HttpResponse<String> crossover = get("/crossover?symbol=AAPL&date=2023-01-03&days=2");
+    // AAPL only rises, so its price never crosses its average.
+    assertTrue(crossover.body().endsWith("\"result\":[]}"));
+  }
+
+  @Test
+  public void testErrors() throws Exception {
+    HttpResponse<String> missing = get("/gain?symbol=AAPL&start=2023-01-02");
+    assertEquals(400, missing.statusCode());
+    assertEquals("{\"error\":\"Missing parameter: end\"}", missing.body());
+
+    HttpResponse<String> badDays = get("/average?symbol=AAPL&date=2023-01-03&days=0");
+    assertEquals(400, badDays.statusCode());
+
+    HttpResponse<String> unavailable = get("/gain?symbol=TSLA&start=2023-01-02&end=2023-01-03");
+    assertEquals(502, unavailable.statusCode());
+    assertTrue(unavailable.body().contains("Mock data not available for symbol: TSLA"));
+
+    assertEquals(404, get("/forecast?symbol=AAPL").statusCode());
+    assertEquals(404, get("/gainloss?symbol=AAPL").statusCode());
+
+    HttpRequest post = HttpRequest.newBuilder(
+            URI.create("http://localhost:" + server.getPort() + "/gain"))
+            .POST(HttpRequest.BodyPublishers.noBody()).build();
+    assertEquals(405, client.send(post, HttpResponse.BodyHandlers.ofString()).statusCode());
+  }
+
+  @Test
+  public void testWrappedFetchFailuresAreBadGateway() throws Exception {
+    PortfolioRegistry portfolios = new PortfolioRegistry();
+    portfolios.add(Portfolio.createPortfolio("Feeds", Collections.singletonMap("SYNC", 1)));
+    QueryServer wrapping = new QueryServer((symbol, library) -> {
+      if (symbol.equals("SYNC")) {
+        throw new UncheckedIOException(new IOException("Feed unavailable"));
+      }
+      throw new CompletionException(new IOException("Feed timed out"));
+    }, new SeriesCache(), portfolios, 0, 1).start();
+    try {
+      HttpResponse<String> value = client.send(HttpRequest.newBuilder(URI.create(
+              "http://localhost:" + wrapping.getPort() + "/value?portfolio=Feeds&date=2023-01-03"))
+              .build(), HttpResponse.BodyHandlers.ofString());
+      assertEquals(502, value.statusCode());
+      assertTrue(value.body().contains("\"Feed unavailable\""));
+
+      for (String symbol : new String[] {"SYNC", "ASYNC"}) {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:"
+                + wrapping.getPort() + "/gain?symbol=" + symbol
+                + "&start=2023-01-02&end=2023-01-03")).build();
+        HttpResponse<String> response = client.send(request,
+                HttpResponse.BodyHandlers.ofString());
+        assertEquals(502, response.statusCode());
+        assertTrue(response.body().contains(symbol.equals("SYNC")
+                ? "\"Feed unavailable\"" : "\"Feed timed out\""));
+      }
+    } finally {
+      wrapping.stop();
+    }
+  }
+
+  @Test
+  public void testConcurrentClients() throws Exception {
+    URI uri = URI.create("http://localhost:" + server.getPort()
+            + "/gain?symbol=AAPL&start=2023-01-02&end=2023-01-03");
+    List<CompletableFuture<HttpResponse<String>>> responses = new ArrayList<>();
+    for (int i = 0; i < 100; i++) {
+      responses.add(client.sendAsync(HttpRequest.newBuilder(uri).build(),
+              HttpResponse.BodyHandlers.ofString()));
+    }
+    for (CompletableFuture<HttpResponse<String>> response : responses) {
+      assertEquals(200, response.get().statusCode());
+      assertTrue(response.get().body().contains("\"result\":" + (115.0 - 110.0) / 110.0 * 100));
+    }
+  }
+
+  @Test
+  public void testMetrics() throws Exception {
+    get("/average?symbol=AAPL&date=2023-01-03&days=2");
+    HttpResponse<String> metrics = get("/metrics");
+    assertEquals(200, metrics.statusCode());
+    assertTrue(metrics.body().startsWith("{\"counters\":{"));
+    assertTrue(metrics.body().contains("\"query.average\":{\"count\":"));
+    assertEquals(404, get("/metrics/extra").statusCode());
+  }
+
+  @Test
+  public void testParseQueryDecodes() {
+    Map<String, String> query = QueryServer.parseQuery("portfolio=Big%20Tech&date=2023-01-03&x");
+    assertEquals("Big Tech", query.get("portfolio"));
+    assertEquals("2023-01-03", query.get("date"));
+    assertEquals("", query.get("x"));
+  }
+}